@@ -0,0 +1,122 @@
+package blockcraft;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Save/load time and file size: v2 binary (edited chunks only) vs. the v1 text format.
+ *
+ * Run: gradle saveBenchmark
+ *
+ * Scenarios: a few hundred edits on the default map, scattered edits on a 20000x2000 map,
+ * and one edit in every chunk of that map (worst case for v2: every chunk is written).
+ * v1 files are produced by a copy of the old writer and read through the v1 import path.
+ */
+public final class SaveBenchmark {
+
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("bc2d-bench");
+        System.out.printf("%-28s %-4s %12s %10s %10s%n", "scenario", "fmt", "size", "save ms", "load ms");
+
+        run(dir, "220x120, 200 edits", 220, 120, 200, false, true);
+        run(dir, "20000x2000, 5000 edits", 20_000, 2_000, 5_000, false, true);
+        run(dir, "20000x2000, every chunk", 20_000, 2_000, 0, true, false);
+    }
+
+    private static void run(Path dir, String label, int w, int h, int edits, boolean everyChunk, boolean withV1)
+            throws IOException {
+        GameState s = new GameState(w, h, 1337L);
+        Random rng = new Random(42);
+        for (int i = 0; i < edits; i++) {
+            s.world.set(rng.nextInt(w), rng.nextInt(h), TileType.PLANKS);
+        }
+        if (everyChunk) {
+            for (int y = 0; y < h; y += World.CHUNK_SIZE) {
+                for (int x = 0; x < w; x += World.CHUNK_SIZE) s.world.set(x, y, TileType.PLANKS);
+            }
+        }
+
+        String v2 = dir.resolve("v2.bc2d").toString();
+        long save = Long.MAX_VALUE, load = Long.MAX_VALUE;
+        for (int r = 0; r < RUNS; r++) {
+            long t0 = System.nanoTime();
+            SaveSystem.save(v2, s);
+            long t1 = System.nanoTime();
+            GameState loaded = SaveSystem.load(v2);
+            long t2 = System.nanoTime();
+            if (loaded == null || loaded.world.pinnedChunks() != s.world.pinnedChunks()) throw new AssertionError("v2 round trip");
+            save = Math.min(save, t1 - t0);
+            load = Math.min(load, t2 - t1);
+        }
+        report(label, "v2", Files.size(Path.of(v2)), save, load);
+
+        if (!withV1) return;
+        Path v1 = dir.resolve("v1.bc2d");
+        save = Long.MAX_VALUE;
+        load = Long.MAX_VALUE;
+        for (int r = 0; r < RUNS; r++) {
+            long t0 = System.nanoTime();
+            writeV1(v1, s);
+            long t1 = System.nanoTime();
+            GameState loaded = SaveSystem.load(v1.toString());
+            long t2 = System.nanoTime();
+            if (loaded == null) throw new AssertionError("v1 import");
+            save = Math.min(save, t1 - t0);
+            load = Math.min(load, t2 - t1);
+        }
+        report(label, "v1", Files.size(v1), save, load);
+    }
+
+    private static void report(String label, String fmt, long size, long saveNs, long loadNs) {
+        System.out.printf("%-28s %-4s %12s %10.1f %10.1f%n", label, fmt, human(size), saveNs / 1e6, loadNs / 1e6);
+    }
+
+    /** The old text writer, kept here only to measure against. */
+    private static void writeV1(Path path, GameState s) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("BC2D:1\n");
+        sb.append("w=").append(s.world.width).append("\n");
+        sb.append("h=").append(s.world.height).append("\n");
+        sb.append("seed=").append(s.seed).append("\n");
+        sb.append("player=").append(s.player.x()).append(",").append(s.player.y()).append("\n");
+        sb.append("sel=").append(s.selectedIndex).append("\n");
+        sb.append("inv=");
+        boolean first = true;
+        for (var e : s.player.inventory().snapshot().entrySet()) {
+            if (!first) sb.append(",");
+            first = false;
+            sb.append(e.getKey().name()).append(":").append(e.getValue());
+        }
+        sb.append("\n");
+        sb.append("tiles:\n");
+        // filled a band of chunk rows at a time so the chunked world isn't read against its grain
+        int w = s.world.width, h = s.world.height;
+        char[][] band = new char[World.CHUNK_SIZE][w];
+        for (int y0 = 0; y0 < h; y0 += World.CHUNK_SIZE) {
+            int rows = Math.min(World.CHUNK_SIZE, h - y0);
+            for (int x0 = 0; x0 < w; x0 += World.CHUNK_SIZE) {
+                for (int r = 0; r < rows; r++) {
+                    for (int x = x0; x < Math.min(w, x0 + World.CHUNK_SIZE); x++) {
+                        band[r][x] = ".gdswlpa".charAt(s.world.get(x, y0 + r).ordinal());
+                    }
+                }
+            }
+            for (int r = 0; r < rows; r++) sb.append(band[r]).append("\n");
+        }
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(sb.toString());
+        }
+    }
+
+    private static String human(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KiB", bytes / 1024.0);
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
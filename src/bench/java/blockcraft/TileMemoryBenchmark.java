@@ -0,0 +1,64 @@
+package blockcraft;
+
+/**
+ * Heap used by tile data: the old flat TileType[] grid vs. palette-encoded chunks.
+ *
+ * Run: gradle memoryBenchmark
+ *
+ * Both sides hold the fully generated world. "measured" is the heap delta around the
+ * allocation (after GC), "estimated" is the layout arithmetic.
+ */
+public final class TileMemoryBenchmark {
+
+    private static final int[][] SIZES = { {220, 120}, {20_000, 2_000} };
+
+    public static void main(String[] args) {
+        // warm up class loading so it doesn't land in the first measurement
+        World warm = new World(256, 256, Integer.MAX_VALUE);
+        warm.generate(1L);
+        warm.stream(0, 0, 255, 255);
+        usedHeap();
+
+        System.out.printf("%-12s %-10s %14s %14s %9s%n", "world", "storage", "measured", "estimated", "B/tile");
+        for (int[] size : SIZES) {
+            int w = size[0], h = size[1];
+            long tiles = (long) w * h;
+
+            // chunked, everything resident
+            long before = usedHeap();
+            World world = new World(w, h, Integer.MAX_VALUE);
+            world.generate(1337L);
+            world.stream(0, 0, w - 1, h - 1);
+            long chunked = usedHeap() - before;
+            report(w, h, "chunked", chunked, world.tileMemoryBytes(), tiles);
+
+            // today's representation: one reference per tile
+            before = usedHeap();
+            TileType[] flat = new TileType[w * h];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) flat[y * w + x] = world.get(x, y);
+            }
+            long legacy = usedHeap() - before;
+            report(w, h, "TileType[]", legacy, 16 + 4L * flat.length, tiles);
+
+            if (flat[0] == null || world.residentChunks() == 0) throw new AssertionError();
+        }
+    }
+
+    private static void report(int w, int h, String name, long measured, long estimated, long tiles) {
+        System.out.printf("%-12s %-10s %14s %14s %9.3f%n", w + "x" + h, name,
+                human(measured), human(estimated), (double) Math.max(measured, 0) / tiles);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static String human(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KiB", bytes / 1024.0);
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,115 @@
+package blockcraft;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the simulation without a window or GL context, as fast as it will go.
+ *
+ * Run: gradle runHeadless [-Pargs="--ticks 200000 --size 20000x2000 --seed 1337"]
+ *
+ * Options:
+ *   --ticks N        ticks to simulate (default 100000)
+ *   --size WxH       world size in tiles (default 220x120)
+ *   --seed S         world seed (default 1337)
+ *   --input-seed S   seed for the scripted player (default 1)
+ *   --report N       print a progress line every N ticks (default 20000)
+ *   --mobs N         extra mobs scattered over open tiles around the player (default 0)
+ *   --mob-threads N  workers for the mob think phase (default 0 = simulation thread)
+ *   --record FILE    also record the inputs for gradle replay (needs --mobs 0: replays start without extras)
+ *
+ * Prints ticks/second and the simulated game time that represents.
+ */
+public final class HeadlessRunner {
+
+    private static final float TICK = 1f / 60f;
+
+    public static void main(String[] args) {
+        long ticks = 100_000;
+        int w = 220, h = 120;
+        long seed = 1337L;
+        long inputSeed = 1L;
+        long report = 20_000;
+        int extraMobs = 0;
+        int mobThreads = 0;
+        String record = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ticks" -> ticks = Long.parseLong(args[++i]);
+                case "--size" -> {
+                    String[] wh = args[++i].split("x");
+                    w = Integer.parseInt(wh[0]);
+                    h = Integer.parseInt(wh[1]);
+                }
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--input-seed" -> inputSeed = Long.parseLong(args[++i]);
+                case "--report" -> report = Long.parseLong(args[++i]);
+                case "--mobs" -> extraMobs = Integer.parseInt(args[++i]);
+                case "--mob-threads" -> mobThreads = Integer.parseInt(args[++i]);
+                case "--record" -> record = args[++i];
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        if (record != null && extraMobs > 0) throw new IllegalArgumentException("--record needs --mobs 0");
+
+        long t0 = System.nanoTime();
+        GameState state = new GameState(w, h, seed);
+        spawnMobs(state, extraMobs, seed);
+        if (mobThreads > 0) state.mobPool = new ForkJoinPool(mobThreads);
+        long setupNs = System.nanoTime() - t0;
+        System.out.printf("world %dx%d seed %d, %d mobs: setup %.1f ms%n",
+                w, h, seed, state.mobs.size(), setupNs / 1e6);
+
+        ScriptedInput script = new ScriptedInput(inputSeed);
+        TickInput input = new TickInput();
+        InputRecorder recorder = record != null ? new InputRecorder(record, state, TICK) : null;
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        for (long t = 1; t <= ticks; t++) {
+            script.fill(state, input);
+            if (recorder != null) recorder.tick(state, input, TICK);
+            else state.tick(input, TICK);
+
+            if (report > 0 && t % report == 0) {
+                long now = System.nanoTime();
+                System.out.printf("tick %,d  %,.0f ticks/s  player %.1f,%.1f  chunks %d (%d edited)%n",
+                        t, report / ((now - lastReport) / 1e9), state.player.x(), state.player.y(),
+                        state.world.residentChunks(), state.world.pinnedChunks());
+                lastReport = now;
+            }
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        if (recorder != null) {
+            recorder.finish(state);
+            System.out.printf("recorded to %s, end hash %016x%n", record, state.hash());
+        }
+
+        System.out.printf("%,d ticks in %.2f s: %,.0f ticks/s (%.0fx real time at %d TPS)%n",
+                ticks, secs, ticks / secs, ticks * TICK / secs, Math.round(1 / TICK));
+        if (state.mobPool != null) state.mobPool.shutdown();
+    }
+
+    /**
+     * At most one mob per open tile, about one per four tiles, in a square around the spawn.
+     * The area is prefetched; mobs in chunks that later fall out of the cache stop moving.
+     */
+    static void spawnMobs(GameState state, int count, long seed) {
+        if (count <= 0) return;
+        World world = state.world;
+        int r = Math.max(2 * World.CHUNK_SIZE, (int) Math.sqrt(count));
+        int px = (int) state.player.x(), py = (int) state.player.y();
+        world.prefetch(px - r, py - r, px + r, py + r);
+
+        SplittableRandom rng = new SplittableRandom(seed);
+        for (int tries = 0; count > 0 && tries < count * 20; tries++) {
+            int x = px - r + rng.nextInt(2 * r + 1), y = py - r + rng.nextInt(2 * r + 1);
+            if (!world.inBounds(x, y) || world.get(x, y).solid) continue;
+            if (state.mobs.grid().occupied(x, y, -1)) continue;
+            state.mobs.spawn(x, y);
+            count--;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package blockcraft;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays an input recording without a window at maximum speed, for repeatable profiling workloads.
+ *
+ * Run: gradle replay -Pargs="session.bcr [--report 60000] [--mob-threads 4]"
+ *
+ * Recordings come from the game (gradle run --args="--record session.bcr") or from
+ * gradle runHeadless -Pargs="--record session.bcr". Every recorded checkpoint hash is compared on the
+ * way; exits with status 1 at the first one that differs.
+ */
+public final class ReplayRunner {
+
+    public static void main(String[] args) {
+        String file = null;
+        long report = 60_000;
+        int mobThreads = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--report" -> report = Long.parseLong(args[++i]);
+                case "--mob-threads" -> mobThreads = Integer.parseInt(args[++i]);
+                default -> {
+                    if (args[i].startsWith("--") || file != null) throw new IllegalArgumentException("unknown option " + args[i]);
+                    file = args[i];
+                }
+            }
+        }
+        if (file == null) throw new IllegalArgumentException("usage: ReplayRunner <recording> [--report N] [--mob-threads N]");
+
+        InputReplay replay = new InputReplay(file);
+        GameState state = replay.newState();
+        if (mobThreads > 0) state.mobPool = new ForkJoinPool(mobThreads);
+        System.out.printf("world %dx%d seed %d, tick %.4f s%n", replay.width, replay.height, replay.seed, replay.step);
+
+        TickInput input = new TickInput();
+        long start = System.nanoTime();
+        try {
+            while (replay.next(state, input)) {
+                state.tick(input, replay.step);
+                if (report > 0 && state.tick % report == 0) {
+                    System.out.printf("tick %,d  player %.1f,%.1f  %d checkpoints ok%n",
+                            state.tick, state.player.x(), state.player.y(), replay.checks());
+                }
+            }
+        } catch (IllegalStateException e) {
+            System.out.println("FAILED: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            if (state.mobPool != null) state.mobPool.shutdown();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%,d ticks in %.2f s: %,.0f ticks/s (%.0fx real time); %d checkpoints matched%s; end hash %016x%n",
+                state.tick, secs, state.tick / secs, state.tick * replay.step / secs, replay.checks(),
+                replay.ended() ? "" : " (recording was cut off)", state.hash());
+    }
+}
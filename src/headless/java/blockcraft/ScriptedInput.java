@@ -0,0 +1,34 @@
+package blockcraft;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic stand-in for a player at the keyboard: wanders in straight legs of random
+ * length and direction, mines the tile ahead now and then and places blocks behind itself.
+ */
+final class ScriptedInput {
+    private final SplittableRandom rng;
+    private int legTicks;
+    private float dirX;
+    private float dirY;
+
+    ScriptedInput(long seed) {
+        this.rng = new SplittableRandom(seed);
+    }
+
+    void fill(GameState s, TickInput in) {
+        if (legTicks-- <= 0) {
+            legTicks = 30 + rng.nextInt(240);
+            dirX = rng.nextInt(3) - 1;
+            dirY = rng.nextInt(3) - 1;
+        }
+        in.moveX = dirX;
+        in.moveY = dirY;
+
+        int px = (int) Math.floor(s.player.x());
+        int py = (int) Math.floor(s.player.y());
+        if (s.tick % 15 == 0) in.mine(px + (int) dirX, py + (int) dirY);
+        if (s.tick % 40 == 20) in.place(px - (int) dirX, py - (int) dirY);
+        if (s.tick % 300 == 0) in.select = rng.nextInt(s.hotbar.length);
+    }
+}
@@ -0,0 +1,71 @@
+package blockcraft;
+
+/**
+ * Dedicated multiplayer server: no window, no libGDX.
+ *
+ * Run: gradle runServer [-Pargs="--port 7777 --size 220x120 --seed 1337"]
+ * Join: gradle run --args="--connect localhost:7777"
+ *
+ * Options:
+ *   --host H       address to listen on (default 0.0.0.0)
+ *   --port P       port (default 7777)
+ *   --size WxH     world size in tiles (default 220x120)
+ *   --seed S       world seed (default 1337)
+ *   --report N     print a status line every N seconds (default 10, 0 = never)
+ *
+ * The status line shows clients, tick time percentiles and what was sent since the start.
+ */
+public final class ServerRunner {
+
+    private static final float TICK = 1f / 60f;
+
+    public static void main(String[] args) {
+        String host = "0.0.0.0";
+        int port = 7777;
+        int w = 220, h = 120;
+        long seed = 1337L;
+        int report = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host" -> host = args[++i];
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--size" -> {
+                    String[] wh = args[++i].split("x");
+                    w = Integer.parseInt(wh[0]);
+                    h = Integer.parseInt(wh[1]);
+                }
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--report" -> report = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        GameServer server = new GameServer(new GameState(w, h, seed), host, port, TICK);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.printf("serving a %dx%d world (seed %d) on %s:%d%n", w, h, seed, host, server.port());
+
+        if (report > 0) {
+            long reportMs = report * 1000L;
+            Thread reporter = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(reportMs);
+                        // read from another thread: the numbers may be a tick stale, which is fine for a status line
+                        System.out.printf("tick %,d  %d clients  tick p50 %.3f ms  p99 %.3f ms  max %.3f ms  sent %,d KiB "
+                                        + "(%,d chunks, %,d edits)%n",
+                                server.ticks(), server.clients(), server.tickPercentileNanos(50) / 1e6,
+                                server.tickPercentileNanos(99) / 1e6, server.tickPercentileNanos(100) / 1e6,
+                                server.bytesSent() >> 10, server.chunksSent(), server.editsSent());
+                    }
+                } catch (InterruptedException e) {
+                    // server stopped
+                }
+            }, "server-report");
+            reporter.setDaemon(true);
+            reporter.start();
+        }
+
+        server.run();
+        server.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solid-tile queries on the bit layer against get(x, y).solid loops, on a fully resident 1024x512 world.
+ * Every op runs the query at 1,024 fixed random places, most of them on the cave-riddled terrain.
+ * - collider*: the player's collider (up to 2x2 tiles), as Player.move tests it
+ * - area*: a 16x16 rectangle, where a word covers two 16-tile row pieces at once
+ * - sight: World.lineOfSight to a tile up to 4 tiles away (what mining and placing now check)
+ * - ray64: World.raycast up to 64 tiles in a random direction
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionBenchmark {
+
+    private static final int W = 1024;
+    private static final int H = 512;
+    private static final int N = 1024;
+    private static final float R = 0.28f;
+
+    private World world;
+    private final float[] px = new float[N];
+    private final float[] py = new float[N];
+    private final float[] dx = new float[N];
+    private final float[] dy = new float[N];
+    private final RayHit hit = new RayHit();
+
+    @Setup
+    public void setup() {
+        world = new World(W, H, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.stream(0, 0, W - 1, H - 1);
+        SplittableRandom rng = new SplittableRandom(42L);
+        for (int i = 0; i < N; i++) {
+            px[i] = (float) rng.nextDouble(20, W - 20);
+            py[i] = (float) rng.nextDouble(H / 4.0, H - 20);
+            double a = rng.nextDouble(0, 2 * Math.PI);
+            dx[i] = (float) Math.cos(a);
+            dy[i] = (float) Math.sin(a);
+        }
+    }
+
+    @Benchmark
+    public int colliderPerTile() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            int minX = (int) Math.floor(px[i] - R), maxX = (int) Math.floor(px[i] + R);
+            int minY = (int) Math.floor(py[i] - R), maxY = (int) Math.floor(py[i] + R);
+            n += perTile(minX, minY, maxX, maxY) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int colliderBits() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            n += world.anySolid((int) Math.floor(px[i] - R), (int) Math.floor(py[i] - R),
+                    (int) Math.floor(px[i] + R), (int) Math.floor(py[i] + R)) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int areaPerTile() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            int x = (int) px[i], y = (int) py[i];
+            n += perTile(x, y, x + 15, y + 15) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int areaBits() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            int x = (int) px[i], y = (int) py[i];
+            n += world.anySolid(x, y, x + 15, y + 15) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int sight() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            n += world.lineOfSight(px[i], py[i], (int) (px[i] + dx[i] * 4), (int) (py[i] + dy[i] * 4)) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public float ray64() {
+        float d = 0;
+        for (int i = 0; i < N; i++) {
+            if (world.raycast(px[i], py[i], dx[i], dy[i], 64f, hit)) d += hit.distance;
+        }
+        return d;
+    }
+
+    /** The loop Player.collides ran before the bit layer. */
+    private boolean perTile(int minX, int minY, int maxX, int maxY) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (world.get(x, y).solid) return true;
+            }
+        }
+        return false;
+    }
+}
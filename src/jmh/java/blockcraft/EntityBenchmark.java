@@ -0,0 +1,42 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Per-call cost of Player.move (two collision probes) on the default map. Mobs: see MobBenchmark. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EntityBenchmark {
+
+    private GameState state;
+    private float spawnX;
+    private float spawnY;
+    private int step;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        state = new GameState(220, 120, 1337L);
+        spawnX = state.player.x();
+        spawnY = state.player.y();
+    }
+
+    @Benchmark
+    public float playerMove() {
+        // walk a small square so collision sees both open tiles and walls
+        int leg = (step++ >> 6) & 3;
+        float dx = leg == 0 ? 1 : leg == 2 ? -1 : 0;
+        float dy = leg == 1 ? 1 : leg == 3 ? -1 : 0;
+        state.player.move(state.world, dx, dy, 1f / 60f);
+        if ((step & 1023) == 0) state.player.setPos(spawnX, spawnY);
+        return state.player.x();
+    }
+}
@@ -0,0 +1,74 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FlowField at the game's radius (48) around the default spawn:
+ * - rebuild: full BFS
+ * - step: the player walks back and forth along a row (one tile per op)
+ * - edit: one tile near the player toggles between solid and open (one change per op)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlowFieldBenchmark {
+
+    private static final int WALK = 16;
+
+    private World world;
+    private FlowField field;
+    private int px;
+    private int py;
+    private int walk;
+    private int editX;
+    private int editY;
+
+    @Setup
+    public void setup() {
+        GameState state = new GameState(2000, 1000, 1337L);
+        world = state.world;
+        field = state.flow;
+        px = (int) Math.floor(state.player.x());
+        py = (int) Math.floor(state.player.y());
+        // a row of open tiles to walk on
+        while (rowBlocked(px, py)) py--;
+        field.rebuild(px, py);
+
+        editX = px + 3;
+        editY = py - 2;
+        if (world.get(editX, editY).solid) world.set(editX, editY, TileType.AIR);
+    }
+
+    private boolean rowBlocked(int x, int y) {
+        for (int i = 0; i <= WALK; i++) if (world.get(x + i, y).solid) return true;
+        return false;
+    }
+
+    @Benchmark
+    public int rebuild() {
+        field.rebuild(px, py);
+        return field.distance(px + 10, py);
+    }
+
+    @Benchmark
+    public int step() {
+        int i = walk++ % (2 * WALK);
+        int x = px + (i < WALK ? i : 2 * WALK - i);
+        field.update(x, py);
+        return field.distance(px, py);
+    }
+
+    @Benchmark
+    public int edit() {
+        world.set(editX, editY, world.get(editX, editY).solid ? TileType.AIR : TileType.STONE);
+        return field.distance(px + 10, py);
+    }
+}
@@ -0,0 +1,76 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LightEngine on a 384x256-tile lit region around the default spawn:
+ * - lightRegion: lighting the whole region from scratch (what a full relight would cost)
+ * - edit*: one World.set plus the incremental relight, toggling a tile solid/open each op
+ *   (cave: below ground; surface: just above the grass; sky: 60 tiles up, so it shades SKY_SHADOW tiles below it)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LightBenchmark {
+
+    private World world;
+    private LightEngine light;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+    private int x;
+    private int ground;
+
+    @Setup
+    public void setup() {
+        world = new World(2000, 1000, Integer.MAX_VALUE);
+        world.generate(1337L);
+        x = 1000;
+        ground = world.generator().groundY(x);
+        minX = x - 192;
+        maxX = x + 191;
+        minY = ground - 128;
+        maxY = ground + 127;
+        world.stream(minX, minY, maxX, maxY);
+        light = new LightEngine(world);
+        world.addListener(light);
+        light.update(minX, minY, maxX, maxY);
+    }
+
+    @Benchmark
+    public int lightRegion() {
+        for (Chunk c : world.chunks()) if (c != null) c.light = null;
+        light.update(minX, minY, maxX, maxY);
+        return light.touched();
+    }
+
+    @Benchmark
+    public int editCave() {
+        return toggle(x + 3, ground + 8);
+    }
+
+    @Benchmark
+    public int editSurface() {
+        return toggle(x + 3, ground - 2);
+    }
+
+    @Benchmark
+    public int editSky() {
+        return toggle(x + 3, ground - 60);
+    }
+
+    private int toggle(int tx, int ty) {
+        world.set(tx, ty, world.get(tx, ty).solid ? TileType.AIR : TileType.STONE);
+        light.update(minX, minY, maxX, maxY);
+        return light.touched();
+    }
+}
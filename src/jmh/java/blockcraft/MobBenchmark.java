@@ -0,0 +1,81 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MobStore bookkeeping on a fully resident 2000x1000 world (ticking: see MobTickBenchmark):
+ * - churn: despawn + respawn
+ * - visibleGrid / visibleScan: mobs inside one 1280x720 view at 24 px tiles, via SpatialGrid vs a linear scan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MobBenchmark {
+
+    @Param({"1000", "100000"})
+    public int mobs;
+
+    private World world;
+    private MobStore store;
+    private Random rng;
+    private final int[] out = new int[4096];
+    private float viewX;
+    private float viewY;
+
+    @Setup
+    public void setup() {
+        world = new World(2000, 1000, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.prefetch(0, 0, world.width - 1, world.height - 1);
+        rng = new Random(7);
+
+        store = new MobStore(mobs, world.width, world.height, 99L);
+        SplittableRandom pick = new SplittableRandom(42);
+        while (store.size() < mobs) {
+            int x = pick.nextInt(world.width), y = pick.nextInt(world.height);
+            if (!world.get(x, y).solid) store.spawn(x, y);
+        }
+        viewX = world.width / 2f;
+        viewY = world.height * 0.62f;
+    }
+
+    /** Despawn + respawn of one mob: should not allocate. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int churn() {
+        int id = store.idAt(rng.nextInt(store.size()));
+        float x = store.x(id), y = store.y(id);
+        store.despawn(id);
+        return store.spawn(x, y);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int visibleGrid() {
+        return store.grid().queryRect(viewX - 27.7f, viewY - 16f, viewX + 27.7f, viewY + 16f, out);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int visibleScan() {
+        int n = 0;
+        for (int s = 0; s < store.size(); s++) {
+            float x = store.xAt(s), y = store.yAt(s);
+            if (x >= viewX - 27.7f && x <= viewX + 27.7f && y >= viewY - 16f && y <= viewY + 16f && n < out.length) {
+                out[n++] = store.idAt(s);
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,64 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One mob tick (beginTick + update, wandering only) on a fully resident 2000x1000 world, with the think phase
+ * on the calling thread (threads = 0) or a pool of N workers. 60 TPS leaves 16.7 ms per tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MobTickBenchmark {
+
+    @Param({"100000"})
+    public int mobs;
+
+    @Param({"0", "2", "4"})
+    public int threads;
+
+    private World world;
+    private Player player;
+    private MobStore store;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        world = new World(2000, 1000, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.prefetch(0, 0, world.width - 1, world.height - 1);
+        player = new Player(1f, 1f);
+        pool = threads > 0 ? new ForkJoinPool(threads) : null;
+
+        store = new MobStore(mobs, world.width, world.height, 99L);
+        SplittableRandom pick = new SplittableRandom(42);
+        while (store.size() < mobs) {
+            int x = pick.nextInt(world.width), y = pick.nextInt(world.height);
+            if (!world.get(x, y).solid && !store.grid().occupied(x, y, -1)) store.spawn(x, y);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public int tick() {
+        store.beginTick();
+        store.update(world, 1f / 60f, player, null, pool);
+        return store.size();
+    }
+}
@@ -0,0 +1,122 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * World rectangle operations against the per-tile get/set loops they replace, on a fully resident
+ * 2048x1024 world without listeners. Per op: one 200x200 rectangle (40,000 tiles), offset by 5 tiles
+ * from the chunk grid so every operation has partial chunks at its edges.
+ * - fill alternates two types so every op really writes
+ * - stamp writes a log-and-plank prefab (a third KEEP) over AIR only, alternating two prefabs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegionBenchmark {
+
+    private static final int W = 2048;
+    private static final int H = 1024;
+    private static final int X0 = 1029;
+    private static final int Y0 = 517;
+    private static final int SIZE = 200;
+    private static final long AIR = TileType.mask(TileType.AIR);
+    private static final long ORE = TileType.mask(TileType.GOLD, TileType.WATER);
+
+    private World world;
+    private TileRegion buffer;
+    private final TileRegion[] prefabs = new TileRegion[2];
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        world = new World(W, H, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.stream(0, 0, W - 1, H - 1);
+        buffer = world.copy(X0, Y0 - 300, X0 + SIZE - 1, Y0 - 300 + SIZE - 1);
+        for (int p = 0; p < prefabs.length; p++) {
+            prefabs[p] = new TileRegion(SIZE, SIZE);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    if ((x + y) % 3 != 0) prefabs[p].set(x, y, (x / 4 + p) % 2 == 0 ? TileType.LOG : TileType.PLANKS);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int fillRect() {
+        return world.fillRect(X0, Y0, X0 + SIZE - 1, Y0 + SIZE - 1, (flip = !flip) ? TileType.PLANKS : TileType.AIR);
+    }
+
+    @Benchmark
+    public int fillPerTile() {
+        TileType t = (flip = !flip) ? TileType.PLANKS : TileType.AIR;
+        int changed = 0;
+        for (int y = Y0; y < Y0 + SIZE; y++) {
+            for (int x = X0; x < X0 + SIZE; x++) {
+                if (world.get(x, y) != t) changed++;
+                world.set(x, y, t);
+            }
+        }
+        return changed;
+    }
+
+    @Benchmark
+    public int count() {
+        return world.count(X0, Y0, X0 + SIZE - 1, Y0 + SIZE - 1, ORE);
+    }
+
+    @Benchmark
+    public int countPerTile() {
+        int n = 0;
+        for (int y = Y0; y < Y0 + SIZE; y++) {
+            for (int x = X0; x < X0 + SIZE; x++) n += (int) (ORE >>> world.get(x, y).ordinal()) & 1;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public TileRegion copy() {
+        world.copy(X0, Y0, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public TileRegion copyPerTile() {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) buffer.set(x, y, world.get(X0 + x, Y0 + y));
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public int stamp() {
+        TileRegion prefab = prefabs[(flip = !flip) ? 1 : 0];
+        world.fillRect(X0, Y0, X0 + SIZE - 1, Y0 + SIZE - 1, TileType.AIR);
+        return world.stamp(prefab, X0, Y0, AIR);
+    }
+
+    @Benchmark
+    public int stampPerTile() {
+        TileRegion prefab = prefabs[(flip = !flip) ? 1 : 0];
+        world.fillRect(X0, Y0, X0 + SIZE - 1, Y0 + SIZE - 1, TileType.AIR);
+        int changed = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                TileType t = prefab.get(x, y);
+                if (t == null || world.get(X0 + x, Y0 + y) != TileType.AIR) continue;
+                world.set(X0 + x, Y0 + y, t);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
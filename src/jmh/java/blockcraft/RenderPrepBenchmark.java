@@ -0,0 +1,99 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU side of drawing one 1280x720 view at 24 px tiles, with no GL:
+ * - cullTiles: the per-tile visibility walk the old drawWorld did every frame (minus batch calls)
+ * - buildChunkMeshes: rebuilding every visible chunk's vertices (the cold-cache / all-dirty case)
+ * - tileWindowFull: writing the whole tile-ID texture for the view (first frame, or after a load)
+ * - tileWindowScroll: the tilemap path's per-frame work while walking, the view moving one tile per op
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderPrepBenchmark {
+
+    private static final int TILE_PX = 24;
+    private static final int VIEW_W = 1280;
+    private static final int VIEW_H = 720;
+
+    private static final int WALK = 16;
+
+    private World world;
+    private ChunkMeshBuilder builder;
+    private TileIdWindow window;
+    private int walk;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    @Setup
+    public void setup() {
+        GameState s = new GameState(2000, 1000, 1337L);
+        world = s.world;
+        builder = new ChunkMeshBuilder(TILE_PX);
+
+        // camera centered on the ground line, like the game's view
+        float camX = 1000 * TILE_PX;
+        float camY = world.height * 0.62f * TILE_PX;
+        minX = (int) Math.floor((camX - VIEW_W / 2f) / TILE_PX) - 1;
+        maxX = (int) Math.floor((camX + VIEW_W / 2f) / TILE_PX) + 1;
+        minY = (int) Math.floor((camY - VIEW_H / 2f) / TILE_PX) - 1;
+        maxY = (int) Math.floor((camY + VIEW_H / 2f) / TILE_PX) + 1;
+        world.stream(minX - World.CHUNK_SIZE - WALK, minY - World.CHUNK_SIZE,
+                maxX + World.CHUNK_SIZE + WALK, maxY + World.CHUNK_SIZE);
+        window = new TileIdWindow(maxX - minX + 1, maxY - minY + 1);
+        window.update(world, minX, minY, maxX, maxY);
+    }
+
+    @Benchmark
+    public int cullTiles() {
+        int drawn = 0;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                TileType t = world.get(x, y);
+                if (t == TileType.AIR) continue;
+                drawn += ((x + y) & 1) + 1; // stand-in for the shade + quad emission
+            }
+        }
+        return drawn;
+    }
+
+    @Benchmark
+    public int buildChunkMeshes() {
+        int quads = 0;
+        for (int cy = minY >> Chunk.SHIFT; cy <= maxY >> Chunk.SHIFT; cy++) {
+            for (int cx = minX >> Chunk.SHIFT; cx <= maxX >> Chunk.SHIFT; cx++) {
+                builder.build(world, cx, cy, world.chunkAt(cx, cy));
+                quads += builder.quads;
+            }
+        }
+        return quads;
+    }
+
+    @Benchmark
+    public int tileWindowFull() {
+        TileIdWindow fresh = new TileIdWindow(maxX - minX + 1, maxY - minY + 1);
+        fresh.update(world, minX, minY, maxX, maxY);
+        return fresh.written;
+    }
+
+    @Benchmark
+    public int tileWindowScroll() {
+        int i = walk++ % (2 * WALK);
+        int dx = i < WALK ? i : 2 * WALK - i;
+        window.update(world, minX + dx, minY, maxX + dx, maxY);
+        window.clearDirty();
+        return window.written;
+    }
+}
@@ -0,0 +1,77 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** SaveSystem snapshot, write and load against a temp file. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SaveRoundTripBenchmark {
+
+    /** world size : scattered edits */
+    @Param({"220x120:200", "20000x2000:5000"})
+    public String scenario;
+
+    private GameState state;
+    private SaveSystem.Snapshot snapshot;
+    private Path dir;
+    private String file;
+
+    @Setup
+    public void setup() throws IOException {
+        String[] parts = scenario.split("[x:]");
+        int w = Integer.parseInt(parts[0]);
+        int h = Integer.parseInt(parts[1]);
+        int edits = Integer.parseInt(parts[2]);
+
+        state = new GameState(w, h, 1337L);
+        Random rng = new Random(42);
+        for (int i = 0; i < edits; i++) state.world.set(rng.nextInt(w), rng.nextInt(h), TileType.PLANKS);
+
+        dir = Files.createTempDirectory("bc2d-jmh");
+        file = dir.resolve("bench.bc2d").toString();
+        snapshot = SaveSystem.snapshot(state);
+        SaveSystem.write(file, snapshot, SaveSystem.Progress.NONE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(file));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public SaveSystem.Snapshot snapshot() {
+        return SaveSystem.snapshot(state);
+    }
+
+    @Benchmark
+    public void write() {
+        SaveSystem.write(file, snapshot, SaveSystem.Progress.NONE);
+    }
+
+    @Benchmark
+    public GameState load() {
+        return SaveSystem.load(file);
+    }
+
+    @Benchmark
+    public GameState roundTrip() {
+        SaveSystem.save(file, state);
+        return SaveSystem.load(file);
+    }
+}
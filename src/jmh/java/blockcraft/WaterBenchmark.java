@@ -0,0 +1,64 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WaterSim on a 400x100 flat basin holding a 30x15 pool behind a dam:
+ * - stillTick: one tick with all the water settled (the common case)
+ * - flood: the dam is opened and the water runs until every cell sleeps again (one op = whole flood)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WaterBenchmark {
+
+    private static final int FLOOR = 60;
+    private static final int DAM = 81;
+
+    private World world;
+    private WaterSim sim;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        world = new World(400, 100, Integer.MAX_VALUE);
+        world.fill(TileType.AIR);
+        for (int x = 0; x < world.width; x++) {
+            for (int y = FLOOR; y < world.height; y++) world.set(x, y, TileType.STONE);
+        }
+        for (int y = 40; y < FLOOR; y++) {
+            world.set(50, y, TileType.STONE);
+            world.set(DAM, y, TileType.STONE);
+        }
+        for (int x = 51; x < DAM; x++) {
+            for (int y = 45; y < FLOOR; y++) world.set(x, y, TileType.WATER);
+        }
+        sim = new WaterSim(world);
+        world.addListener(sim);
+    }
+
+    @Benchmark
+    public int stillTick() {
+        sim.tick();
+        return sim.active();
+    }
+
+    @Benchmark
+    public int flood() {
+        for (int y = 40; y < FLOOR; y++) world.set(DAM, y, TileType.AIR);
+        int ticks = 0;
+        while (sim.active() > 0) {
+            sim.tick();
+            ticks++;
+        }
+        return ticks;
+    }
+}
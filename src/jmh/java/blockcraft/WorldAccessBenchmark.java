@@ -0,0 +1,77 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * World.get/set on a fully resident 2048x1024 world.
+ * Random ops hit a precomputed coordinate table; sequential ops sweep a 256x256 window row-major.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WorldAccessBenchmark {
+
+    private static final int W = 2048;
+    private static final int H = 1024;
+    private static final int COORDS = 1 << 16;
+    private static final int WINDOW = 256;
+
+    private World world;
+    private final int[] xs = new int[COORDS];
+    private final int[] ys = new int[COORDS];
+    private int next;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        world = new World(W, H, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.stream(0, 0, W - 1, H - 1);
+        SplittableRandom rng = new SplittableRandom(42);
+        for (int i = 0; i < COORDS; i++) {
+            xs[i] = rng.nextInt(W);
+            ys[i] = rng.nextInt(H);
+        }
+    }
+
+    @Benchmark
+    public TileType getRandom() {
+        int i = next++ & (COORDS - 1);
+        return world.get(xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public void setRandom() {
+        int i = next++ & (COORDS - 1);
+        world.set(xs[i], ys[i], (i & 1) == 0 ? TileType.PLANKS : TileType.DIRT);
+    }
+
+    /** Per op: one 256x256 sweep (65536 reads). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void getSequential(Blackhole bh) {
+        for (int y = 512; y < 512 + WINDOW; y++) {
+            for (int x = 1024; x < 1024 + WINDOW; x++) bh.consume(world.get(x, y));
+        }
+    }
+
+    /** Per op: one 256x256 sweep (65536 writes). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void setSequential() {
+        TileType t = (flip = !flip) ? TileType.PLANKS : TileType.STONE;
+        for (int y = 512; y < 512 + WINDOW; y++) {
+            for (int x = 1024; x < 1024 + WINDOW; x++) world.set(x, y, t);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package blockcraft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Full generation of a world (every chunk materialized), at several sizes, on one thread and on the common pool. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WorldGenerateBenchmark {
+
+    @Param({"220x120", "2000x1000", "20000x2000"})
+    public String size;
+
+    private int w;
+    private int h;
+
+    @Setup
+    public void setup() {
+        String[] wh = size.split("x");
+        w = Integer.parseInt(wh[0]);
+        h = Integer.parseInt(wh[1]);
+    }
+
+    @Benchmark
+    public int generateAll() {
+        World world = new World(w, h, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.stream(0, 0, w - 1, h - 1);
+        return world.residentChunks();
+    }
+
+    @Benchmark
+    public int generateAllParallel() {
+        World world = new World(w, h, Integer.MAX_VALUE);
+        world.generate(1337L);
+        world.prefetch(0, 0, w - 1, h - 1);
+        return world.residentChunks();
+    }
+}
@@ -0,0 +1,72 @@
+package blockcraft;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One daemon thread that runs the same Runnable each time it is started, for per-frame work that
+ * overlaps drawing. Unlike an ExecutorService it allocates nothing per run (no Future, no queue node),
+ * so a frame loop using it stays allocation-free.
+ * - start() and join() are called by one owning thread; start() while a run is pending is an error
+ * - a failure inside the job is rethrown by the next join()
+ */
+final class BackgroundJob implements AutoCloseable {
+    private final String name;
+    private final Runnable job;
+    private final Thread thread;
+
+    private volatile boolean pending;
+    private volatile boolean closed;
+    private volatile Thread owner;
+    private volatile Throwable failure;
+
+    BackgroundJob(String name, Runnable job) {
+        this.name = name;
+        this.job = job;
+        this.thread = new Thread(this::loop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void start() {
+        if (pending) throw new IllegalStateException(name + " is still running");
+        owner = Thread.currentThread();
+        pending = true;
+        LockSupport.unpark(thread);
+    }
+
+    long threadId() { return thread.threadId(); }
+
+    /** Waits for the last started run; returns at once when none is pending. */
+    void join() {
+        while (pending) LockSupport.park(this);
+        Throwable t = failure;
+        if (t != null) {
+            failure = null;
+            throw new RuntimeException(name + " failed", t);
+        }
+    }
+
+    private void loop() {
+        while (!closed) {
+            if (!pending) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                job.run();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            pending = false;
+            LockSupport.unpark(owner);
+        }
+    }
+
+    /** Waits for a pending run, then stops the thread. */
+    @Override
+    public void close() {
+        while (pending) LockSupport.park(this);
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+}
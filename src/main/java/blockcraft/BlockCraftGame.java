@@ -14,56 +14,152 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector3;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Window, input and drawing around a GameState.
+ *
+ * Once warmed up, a frame allocates nothing (overlay on or off): no per-frame vectors, records,
+ * boxed counts, concatenated labels or executor futures. The exceptions:
+ * - a frame that mines or places copies the edited chunk's tiles, which the undo history's snapshot
+ *   still holds (the history's steps themselves are reused once it is full)
+ * - rebuilding an edited chunk reuses its mesh and water list and only grows them; a chunk scrolling
+ *   into view without a cached mesh still gets one allocated
+ * AllocationTest (gradle test) holds the simulation, lighting and mesh-building side of that to zero
+ * bytes per frame plus one chunk copy per edit.
+ */
 public final class BlockCraftGame extends ApplicationAdapter {
 
     // Rendering
     private SpriteBatch batch;
     private Texture white;
     private BitmapFont font;
+    private ChunkRenderer chunkRenderer;
+    private TileMapRenderer tileMap;
+    private boolean useTileMap; // F4; falls back to chunk meshes when the tilemap shader does not compile
+    private int viewTiles;
     private OrthographicCamera camera;
 
     // State
     private GameState state;
+    private final SaveManager saves;
     private boolean showHelp = true;
 
+    // Simulation: fixed ticks, decoupled from the render frame rate
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private final FixedTimestep clock = new FixedTimestep(TICKS_PER_SECOND, MAX_CATCH_UP_TICKS);
+    private final TickInput input = new TickInput();
+    private float alpha; // interpolation between the last two ticks
+    private Mob mobView; // reused for drawing; rebound when a load swaps in a new MobStore
+    private MobStore mobViewStore;
+    private int[] visibleMobs = new int[4096]; // doubled when a query fills it
+
+    // tile under the mouse, written by tileUnderMouse()
+    private final Vector3 mouse = new Vector3();
+    private int hoverX;
+    private int hoverY;
+
+    // screen-space text, laid out again only when it changes
+    private Hud hud;
+
+    // Lighting: relit on a background thread while the frame is drawn, joined before the next tick
+    private LightEngine light;
+    private World litWorld;
+    private int lightMinX, lightMinY, lightMaxX, lightMaxY;
+    private final BackgroundJob lightJob =
+            new BackgroundJob("light", () -> light.update(lightMinX, lightMinY, lightMaxX, lightMaxY));
+
+    // Performance overlay (F3) and export of its samples (F12)
+    private final FrameStats stats = new FrameStats();
+    private boolean showStats;
+    private long lastFrameStart;
+    private final StringBuilder[] statLines = new StringBuilder[8];
+    private boolean statsStale = true;
+    private String statsExport = "F12: export samples to CSV";
+    private static final int STATS_REFRESH_FRAMES = 15;
+
+    // Input recording (--record FILE): replayable headless with gradle replay
+    private final String recordFile;
+    private InputRecorder recorder;
+
+    // Multiplayer client (--connect HOST:PORT): the server ticks, this window sends input and draws its copy
+    private final String server;
+    private GameClient net;
+
     // Constants (rendering)
     private static final int TILE_PX = 24;
 
+    public BlockCraftGame() {
+        this(null, null);
+    }
+
+    /**
+     * @param recordFile where to record this session's inputs, or null
+     * @param server     HOST:PORT of a GameServer to play on instead of locally, or null
+     */
+    public BlockCraftGame(String recordFile, String server) {
+        this.recordFile = recordFile;
+        this.server = server;
+        // a recording starts from the seed, so it gets its own save slot instead of resuming the usual one
+        this.saves = new SaveManager(recordFile == null ? "savegame.bc2d" : recordFile + ".bc2d");
+    }
+
     @Override
     public void create() {
         batch = new SpriteBatch();
         white = makeWhiteTex();
+        chunkRenderer = new ChunkRenderer(TILE_PX);
+        tileMap = new TileMapRenderer(TILE_PX);
+        useTileMap = tileMap.compiled();
+        if (!useTileMap) Gdx.app.error("tilemap", "shader rejected, drawing chunk meshes instead: " + tileMap.log());
         font = new BitmapFont(); // default font, readable
         font.getData().setScale(1.2f);
+        hud = new Hud(font, white);
 
         camera = new OrthographicCamera();
         resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 
-        state = new GameState(220, 120, 1337L);
+        if (server != null) {
+            int colon = server.lastIndexOf(':');
+            net = new GameClient(server.substring(0, colon), Integer.parseInt(server.substring(colon + 1)));
+            state = net.state;
+            Gdx.app.log("net", "joined " + server + " as player " + net.id);
+        } else if (recordFile != null) {
+            saves.discard();
+            state = new GameState(220, 120, 1337L);
+            recorder = new InputRecorder(recordFile, state, clock.step);
+            Gdx.app.log("record", "recording inputs to " + recordFile);
+        } else {
+            state = saves.recover(); // last save plus journaled edits, so a crash resumes where it happened
+            if (state == null) state = new GameState(220, 120, 1337L);
+        }
+        for (int i = 0; i < statLines.length; i++) statLines[i] = new StringBuilder(64);
 
         Gdx.input.setInputProcessor(new InputAdapter() {
             @Override
             public boolean keyDown(int keycode) {
                 if (keycode == Input.Keys.ESCAPE) Gdx.app.exit();
                 if (keycode == Input.Keys.H) showHelp = !showHelp;
-                if (keycode == Input.Keys.F5) {
-                    SaveSystem.save("savegame.bc2d", state);
-                }
-                if (keycode == Input.Keys.F9) {
-                    GameState loaded = SaveSystem.load("savegame.bc2d");
-                    if (loaded != null) state = loaded;
-                }
+                if (keycode == Input.Keys.F3) showStats = !showStats;
+                if (keycode == Input.Keys.F4 && tileMap.compiled()) useTileMap = !useTileMap;
+                if (keycode == Input.Keys.F12) exportStats();
+                if (keycode == Input.Keys.F5 && net == null) saves.requestSave(state); // the server owns the world
+                if (keycode == Input.Keys.F9 && net == null) saves.requestLoad();
+                boolean ctrl = Gdx.input.isKeyPressed(Input.Keys.CONTROL_LEFT) || Gdx.input.isKeyPressed(Input.Keys.CONTROL_RIGHT);
+                if (ctrl && keycode == Input.Keys.Z) input.undo = true;
+                if (ctrl && keycode == Input.Keys.Y) input.redo = true;
                 if (keycode >= Input.Keys.NUM_1 && keycode <= Input.Keys.NUM_6) {
-                    state.setSelectedIndex(keycode - Input.Keys.NUM_1);
+                    input.select = keycode - Input.Keys.NUM_1;
                 }
                 return true;
             }
 
             @Override
             public boolean scrolled(float amountX, float amountY) {
-                int len = state.hotbar.length;
-                int next = state.selectedIndex + (amountY > 0 ? 1 : -1);
-                state.setSelectedIndex(next);
+                int cur = input.select >= 0 ? input.select : state.selectedIndex;
+                input.select = Math.floorMod(cur + (amountY > 0 ? 1 : -1), state.hotbar.length);
                 return true;
             }
         });
@@ -76,93 +172,114 @@ public final class BlockCraftGame extends ApplicationAdapter {
 
     @Override
     public void render() {
-        float dt = Math.min(Gdx.graphics.getDeltaTime(), 1f / 20f);
-
-        update(dt);
+        long frameStart = System.nanoTime();
+        if (lastFrameStart != 0) stats.set(FrameStats.FRAME_NS, frameStart - lastFrameStart);
+        lastFrameStart = frameStart;
+
+        // the light thread reads the World, so it must be done before anything can change it
+        finishLighting();
+
+        // a background load finished: swap at the frame boundary
+        GameState loaded = net == null ? saves.poll(state) : null;
+        if (loaded != null) {
+            stopRecording(); // the loaded state is not where the recording started
+            state = loaded;
+        }
+        attachLight();
+
+        latchActions();
+        long updateStart = System.nanoTime();
+        int ticks = clock.advance(Gdx.graphics.getDeltaTime());
+        for (int i = 0; i < ticks; i++) {
+            sampleMovement();
+            if (net != null) net.send(input);
+            else if (recorder != null) recorder.tick(state, input, clock.step);
+            else state.tick(input, clock.step);
+        }
+        if (net != null && !net.poll()) {
+            Gdx.app.error("net", "lost the connection to " + server);
+            Gdx.app.exit();
+        }
+        alpha = clock.alpha();
+        long renderStart = System.nanoTime();
+        stats.set(FrameStats.UPDATE_NS, renderStart - updateStart);
+        stats.set(FrameStats.TICKS, ticks);
+        batch.maxSpritesInBatch = 0;
 
         Gdx.gl.glClearColor(0.07f, 0.08f, 0.10f, 1f);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        camera.position.set(state.player.x() * TILE_PX, state.player.y() * TILE_PX, 0f);
+        camera.position.set(lerpX(state.player) * TILE_PX, lerpY(state.player) * TILE_PX, 0f);
         camera.update();
 
+        drawWorld();
+
         batch.setProjectionMatrix(camera.combined);
         batch.begin();
-        drawWorld(dt);
-        drawEntity(state.mob);
+        drawWorldOverlay();
+        drawMobs();
+        drawOthers();
         drawPlayerFace(state.player);
         batch.end();
+        int renderCalls = batch.renderCalls;
 
         // UI in screen space
         batch.setProjectionMatrix(camera.projection);
         batch.begin();
         drawUI();
         batch.end();
+
+        stats.set(FrameStats.RENDER_NS, System.nanoTime() - renderStart);
+        stats.set(FrameStats.RENDER_CALLS, renderCalls + batch.renderCalls);
+        stats.set(FrameStats.MAX_SPRITES, batch.maxSpritesInBatch);
+        if (useTileMap) {
+            stats.set(FrameStats.CHUNK_DRAWS, 1);
+            stats.set(FrameStats.VISIBLE_TILES, viewTiles);
+            stats.set(FrameStats.MESH_BUILDS, tileMap.uploadedRows);
+        } else {
+            stats.set(FrameStats.CHUNK_DRAWS, chunkRenderer.chunkDraws);
+            stats.set(FrameStats.VISIBLE_TILES, chunkRenderer.visibleTiles);
+            stats.set(FrameStats.MESH_BUILDS, chunkRenderer.meshesBuilt);
+        }
+        stats.endFrame();
     }
 
-    private void update(float dt) {
-        // Movement input
+    /** One-shot mouse actions; held until the next tick consumes them. */
+    private void latchActions() {
+        if (Gdx.input.isButtonJustPressed(Input.Buttons.LEFT) && tileUnderMouse()) input.mine(hoverX, hoverY);
+        if (Gdx.input.isButtonJustPressed(Input.Buttons.RIGHT) && tileUnderMouse()) input.place(hoverX, hoverY);
+    }
+
+    private void sampleMovement() {
         float vx = 0, vy = 0;
         if (Gdx.input.isKeyPressed(Input.Keys.W)) vy += 1;
         if (Gdx.input.isKeyPressed(Input.Keys.S)) vy -= 1;
         if (Gdx.input.isKeyPressed(Input.Keys.A)) vx -= 1;
         if (Gdx.input.isKeyPressed(Input.Keys.D)) vx += 1;
-
-        if (vx != 0 || vy != 0) {
-            state.player.move(state.world, vx, vy, dt);
-        }
-
-        // Mob update
-        state.mob.update(state.world, dt, state.rng, state.player);
-
-        // Mouse actions
-        if (Gdx.input.isButtonJustPressed(Input.Buttons.LEFT)) {
-            mineAtMouse();
-        }
-        if (Gdx.input.isButtonJustPressed(Input.Buttons.RIGHT)) {
-            placeAtMouse();
-        }
+        input.moveX = vx;
+        input.moveY = vy;
     }
 
-    private void mineAtMouse() {
-        TileHit hit = tileUnderMouse();
-        if (hit == null) return;
-
-        TileType t = state.world.get(hit.tx, hit.ty);
-        if (t == TileType.AIR) return;
-        if (!t.mineable) return;
-
-        state.world.set(hit.tx, hit.ty, TileType.AIR);
-        state.player.inventory().add(t, 1);
+    private float lerpX(Entity e) {
+        return e.prevX() + (e.x() - e.prevX()) * alpha;
     }
 
-    private void placeAtMouse() {
-        TileHit hit = tileUnderMouse();
-        if (hit == null) return;
-
-        TileType cur = state.world.get(hit.tx, hit.ty);
-        if (cur != TileType.AIR) return;
-
-        TileType place = state.selectedTile();
-        if (place == TileType.AIR) return;
-
-        if (!state.player.inventory().take(place, 1)) return;
-        state.world.set(hit.tx, hit.ty, place);
+    private float lerpY(Entity e) {
+        return e.prevY() + (e.y() - e.prevY()) * alpha;
     }
 
-    private TileHit tileUnderMouse() {
-        Vector3 v = new Vector3(Gdx.input.getX(), Gdx.input.getY(), 0);
-        camera.unproject(v);
-
-        int tx = MathUtils.floor(v.x / TILE_PX);
-        int ty = MathUtils.floor(v.y / TILE_PX);
+    /** Puts the tile under the mouse in hoverX/hoverY; false when it is out of reach or sight. */
+    private boolean tileUnderMouse() {
+        camera.unproject(mouse.set(Gdx.input.getX(), Gdx.input.getY(), 0));
 
-        if (!state.player.canReach(tx, ty)) return null;
+        hoverX = MathUtils.floor(mouse.x / TILE_PX);
+        hoverY = MathUtils.floor(mouse.y / TILE_PX);
 
-        return new TileHit(tx, ty);
+        return state.player.canReach(state.world, hoverX, hoverY);
     }
 
-    private void drawWorld(float dt) {
+    /** Tiles, from the tilemap shader or (fallback) cached chunk meshes; drawn outside the batch. */
+    private void drawWorld() {
         // visible bounds in tile coords
         float leftPx = camera.position.x - camera.viewportWidth / 2f;
         float rightPx = camera.position.x + camera.viewportWidth / 2f;
@@ -174,48 +291,85 @@ public final class BlockCraftGame extends ApplicationAdapter {
         int minY = MathUtils.floor(botPx / TILE_PX) - 1;
         int maxY = MathUtils.floor(topPx / TILE_PX) + 1;
 
-        float time = (Gdx.graphics.getFrameId() % 10_000) * (1f / 60f);
-
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                TileType t = state.world.get(x, y);
-                if (t == TileType.AIR) continue;
+        // keep a one-chunk margin resident (and lit) so walking into view never generates mid-draw
+        lightMinX = minX - World.CHUNK_SIZE;
+        lightMinY = minY - World.CHUNK_SIZE;
+        lightMaxX = maxX + World.CHUNK_SIZE;
+        lightMaxY = maxY + World.CHUNK_SIZE;
+        state.world.stream(lightMinX, lightMinY, lightMaxX, lightMaxY);
+        if (net != null) net.view(lightMinX, lightMinY, lightMaxX, lightMaxY);
+        lightJob.start();
+
+        viewTiles = (maxX - minX + 1) * (maxY - minY + 1);
+        if (useTileMap) tileMap.draw(state.world, camera.combined, minX, minY, maxX, maxY, waterTime());
+        else chunkRenderer.drawStatic(state.world, camera.combined, minX, minY, maxX, maxY);
+    }
 
-                Color c = t.color;
+    /** seconds driving the WATER pulse */
+    private float waterTime() {
+        return (Gdx.graphics.getFrameId() % 10_000) * (1f / 60f);
+    }
 
-                if (t == TileType.WATER) {
-                    float pulse = 0.08f * MathUtils.sin(time * 2.8f + (x * 0.7f) + (y * 0.5f));
-                    batch.setColor(c.r + pulse, c.g + pulse, c.b + pulse, 1f);
-                } else {
-                    // subtle shading grid for depth
-                    float shade = ((x + y) & 1) == 0 ? 0.96f : 1.00f;
-                    batch.setColor(c.r * shade, c.g * shade, c.b * shade, 1f);
-                }
+    /** Follows the current World: a load swaps in a new one with its own (unlit) chunks. */
+    private void attachLight() {
+        if (litWorld == state.world) return;
+        if (litWorld != null) litWorld.removeListener(light);
+        litWorld = state.world;
+        light = new LightEngine(litWorld);
+        litWorld.addListener(light);
+    }
 
-                batch.draw(white, x * TILE_PX, y * TILE_PX, TILE_PX, TILE_PX);
+    private void finishLighting() {
+        lightJob.join();
+    }
 
-                // outline for readability
-                batch.setColor(0, 0, 0, 0.12f);
-                batch.draw(white, x * TILE_PX, y * TILE_PX, TILE_PX, 2);
-                batch.draw(white, x * TILE_PX, y * TILE_PX, 2, TILE_PX);
-                batch.setColor(1, 1, 1, 1);
-            }
-        }
+    /** Per-frame world layers on top of the static tiles: animated water (mesh path only), hover highlight. */
+    private void drawWorldOverlay() {
+        if (!useTileMap) chunkRenderer.drawWater(batch, white, waterTime());
 
         // hover highlight (if in reach)
-        TileHit hit = tileUnderMouse();
-        if (hit != null) {
+        if (tileUnderMouse()) {
             batch.setColor(1f, 1f, 1f, 0.22f);
-            batch.draw(white, hit.tx * TILE_PX, hit.ty * TILE_PX, TILE_PX, TILE_PX);
+            batch.draw(white, hoverX * TILE_PX, hoverY * TILE_PX, TILE_PX, TILE_PX);
             batch.setColor(1, 1, 1, 1);
         }
     }
 
+    /** Mobs on screen (from the spatial grid), through one reused Entity view. */
+    private void drawMobs() {
+        MobStore mobs = state.mobs;
+        if (mobView == null || mobViewStore != mobs) {
+            mobView = mobs.view(0);
+            mobViewStore = mobs;
+        }
+        // one tile of slack: a mob drawn mid-step can be up to a tile away from its tick position
+        float halfW = camera.viewportWidth / 2f / TILE_PX + 1f, halfH = camera.viewportHeight / 2f / TILE_PX + 1f;
+        float cx = camera.position.x / TILE_PX, cy = camera.position.y / TILE_PX;
+        int n;
+        while ((n = mobs.grid().queryRect(cx - halfW, cy - halfH, cx + halfW, cy + halfH, visibleMobs)) == visibleMobs.length) {
+            visibleMobs = new int[n * 2]; // full: there may be more, ask again with room for them
+        }
+        for (int i = 0; i < n; i++) drawEntity(mobView.bind(visibleMobs[i]));
+    }
+
+    /** Other players on the server, interpolated between the last two states it sent. */
+    private void drawOthers() {
+        if (net == null) return;
+        for (int i = 0; i < net.others(); i++) {
+            float x = net.otherPrevX(i) + (net.otherX(i) - net.otherPrevX(i)) * alpha;
+            float y = net.otherPrevY(i) + (net.otherY(i) - net.otherPrevY(i)) * alpha;
+            drawBody(x, y, EntityColor.PLAYER);
+        }
+    }
+
     private void drawEntity(Entity e) {
-        float ex = (e.x() - 0.5f) * TILE_PX;
-        float ey = (e.y() - 0.5f) * TILE_PX;
+        drawBody(lerpX(e), lerpY(e), e.color());
+    }
+
+    private void drawBody(float x, float y, EntityColor c) {
+        float ex = (x - 0.5f) * TILE_PX;
+        float ey = (y - 0.5f) * TILE_PX;
 
-        Color c = e.color().color;
         batch.setColor(c.r, c.g, c.b, 1f);
         batch.draw(white, ex + 5, ey + 5, TILE_PX - 10, TILE_PX - 10);
 
@@ -227,11 +381,11 @@ public final class BlockCraftGame extends ApplicationAdapter {
     }
 
     private void drawPlayerFace(Player p) {
-        float px = (p.x() - 0.5f) * TILE_PX;
-        float py = (p.y() - 0.5f) * TILE_PX;
+        float px = (lerpX(p) - 0.5f) * TILE_PX;
+        float py = (lerpY(p) - 0.5f) * TILE_PX;
 
         // body
-        Color c = p.color().color;
+        EntityColor c = p.color();
         batch.setColor(c.r, c.g, c.b, 1f);
         batch.draw(white, px + 4, py + 3, TILE_PX - 8, TILE_PX - 6);
 
@@ -246,64 +400,73 @@ public final class BlockCraftGame extends ApplicationAdapter {
     private void drawUI() {
         float w = Gdx.graphics.getWidth();
         float h = Gdx.graphics.getHeight();
+        hud.draw(batch, state, saves, w, h, showHelp);
+        if (showStats) drawStats();
+    }
 
-        // background panel
-        batch.setColor(0f, 0f, 0f, 0.30f);
-        batch.draw(white, 10, h - 160, 420, 150);
-        batch.setColor(1, 1, 1, 1);
-
-        font.draw(batch, "BlockCraft 2D  |  WASD move  |  LMB mine  RMB place  |  F5 save  F9 load  |  H help", 20, h - 25);
-
-        // hotbar
-        float barY = 20;
-        float barX = (w - (state.hotbar.length * 64)) / 4f;
-        for (int i = 0; i < state.hotbar.length; i++) {
-            TileType t = state.hotbar[i];
-            float x = barX + i * 64;
-
-            // slot bg
-            batch.setColor(0, 0, 0, 0.55f);
-            batch.draw(white, x, barY, 58, 58);
-
-            // tile color
-            batch.setColor(t.color.r, t.color.g, t.color.b, 1f);
-            batch.draw(white, x + 8, barY + 8, 42, 42);
-
-            // selection border
-            if (i == state.selectedIndex) {
-                batch.setColor(1f, 1f, 1f, 0.9f);
-                batch.draw(white, x, barY + 56, 58, 2);
-                batch.draw(white, x, barY, 58, 2);
-                batch.draw(white, x, barY, 2, 58);
-                batch.draw(white, x + 56, barY, 2, 58);
+    /** Performance overlay, top right; the text is refreshed a few times a second (percentiles sort the window). */
+    private void drawStats() {
+        boolean refresh = statsStale || stats.frames() % STATS_REFRESH_FRAMES == 0;
+        if (refresh) {
+            statsStale = false;
+            timeLine(statLines[0], "frame  ms", FrameStats.FRAME_NS);
+            timeLine(statLines[1], "update ms", FrameStats.UPDATE_NS);
+            timeLine(statLines[2], "render ms", FrameStats.RENDER_NS);
+            statLines[3].setLength(0);
+            statLines[3].append("batch: ").append(stats.last(FrameStats.RENDER_CALLS)).append(" render calls, max ")
+                    .append(stats.last(FrameStats.MAX_SPRITES)).append(" sprites, hud layouts ").append(hud.layouts());
+            statLines[4].setLength(0);
+            if (useTileMap) {
+                statLines[4].append("tilemap (F4): ").append(stats.last(FrameStats.VISIBLE_TILES)).append(" tiles, ")
+                        .append(stats.sum(FrameStats.MESH_BUILDS)).append(" rows uploaded");
+            } else {
+                statLines[4].append("chunks (F4): ").append(stats.last(FrameStats.CHUNK_DRAWS)).append(" drawn, ")
+                        .append(stats.last(FrameStats.VISIBLE_TILES)).append(" tiles, ")
+                        .append(stats.sum(FrameStats.MESH_BUILDS)).append(" rebuilds");
             }
-
-            // count + key
-            batch.setColor(1, 1, 1, 1);
-            int count = state.player.inventory().get(t);
-            font.draw(batch, "" + (i + 1), x + 4, barY + 14);
-            font.draw(batch, "x" + count, x + 28, barY + 14);
+            statLines[5].setLength(0);
+            statLines[5].append("heap ").append(stats.last(FrameStats.HEAP_USED) / 1_000_000).append(" MB, GC ")
+                    .append(stats.sum(FrameStats.GC_COUNT)).append(" (").append(stats.sum(FrameStats.GC_MS))
+                    .append(" ms) in ").append(stats.count()).append(" frames");
+            statLines[6].setLength(0);
+            EditHistory history = state.history;
+            if (history != null) {
+                statLines[6].append("undo ").append(history.undoSteps()).append(" / redo ").append(history.redoSteps())
+                        .append(" steps, ").append(history.retainedBytes(state.world) / 1024).append(" KiB held");
+            }
+            statLines[7].setLength(0);
+            statLines[7].append(statsExport);
         }
+        hud.drawStats(batch, statLines, refresh);
+    }
 
-        if (showHelp) {
-            float boxW = 420;
-            float boxH = 220;
-            float bx = 10;
-            float by = h - 390;
+    private void timeLine(StringBuilder sb, String label, int column) {
+        sb.setLength(0);
+        sb.append(label);
+        appendMs(sb.append("  p50 "), stats.percentile(column, 50));
+        appendMs(sb.append("  p99 "), stats.percentile(column, 99));
+        appendMs(sb.append("  max "), stats.percentile(column, 100));
+    }
 
-            batch.setColor(0, 0, 0, 0.30f);
-            batch.draw(white, bx, by, boxW, boxH);
-            batch.setColor(1, 1, 1, 1);
+    /** nanoseconds as milliseconds with two decimals, without String.format */
+    private static void appendMs(StringBuilder sb, long ns) {
+        long hundredths = (ns + 5_000) / 10_000;
+        sb.append(hundredths / 100).append('.');
+        long frac = hundredths % 100;
+        if (frac < 10) sb.append('0');
+        sb.append(frac);
+    }
 
-            font.draw(batch, "Help", bx + 12, by + boxH - 12);
-            font.draw(batch, "- Move: WASD", bx + 12, by + boxH - 40);
-            font.draw(batch, "- Mine: Left Mouse (within reach)", bx + 12, by + boxH - 62);
-            font.draw(batch, "- Place: Right Mouse (uses selected block)", bx + 12, by + boxH - 84);
-            font.draw(batch, "- Select: 1..6 or mouse wheel", bx + 12, by + boxH - 106);
-            font.draw(batch, "- Save/Load: F5 / F9", bx + 12, by + boxH - 128);
-            font.draw(batch, "- Toggle this help: H", bx + 12, by + boxH - 150);
-            font.draw(batch, "- Quit: ESC", bx + 12, by + boxH - 172);
+    /** Writes the current window next to the save file, for attaching to a performance ticket. */
+    private void exportStats() {
+        Path file = Path.of("perf-" + System.currentTimeMillis() + ".csv");
+        try {
+            stats.writeCsv(file);
+            statsExport = "exported " + stats.count() + " frames to " + file;
+        } catch (IOException e) {
+            statsExport = "export failed: " + e.getMessage();
         }
+        statsStale = true; // show the result right away
     }
 
     private Texture makeWhiteTex() {
@@ -315,12 +478,23 @@ public final class BlockCraftGame extends ApplicationAdapter {
         return t;
     }
 
+    private void stopRecording() {
+        if (recorder == null) return;
+        recorder.finish(state);
+        Gdx.app.log("record", recorder.ticks() + " ticks recorded to " + recordFile);
+        recorder = null;
+    }
+
     @Override
     public void dispose() {
+        stopRecording();
+        if (net != null) net.close();
+        lightJob.close();
         batch.dispose();
         white.dispose();
         font.dispose();
+        chunkRenderer.dispose();
+        tileMap.dispose();
+        saves.close();
     }
-
-    private record TileHit(int tx, int ty) {}
 }
@@ -0,0 +1,110 @@
+package blockcraft;
+
+/**
+ * 32x32 block of tiles: the unit of generation, streaming and eviction.
+ * Local coordinates are row-major, (lx, ly) in 0..SIZE-1.
+ * Next to the tiles it keeps one bit per tile for solid ones: 64 tiles (two rows) per word, tile index
+ * i = (ly << SHIFT) | lx at bit i & 63 of word i >> 6, so collision tests mask whole words.
+ */
+final class Chunk {
+    static final int SHIFT = 5;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+
+    final int cx;
+    final int cy;
+    /** replaced by a private copy on the first write while {@link #shared} */
+    TileStorage tiles;
+
+    /** tiles is also held by a WorldSnapshot (or a save snapshot), so it must not be written in place */
+    boolean shared;
+
+    /** true once the chunk differs from what the generator produced; such chunks are never evicted */
+    boolean modified;
+
+    /** solid bits (see the class comment); kept in step by set/setSolid, rebuilt by syncSolid */
+    final long[] solid = new long[TileStorage.TILES / 64];
+
+    /** bumped on every tile change; lets caches built from this chunk detect staleness */
+    int version;
+
+    /**
+     * light level per tile (same indexing as tiles), null until LightEngine lit this chunk; written by the
+     * light job while renderers read it, so it is only assigned once filled (volatile publishes the contents)
+     */
+    volatile byte[] light;
+
+    /**
+     * bumped whenever a light level in or bordering this chunk changes, after the level is written: a renderer
+     * that reads this first and then the levels sees at least the levels of the version it read
+     */
+    volatile int lightVersion;
+
+    // intrusive LRU links (only clean chunks are linked)
+    Chunk newer;
+    Chunk older;
+
+    Chunk(int cx, int cy, TileType fill) {
+        this(cx, cy, new TileStorage(fill.ordinal()));
+    }
+
+    Chunk(int cx, int cy, TileStorage tiles) {
+        this.cx = cx;
+        this.cy = cy;
+        this.tiles = tiles;
+    }
+
+    TileType get(int lx, int ly) {
+        return TileType.BY_ORDINAL[tiles.get((ly << SHIFT) | lx)];
+    }
+
+    /** @return the previous tile */
+    TileType set(int lx, int ly, TileType t) {
+        int i = (ly << SHIFT) | lx;
+        TileType old = TileType.BY_ORDINAL[tiles.get(i)];
+        if (old != t) {
+            own();
+            tiles.set(i, t.ordinal());
+            if (old.solid != t.solid) setSolid(i, t.solid);
+        }
+        return old;
+    }
+
+    boolean solid(int lx, int ly) {
+        int i = (ly << SHIFT) | lx;
+        return (solid[i >> 6] >>> i & 1) != 0;
+    }
+
+    /** Sets or clears the solid bit of tiles i .. i+n-1 (within one row, or whole rows from a row start). */
+    void setSolid(int i, int n, boolean s) {
+        for (int end = i + n; i < end; ) {
+            int b = i & 63, k = Math.min(64 - b, end - i);
+            long m = (k == 64 ? -1L : (1L << k) - 1) << b;
+            solid[i >> 6] = s ? solid[i >> 6] | m : solid[i >> 6] & ~m;
+            i += k;
+        }
+    }
+
+    void setSolid(int i, boolean s) {
+        if (s) solid[i >> 6] |= 1L << i;
+        else solid[i >> 6] &= ~(1L << i);
+    }
+
+    /** Rebuilds the solid bits from the tiles (after generation, or tiles installed from a save). */
+    void syncSolid() {
+        tiles.mask(TileType.SOLID, solid);
+    }
+
+    /** The tiles, marked shared: they stay unchanged for the holder, the chunk copies before its next write. */
+    TileStorage share() {
+        shared = true;
+        return tiles;
+    }
+
+    /** Copies shared tiles so they can be written. */
+    void own() {
+        if (!shared) return;
+        tiles = tiles.copy();
+        shared = false;
+    }
+}
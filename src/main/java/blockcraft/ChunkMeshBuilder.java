@@ -0,0 +1,71 @@
+package blockcraft;
+
+/**
+ * CPU half of chunk rendering: turns one chunk into quads (x, y, packed color per vertex, in
+ * chunk-local pixels, light already applied) and a list of its WATER tiles. No graphics classes,
+ * so it runs and benchmarks headless; ChunkRenderer uploads the result.
+ */
+final class ChunkMeshBuilder {
+    static final int FLOATS_PER_VERTEX = 3; // x, y, packed color
+    static final int MAX_QUADS = TileStorage.TILES * 3; // tile + 2 outline strips
+
+    private static final float OUTLINE = packColor(0f, 0f, 0f, 0.12f);
+
+    private final int tilePx;
+
+    final float[] vertices = new float[MAX_QUADS * 4 * FLOATS_PER_VERTEX];
+    int quads;
+
+    /** local index (ly << SHIFT | lx) of each WATER tile of the last build */
+    final short[] water = new short[TileStorage.TILES];
+    int waterCount;
+
+    ChunkMeshBuilder(int tilePx) {
+        this.tilePx = tilePx;
+    }
+
+    /** chunk == null builds a solid STONE block (outside the world). */
+    void build(World world, int cx, int cy, Chunk chunk) {
+        int x0 = cx << Chunk.SHIFT;
+        int y0 = cy << Chunk.SHIFT;
+        quads = 0;
+        waterCount = 0;
+
+        for (int ly = 0; ly < Chunk.SIZE; ly++) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                TileType t = chunk != null && world.inBounds(x0 + lx, y0 + ly) ? chunk.get(lx, ly) : TileType.STONE;
+                if (t == TileType.AIR) continue;
+                if (t == TileType.WATER) {
+                    water[waterCount++] = (short) ((ly << Chunk.SHIFT) | lx);
+                    continue;
+                }
+
+                // subtle shading grid for depth (chunk origins are even, so local parity == world parity)
+                float shade = ((lx + ly) & 1) == 0 ? 0.96f : 1.00f;
+                if (chunk != null) shade *= LightEngine.brightness(world, x0 + lx, y0 + ly, t.solid);
+                float px = lx * tilePx;
+                float py = ly * tilePx;
+                quad(px, py, tilePx, tilePx, packColor(t.r * shade, t.g * shade, t.b * shade, 1f));
+
+                // outline for readability
+                quad(px, py, tilePx, 2, OUTLINE);
+                quad(px, py, 2, tilePx, OUTLINE);
+            }
+        }
+    }
+
+    /** Same packing as libGDX Color.toFloatBits (ABGR, alpha low bit dropped to stay a valid float). */
+    static float packColor(float r, float g, float b, float a) {
+        int abgr = ((int) (255 * a) << 24) | ((int) (255 * b) << 16) | ((int) (255 * g) << 8) | (int) (255 * r);
+        return Float.intBitsToFloat(abgr & 0xfeffffff);
+    }
+
+    private void quad(float x, float y, float w, float h, float color) {
+        int i = quads * 4 * FLOATS_PER_VERTEX;
+        vertices[i] = x;          vertices[i + 1] = y;          vertices[i + 2] = color;
+        vertices[i + 3] = x + w;  vertices[i + 4] = y;          vertices[i + 5] = color;
+        vertices[i + 6] = x + w;  vertices[i + 7] = y + h;      vertices[i + 8] = color;
+        vertices[i + 9] = x;      vertices[i + 10] = y + h;     vertices[i + 11] = color;
+        quads++;
+    }
+}
@@ -0,0 +1,238 @@
+package blockcraft;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+
+
+/**
+ * Draws world tiles from per-chunk static meshes.
+ * - a chunk's mesh is rebuilt only when World.set changed it (Chunk.version) or its light changed
+ *   (Chunk.lightVersion), so CPU cost per frame is one draw call per visible chunk plus whatever was edited
+ * - tile colors are scaled by LightEngine.brightness, baked into the vertices
+ * - WATER is left out of the meshes and drawn by a small SpriteBatch pass each frame (it pulses)
+ * - chunks outside the world share one all-STONE mesh (outside reads as solid wall)
+ *
+ * Meshes are built in chunk-local pixels and positioned with a translated projection matrix.
+ */
+final class ChunkRenderer implements Disposable {
+
+    private static final int MAX_CACHED_MESHES = 128;
+    private static final String VERT =
+            "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" +
+            "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" +
+            "uniform mat4 u_projTrans;\n" +
+            "varying vec4 v_color;\n" +
+            "void main() {\n" +
+            "  v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" +
+            "  gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" +
+            "}\n";
+    private static final String FRAG =
+            "#ifdef GL_ES\nprecision mediump float;\n#endif\n" +
+            "varying vec4 v_color;\n" +
+            "void main() { gl_FragColor = v_color; }\n";
+
+    private final int tilePx;
+    private final ShaderProgram shader;
+    private final ChunkMeshBuilder builder;
+    private final short[] indices = new short[ChunkMeshBuilder.MAX_QUADS * 6];
+    private final Matrix4 transform = new Matrix4();
+
+    private final IntMap<ChunkMesh> meshes = new IntMap<>();
+    private final Array<ChunkMesh> withWater = new Array<>(false, 64);
+    private ChunkMesh border;
+    private World world;
+    private long frame;
+
+    // stats of the last drawStatic (for the performance overlay)
+    int chunkDraws;
+    int visibleTiles;
+    int meshesBuilt;
+
+    ChunkRenderer(int tilePx) {
+        this.tilePx = tilePx;
+        this.builder = new ChunkMeshBuilder(tilePx);
+        this.shader = new ShaderProgram(VERT, FRAG);
+        if (!shader.isCompiled()) throw new GdxRuntimeException("chunk shader: " + shader.getLog());
+
+        for (int q = 0, v = 0; q < ChunkMeshBuilder.MAX_QUADS; q++, v += 4) {
+            int i = q * 6;
+            indices[i] = (short) v;
+            indices[i + 1] = (short) (v + 1);
+            indices[i + 2] = (short) (v + 2);
+            indices[i + 3] = (short) (v + 2);
+            indices[i + 4] = (short) (v + 3);
+            indices[i + 5] = (short) v;
+        }
+    }
+
+    /** Draws the cached meshes of every chunk overlapping the tile rectangle. Call outside batch.begin/end. */
+    void drawStatic(World world, Matrix4 combined, int minX, int minY, int maxX, int maxY) {
+        if (world != this.world) {
+            clear();
+            this.world = world;
+        }
+        frame++;
+        withWater.clear();
+        chunkDraws = 0;
+        visibleTiles = 0;
+        meshesBuilt = 0;
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        shader.bind();
+
+        int chunkPx = World.CHUNK_SIZE * tilePx;
+        for (int cy = minY >> Chunk.SHIFT; cy <= maxY >> Chunk.SHIFT; cy++) {
+            for (int cx = minX >> Chunk.SHIFT; cx <= maxX >> Chunk.SHIFT; cx++) {
+                ChunkMesh m = meshFor(cx, cy);
+                visibleTiles += m.tiles;
+                if (m.indexCount == 0) continue;
+
+                transform.set(combined).translate(cx * chunkPx, cy * chunkPx, 0f);
+                shader.setUniformMatrix("u_projTrans", transform);
+                m.mesh.render(shader, GL20.GL_TRIANGLES, 0, m.indexCount);
+                chunkDraws++;
+            }
+        }
+
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+        evictUnused();
+    }
+
+    /** Animated WATER of the chunks drawn by the last {@link #drawStatic}. Call inside batch.begin/end. */
+    void drawWater(SpriteBatch batch, Texture white, float time) {
+        TileType c = TileType.WATER;
+        for (ChunkMesh m : withWater) {
+            int x0 = m.cx << Chunk.SHIFT;
+            int y0 = m.cy << Chunk.SHIFT;
+            for (int i = 0; i < m.waterCount; i++) {
+                int x = x0 + (m.water[i] & Chunk.MASK);
+                int y = y0 + (m.water[i] >> Chunk.SHIFT);
+
+                float pulse = 0.08f * MathUtils.sin(time * 2.8f + (x * 0.7f) + (y * 0.5f));
+                float light = LightEngine.brightness(world, x, y, false);
+                batch.setColor((c.r + pulse) * light, (c.g + pulse) * light, (c.b + pulse) * light, 1f);
+                batch.draw(white, x * tilePx, y * tilePx, tilePx, tilePx);
+
+                batch.setColor(0, 0, 0, 0.12f);
+                batch.draw(white, x * tilePx, y * tilePx, tilePx, 2);
+                batch.draw(white, x * tilePx, y * tilePx, 2, tilePx);
+            }
+        }
+        batch.setColor(1, 1, 1, 1);
+    }
+
+    private ChunkMesh meshFor(int cx, int cy) {
+        Chunk chunk = world.chunkAt(cx, cy);
+        if (chunk == null) {
+            if (border == null) {
+                border = new ChunkMesh(0, 0);
+                build(border, null);
+            }
+            return border;
+        }
+
+        int key = cy * world.chunksX() + cx;
+        ChunkMesh m = meshes.get(key);
+        if (m == null) {
+            m = new ChunkMesh(cx, cy);
+            meshes.put(key, m);
+        }
+        if (m.chunk != chunk || m.version != chunk.version || m.lightVersion != chunk.lightVersion) build(m, chunk);
+        m.lastFrame = frame;
+        if (m.waterCount > 0) withWater.add(m);
+        return m;
+    }
+
+    /** chunk == null builds a solid STONE block (outside the world). */
+    private void build(ChunkMesh m, Chunk chunk) {
+        // record first: a relight racing with the build then shows up as a change next frame
+        m.chunk = chunk;
+        m.version = chunk != null ? chunk.version : 0;
+        m.lightVersion = chunk != null ? chunk.lightVersion : 0;
+        builder.build(world, m.cx, m.cy, chunk);
+        int quads = builder.quads;
+
+        int vertexCount = quads * 4;
+        if (m.mesh != null && m.mesh.getMaxVertices() < vertexCount) {
+            m.mesh.dispose();
+            m.mesh = null;
+        }
+        if (m.mesh == null && quads > 0) {
+            m.mesh = new Mesh(true, vertexCount, quads * 6,
+                    new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                    VertexAttribute.ColorPacked());
+        }
+        if (quads > 0) {
+            m.mesh.setVertices(builder.vertices, 0, vertexCount * ChunkMeshBuilder.FLOATS_PER_VERTEX);
+            m.mesh.setIndices(indices, 0, quads * 6);
+        }
+        m.indexCount = quads * 6;
+        m.tiles = quads / 3 + builder.waterCount; // a tile is one quad plus two outline strips
+        meshesBuilt++;
+        int n = builder.waterCount;
+        if (n > 0 && (m.water == null || m.water.length < n)) {
+            // grown by doubling, so water spreading one tile per rebuild does not allocate each time
+            m.water = new short[Math.min(TileStorage.TILES, Math.max(n, m.water == null ? 16 : m.water.length * 2))];
+        }
+        if (n > 0) System.arraycopy(builder.water, 0, m.water, 0, n);
+        m.waterCount = n;
+    }
+
+    private void evictUnused() {
+        if (meshes.size <= MAX_CACHED_MESHES) return;
+        IntMap.Values<ChunkMesh> it = meshes.values();
+        while (it.hasNext()) {
+            ChunkMesh m = it.next();
+            if (m.lastFrame == frame) continue;
+            if (m.mesh != null) m.mesh.dispose();
+            it.remove();
+        }
+    }
+
+    private void clear() {
+        for (ChunkMesh m : meshes.values()) {
+            if (m.mesh != null) m.mesh.dispose();
+        }
+        meshes.clear();
+        withWater.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+        if (border != null && border.mesh != null) border.mesh.dispose();
+        shader.dispose();
+    }
+
+    private static final class ChunkMesh {
+        final int cx;
+        final int cy;
+        Chunk chunk;
+        int version;
+        int lightVersion;
+        Mesh mesh;
+        int indexCount;
+        int tiles; // non-AIR tiles, WATER included
+        short[] water; // see ChunkMeshBuilder.water; the first waterCount are valid, kept across rebuilds
+        int waterCount;
+        long lastFrame;
+
+        ChunkMesh(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+}
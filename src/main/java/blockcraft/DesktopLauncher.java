@@ -10,6 +10,17 @@ public final class DesktopLauncher {
         config.setWindowedMode(1280, 720);
         config.useVsync(true);
         config.setForegroundFPS(60);
-        new Lwjgl3Application(new BlockCraftGame(), config);
+        // --record FILE: record this session's inputs (replay with gradle replay -Pargs=FILE)
+        // --connect HOST:PORT: play on a server started with gradle runServer
+        String record = null, server = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--record" -> record = args[i + 1];
+                case "--connect" -> server = args[i + 1];
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (record != null && server != null) throw new IllegalArgumentException("--record is for local play only");
+        new Lwjgl3Application(new BlockCraftGame(record, server), config);
     }
 }
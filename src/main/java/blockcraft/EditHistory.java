@@ -0,0 +1,128 @@
+package blockcraft;
+
+import java.util.ArrayDeque;
+
+/**
+ * Undo/redo for player edits: a WorldSnapshot plus the inventory counts, taken just before each edit.
+ * - undo puts the world and inventory back as they were before the last edit, redo forward again;
+ *   whatever else changed meanwhile (flowing WATER) goes back with it
+ * - restoring goes through World.set, so lighting, water, flow field and the journal follow along
+ * - a step costs what its snapshot keeps alive that its newer neighbour (or the live world) does not;
+ *   the oldest steps are dropped to stay within {@link #budget} bytes and {@link #MAX_STEPS}
+ *
+ * Game thread only. Dropped steps are kept (up to {@link #SPARES}) and captured again, snapshot arrays and
+ * all, so once the history is full an edit allocates only the copy-on-write copy of the chunk it changes.
+ */
+public final class EditHistory {
+
+    public static final long DEFAULT_BUDGET = 8L << 20;
+    public static final int MAX_STEPS = 256;
+
+    /** dropped steps kept for reuse; steady editing drops one per record */
+    static final int SPARES = 4;
+
+    /** bytes the retained steps may cost; the oldest go first (the newest always stays) */
+    public long budget = DEFAULT_BUDGET;
+
+    private final ArrayDeque<Step> undo = new ArrayDeque<>(); // newest last
+    private final ArrayDeque<Step> redo = new ArrayDeque<>(); // next to redo last
+    private final ArrayDeque<Step> spare = new ArrayDeque<>(); // released, ready to capture again
+    private long fixedBytes; // sum of the costs that are known (>= 0)
+
+    private static final class Step {
+        WorldSnapshot world;
+        final int[] counts = new int[TileType.BY_ORDINAL.length];
+        long cost = -1; // bytes retained beyond the neighbour toward the present; -1 = that is the live world
+
+        void capture(GameState s) {
+            if (world == null) world = s.world.snapshot();
+            else world.capture(s.world);
+            Inventory inv = s.player.inventory();
+            for (TileType t : TileType.BY_ORDINAL) counts[t.ordinal()] = inv.get(t);
+        }
+    }
+
+    /** Call right before a player edit. Forgets the redo steps. */
+    public void record(GameState s) {
+        while (!redo.isEmpty()) drop(redo.pollLast());
+        Step step = take(s);
+        fix(undo.peekLast(), step);
+        undo.addLast(step);
+        while (undo.size() > MAX_STEPS || (undo.size() > 1 && retainedBytes(s.world) > budget)) drop(undo.pollFirst());
+    }
+
+    /** Goes back one step; false when there is none. */
+    public boolean undo(GameState s) {
+        return move(s, undo, redo);
+    }
+
+    /** Goes forward one undone step; false when there is none. */
+    public boolean redo(GameState s) {
+        return move(s, redo, undo);
+    }
+
+    public int undoSteps() { return undo.size(); }
+
+    public int redoSteps() { return redo.size(); }
+
+    /** Approximate heap the history keeps alive beyond the live world. Allocation-free. */
+    public long retainedBytes(World world) {
+        return fixedBytes + liveBytes(undo.peekLast(), world) + liveBytes(redo.peekLast(), world);
+    }
+
+    public void clear() {
+        while (!undo.isEmpty()) drop(undo.pollLast());
+        while (!redo.isEmpty()) drop(redo.pollLast());
+    }
+
+    /** Restores the newest step of {@code from}, saving the present as the newest step of {@code to}. */
+    private boolean move(GameState s, ArrayDeque<Step> from, ArrayDeque<Step> to) {
+        Step target = from.pollLast();
+        if (target == null) return false;
+        Step now = take(s);
+        fix(to.peekLast(), now);
+        to.addLast(now);
+
+        s.world.restore(target.world);
+        Inventory inv = s.player.inventory();
+        for (TileType t : TileType.BY_ORDINAL) inv.set(t, target.counts[t.ordinal()]);
+        drop(target);
+        Step next = from.peekLast();
+        if (next != null) { // its neighbour toward the present is the live world again
+            forget(next);
+            next.cost = -1;
+        }
+        return true;
+    }
+
+    /** {@code st} got {@code newer} as its neighbour toward the present: its cost is settled. */
+    private void fix(Step st, Step newer) {
+        if (st == null) return;
+        st.cost = st.world.retainedBytes(newer.world);
+        fixedBytes += st.cost;
+    }
+
+    private void forget(Step st) {
+        if (st.cost >= 0) fixedBytes -= st.cost;
+    }
+
+    /** A step capturing the present: a spare one if there is one. */
+    private Step take(GameState s) {
+        Step st = spare.pollLast();
+        if (st == null) st = new Step();
+        st.capture(s);
+        return st;
+    }
+
+    /** {@code st} left the history: its tiles go, the step itself may be reused. */
+    private void drop(Step st) {
+        forget(st);
+        st.cost = -1;
+        st.world.release();
+        if (spare.size() < SPARES) spare.addLast(st);
+    }
+
+    private static long liveBytes(Step st, World world) {
+        return st != null && st.cost < 0 ? st.world.retainedBytes(world) : 0;
+    }
+}
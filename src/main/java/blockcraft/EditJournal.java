@@ -0,0 +1,307 @@
+package blockcraft;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Write-ahead log of the edits made since the last full save, kept next to it as {@code <save>.journal},
+ * so autosaving costs a few bytes per edit instead of a world rewrite.
+ * - World.set and Inventory changes reach it as a listener; {@link #flush} (once per frame) appends
+ *   the player position if it moved and hands the buffered records to the OS, so a crash of the
+ *   process loses at most the current frame
+ * - records are absolute (tile = ordinal, count = n, player at x, y), so replaying records that a
+ *   newer base already holds gives the same state again
+ * - a full save calls {@link #rotate} with its snapshot: the records so far move to
+ *   {@code <save>.journal.old} and a fresh journal starts; {@link #dropOld} deletes that file once the
+ *   new base is on disk. Crashing anywhere in between replays base + .old + journal, still correct.
+ * - replay stops at the first torn or unknown record, and attaching cuts the file back to there
+ *
+ * Format (big-endian): "BCJ1", int width, int height, long seed, byte terrain (as in SaveSystem), then
+ *   1 TILE    int x, int y, byte ordinal
+ *   2 COUNT   byte ordinal, int count
+ *   3 PLAYER  float x, float y, int selected
+ *
+ * Game thread only, except {@link #dropOld}, which the save thread calls while no rotate can run.
+ */
+public final class EditJournal implements WorldListener, InventoryListener, AutoCloseable {
+
+    private static final byte[] MAGIC = { 'B', 'C', 'J', '1' };
+    private static final int HEADER_BYTES = MAGIC.length + 4 + 4 + 8 + 1;
+
+    private static final int TILE = 1;
+    private static final int COUNT = 2;
+    private static final int PLAYER = 3;
+    private static final int TILE_BYTES = 1 + 4 + 4 + 1;
+    private static final int COUNT_BYTES = 1 + 1 + 4;
+    private static final int PLAYER_BYTES = 1 + 4 + 4 + 4;
+
+    private final Path path;
+    private final Path oldPath;
+
+    private GameState state;
+    private DataOutputStream out;
+    private long size;
+    private float lastX;
+    private float lastY;
+    private int lastSelected;
+    private IOException error;
+
+    public EditJournal(String saveName) {
+        this.path = Path.of(saveName + ".journal");
+        this.oldPath = Path.of(saveName + ".journal.old");
+    }
+
+    /**
+     * The base save with .old and the journal replayed on top; null when there is nothing to recover.
+     * Journals written for a different world than the base are ignored. Touches no live state.
+     */
+    public static GameState recover(String saveName, SaveSystem.Progress progress) {
+        Path path = Path.of(saveName + ".journal"), oldPath = Path.of(saveName + ".journal.old");
+        GameState s = SaveSystem.load(saveName, progress);
+        try {
+            if (s == null) s = fromHeader(oldPath);
+            if (s == null) s = fromHeader(path);
+            if (s == null) return null;
+            replay(s, oldPath);
+            replay(s, path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("journal replay failed: " + saveName, e);
+        }
+        return s;
+    }
+
+    /**
+     * Starts journaling {@code s}'s world and inventory (detaching from the previous state). An existing
+     * journal for the same world is kept and cut back to its last whole record; otherwise a new one starts.
+     */
+    public void attach(GameState s) {
+        detach();
+        state = s;
+        try {
+            if (Files.exists(oldPath) && scan(null, oldPath, s) < 0) Files.delete(oldPath); // another world's
+            long valid = Files.exists(path) ? scan(null, path, s) : -1;
+            if (valid < 0) {
+                writeNew(s);
+            } else {
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    ch.truncate(valid);
+                }
+                out = open();
+                size = valid;
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+        s.world.addListener(this);
+        s.player.inventory().addListener(this);
+        lastX = s.player.x();
+        lastY = s.player.y();
+        lastSelected = s.selectedIndex;
+    }
+
+    @Override
+    public void tileChanged(int x, int y, TileType before, TileType after) {
+        if (out == null) return;
+        try {
+            out.writeByte(TILE);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeByte(after.ordinal());
+            size += TILE_BYTES;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void countChanged(TileType t, int count) {
+        if (out == null) return;
+        try {
+            out.writeByte(COUNT);
+            out.writeByte(t.ordinal());
+            out.writeInt(count);
+            size += COUNT_BYTES;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Appends the player position if it changed, then pushes everything buffered to the OS. */
+    public void flush() {
+        if (out == null) return;
+        try {
+            Player p = state.player;
+            if (p.x() != lastX || p.y() != lastY || state.selectedIndex != lastSelected) {
+                lastX = p.x();
+                lastY = p.y();
+                lastSelected = state.selectedIndex;
+                out.writeByte(PLAYER);
+                out.writeFloat(lastX);
+                out.writeFloat(lastY);
+                out.writeInt(lastSelected);
+                size += PLAYER_BYTES;
+            }
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Bytes in the current journal, header included. */
+    public long size() { return size; }
+
+    /** Why journaling stopped, or null while it works. */
+    public IOException error() { return error; }
+
+    /**
+     * Call right after taking the snapshot of a full save: moves the records so far to .old (appending
+     * if a failed save left one) and starts an empty journal for what comes after the snapshot.
+     * Also restarts journaling after an IO error, since the snapshot covers everything it missed.
+     */
+    public void rotate() {
+        if (state == null) return;
+        try {
+            if (out != null) out.close();
+            out = null;
+            error = null;
+            long end = Files.exists(path) ? scan(null, path, state) : -1; // whole records only
+            if (end < 0) {
+                // nothing to keep
+            } else if (Files.exists(oldPath)) {
+                try (FileChannel from = FileChannel.open(path, StandardOpenOption.READ);
+                     FileChannel to = FileChannel.open(oldPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    for (long at = HEADER_BYTES; at < end; ) at += from.transferTo(at, end - at, to);
+                }
+            } else {
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    ch.truncate(end);
+                }
+                Files.move(path, oldPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            writeNew(state);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** The new base is on disk: the rotated records are no longer needed. */
+    public void dropOld() {
+        try {
+            Files.deleteIfExists(oldPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not delete " + oldPath, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        detach();
+    }
+
+    private void detach() {
+        if (state != null) {
+            state.world.removeListener(this);
+            state.player.inventory().removeListener(this);
+            state = null;
+        }
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            out = null;
+        }
+    }
+
+    private void writeNew(GameState s) throws IOException {
+        try (OutputStream o = Files.newOutputStream(path)) {
+            o.write(header(s));
+        }
+        out = open();
+        size = HEADER_BYTES;
+    }
+
+    /** A FileOutputStream, since a channel's stream wraps every write in a new ByteBuffer. */
+    private DataOutputStream open() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile(), true), 1 << 16));
+    }
+
+    private void fail(IOException e) {
+        if (error == null) error = e;
+        out = null; // stop journaling; the next full save still persists everything
+    }
+
+    private static byte[] header(GameState s) {
+        World w = s.world;
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES);
+        b.put(MAGIC).putInt(w.width).putInt(w.height).putLong(s.seed);
+        b.put((byte) (w.generator() != null ? 0 : 1 + w.fillTile().ordinal()));
+        return b.array();
+    }
+
+    /** A fresh state for the world a journal's header describes, when there is no base save. */
+    private static GameState fromHeader(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < HEADER_BYTES) return null;
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file), 0, HEADER_BYTES);
+        for (byte m : MAGIC) if (b.get() != m) return null;
+        GameState s = new GameState(b.getInt(), b.getInt(), b.getLong());
+        int terrain = b.get();
+        if (terrain != 0) s.world.fill(TileType.BY_ORDINAL[terrain - 1]);
+        return s;
+    }
+
+    private static void replay(GameState s, Path file) throws IOException {
+        if (Files.exists(file)) scan(s, file, s);
+    }
+
+    /**
+     * Walks the records of a journal written for {@code match}'s world, applying them to {@code apply}
+     * if it is not null. Returns the length up to the last whole record, or -1 for another world's journal.
+     */
+    private static long scan(GameState apply, Path file, GameState match) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file));
+        byte[] expected = header(match);
+        if (b.remaining() < HEADER_BYTES) return -1;
+        for (byte e : expected) if (b.get() != e) return -1;
+
+        while (b.hasRemaining()) {
+            int at = b.position();
+            int type = b.get();
+            int need = type == TILE ? TILE_BYTES : type == COUNT ? COUNT_BYTES : type == PLAYER ? PLAYER_BYTES : -1;
+            if (need < 0 || b.remaining() < need - 1) return at; // unknown or torn: stop here
+            switch (type) {
+                case TILE -> {
+                    int x = b.getInt(), y = b.getInt(), ord = b.get();
+                    if (ord < 0 || ord >= TileType.BY_ORDINAL.length) return at;
+                    if (apply != null) apply.world.set(x, y, TileType.BY_ORDINAL[ord]);
+                }
+                case COUNT -> {
+                    int ord = b.get(), count = b.getInt();
+                    if (ord < 0 || ord >= TileType.BY_ORDINAL.length) return at;
+                    if (apply != null) apply.player.inventory().set(TileType.BY_ORDINAL[ord], count);
+                }
+                default -> {
+                    float x = b.getFloat(), y = b.getFloat();
+                    int selected = b.getInt();
+                    if (apply != null) {
+                        apply.player.setPos(x, y);
+                        apply.setSelectedIndex(selected);
+                    }
+                }
+            }
+        }
+        return b.position();
+    }
+}
@@ -9,9 +9,14 @@ public interface Entity {
     float x();
     float y();
 
+    /** Position at the start of the current tick; drawing interpolates from here to (x, y). */
+    float prevX();
+    float prevY();
+
+    /** Teleport: also resets the previous position so nothing is interpolated across the jump. */
     void setPos(float x, float y);
 
-    /** Update per frame (dt = seconds since last frame). */
+    /** Update per simulation tick (dt = fixed tick length in seconds). */
     void update(World world, float dt);
 
     /** Draw color tint (simple for now). */
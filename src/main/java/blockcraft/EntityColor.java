@@ -1,14 +1,17 @@
 package blockcraft;
 
-import com.badlogic.gdx.graphics.Color;
-
+/** Entity tints as plain RGB floats (no graphics dependency). */
 public enum EntityColor {
-    PLAYER(new Color(0.95f, 0.35f, 0.30f, 1f)),
-    MOB(new Color(0.70f, 0.30f, 0.85f, 1f));
+    PLAYER(0.95f, 0.35f, 0.30f),
+    MOB(0.70f, 0.30f, 0.85f);
 
-    public final Color color;
+    public final float r;
+    public final float g;
+    public final float b;
 
-    EntityColor(Color color) {
-        this.color = color;
+    EntityColor(float r, float g, float b) {
+        this.r = r;
+        this.g = g;
+        this.b = b;
     }
 }
@@ -0,0 +1,43 @@
+package blockcraft;
+
+/**
+ * Accumulator for a fixed simulation rate, independent of the render frame rate.
+ *
+ * Each frame: {@code n = advance(frameDt)}, run n ticks of {@link #step} seconds, then draw with
+ * {@link #alpha()} to interpolate between the last two ticks. At most {@code maxStepsPerFrame}
+ * ticks run per frame; time beyond that is dropped (counted in {@link #droppedSteps()}) so a slow
+ * frame can't snowball into ever longer catch-up frames.
+ */
+public final class FixedTimestep {
+    public final float step;
+    public final int maxStepsPerFrame;
+
+    private float accumulator;
+    private long droppedSteps;
+
+    public FixedTimestep(int ticksPerSecond, int maxStepsPerFrame) {
+        this.step = 1f / ticksPerSecond;
+        this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+    }
+
+    /** @return number of ticks to run this frame */
+    public int advance(float frameDt) {
+        accumulator += Math.max(0f, frameDt);
+        int steps = (int) (accumulator / step);
+        if (steps > maxStepsPerFrame) {
+            droppedSteps += steps - maxStepsPerFrame;
+            steps = maxStepsPerFrame;
+            accumulator = 0f;
+        } else {
+            accumulator -= steps * step;
+        }
+        return steps;
+    }
+
+    /** How far (0..1) the current frame is past the last tick. */
+    public float alpha() {
+        return Math.min(1f, accumulator / step);
+    }
+
+    public long droppedSteps() { return droppedSteps; }
+}
@@ -0,0 +1,274 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+/**
+ * Walking distance to the player over non-solid tiles, shared by all mobs (O(1) lookup per step).
+ *
+ * Covers a (2R+1)^2 window centered on the player's tile and counts only paths inside it.
+ * The field is repaired in place rather than rebuilt, and always equals what a full BFS would give:
+ * - player steps to a nearby tile: every old distance + d_old(new tile) is still an upper bound, so a
+ *   global bias is bumped in O(1) and only tiles that got closer are relaxed from the new root
+ * - the window slides as a ring buffer: only rows/columns that enter it are reset, and tiles whose
+ *   distance ran through the rows/columns that left it are cleared and refilled
+ * - a tile opens: relax outwards from it
+ * - a tile becomes solid: clear every tile whose distance could have run through it, then refill
+ *   those from the untouched tiles around them (same remove/re-add scheme as light propagation)
+ * Teleports, long jumps and bias overflow fall back to a full BFS.
+ *
+ * Single-threaded: update and edits run on the simulation thread; reads may run in parallel between them.
+ */
+public final class FlowField implements WorldListener {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int MAX_STEP = 4;        // longer player moves rebuild
+    private static final int MAX_BIAS = 1 << 28;  // rebuild before stored values drift too far
+
+    private final World world;
+    private final int radius;
+    private final int side;
+
+    private final int[] dist; // ring-indexed by world coords; actual distance = stored + bias
+    private int bias;
+    private boolean built;
+    private int rootX;
+    private int rootY;
+    private int ox; // window origin (minimum corner) in world tiles
+    private int oy;
+
+    // relax queue (ring of cell indices, each cell at most once)
+    private final int[] queue;
+    private final boolean[] queued;
+    private int qHead;
+    private int qSize;
+
+    // tiles that entered the window on the last slide
+    private final int[] enteringX;
+    private final int[] enteringY;
+
+    // removal pass: cleared tiles with the distance they had
+    private final int[] removedX;
+    private final int[] removedY;
+    private final int[] removedDist;
+
+    /** cells relaxed by the last update or edit (for benchmarks/overlays) */
+    private int touched;
+
+    public FlowField(World world, int radius) {
+        this.world = world;
+        this.radius = radius;
+        this.side = 2 * radius + 1;
+        int cells = side * side;
+        dist = new int[cells];
+        queue = new int[cells];
+        queued = new boolean[cells];
+        enteringX = new int[2 * side * MAX_STEP];
+        enteringY = new int[enteringX.length];
+        removedX = new int[cells + enteringX.length];
+        removedY = new int[removedX.length];
+        removedDist = new int[removedX.length];
+    }
+
+    /** Steps from (x, y) to the player's tile, or {@link #UNREACHABLE}. */
+    public int distance(int x, int y) {
+        if (!built || !inWindow(x, y)) return UNREACHABLE;
+        return get(index(x, y));
+    }
+
+    public int radius() { return radius; }
+
+    public int touched() { return touched; }
+
+    /** Re-roots the field on the player's tile; cheap when the player moved at most a few tiles. */
+    public void update(int px, int py) {
+        if (built && px == rootX && py == rootY) return;
+        int step = distance(px, py);
+        if (!built || Math.abs(px - rootX) > MAX_STEP || Math.abs(py - rootY) > MAX_STEP
+                || step == UNREACHABLE || bias + step > MAX_BIAS) {
+            rebuild(px, py);
+            return;
+        }
+
+        touched = 0;
+        bias += step; // old distances + step are upper bounds of the new ones
+        slideWindow(px - radius, py - radius);
+        rootX = px;
+        rootY = py;
+        set(index(px, py), 0);
+        enqueue(index(px, py));
+        propagate();
+    }
+
+    /** Full BFS from the player's tile. */
+    public void rebuild(int px, int py) {
+        Arrays.fill(dist, UNREACHABLE);
+        bias = 0;
+        built = true;
+        rootX = px;
+        rootY = py;
+        ox = px - radius;
+        oy = py - radius;
+        touched = 0;
+        if (world.solid(px, py)) return;
+        set(index(px, py), 0);
+        enqueue(index(px, py));
+        propagate();
+    }
+
+    @Override
+    public void tileChanged(int x, int y, TileType before, TileType after) {
+        if (before.solid == after.solid || !built || !inWindow(x, y)) return;
+        touched = 0;
+        if (after.solid) {
+            blocked(x, y);
+        } else {
+            seedFromNeighbors(x, y);
+            propagate();
+        }
+    }
+
+    private void blocked(int x, int y) {
+        int i = index(x, y);
+        int d = get(i);
+        dist[i] = UNREACHABLE;
+        if (d == UNREACHABLE || d == 0) return; // d == 0: walled in the player's own tile
+        removedX[0] = x;
+        removedY[0] = y;
+        removedDist[0] = d;
+        clear(1);
+        propagate();
+    }
+
+    /**
+     * Clears every tile whose distance may have run through the first {@code n} removed entries
+     * (a neighbor exactly one step farther); the untouched tiles around them are queued as seeds.
+     */
+    private void clear(int n) {
+        for (int k = 0; k < n; k++) {
+            int x = removedX[k], y = removedY[k], dk = removedDist[k];
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir], ny = y + DY[dir];
+                if (!inWindow(nx, ny)) continue;
+                int j = index(nx, ny);
+                int dj = get(j);
+                if (dj == UNREACHABLE) continue;
+                if (dj == dk + 1) {
+                    dist[j] = UNREACHABLE;
+                    removedX[n] = nx;
+                    removedY[n] = ny;
+                    removedDist[n++] = dj;
+                } else {
+                    enqueue(j);
+                }
+            }
+        }
+        touched += n;
+    }
+
+    /**
+     * Moves the window origin. A tile entering the window reuses the ring slot of the tile leaving
+     * on the opposite side: the leaving tiles go through {@link #clear}, the entering ones start
+     * unknown and are filled from their neighbors.
+     */
+    private void slideWindow(int nox, int noy) {
+        int pox = ox, poy = oy;
+        int entering = 0;
+        for (int y = noy; y < noy + side; y++) {
+            boolean newRow = y < poy || y >= poy + side;
+            int leftEnd = newRow ? nox + side : Math.min(pox, nox + side);
+            int rightStart = newRow ? nox + side : Math.max(pox + side, nox);
+            for (int x = nox; x < leftEnd; x++, entering++) {
+                enteringX[entering] = x;
+                enteringY[entering] = y;
+            }
+            for (int x = rightStart; x < nox + side; x++, entering++) {
+                enteringX[entering] = x;
+                enteringY[entering] = y;
+            }
+        }
+
+        int n = 0;
+        for (int k = 0; k < entering; k++) {
+            int x = enteringX[k], y = enteringY[k];
+            int i = index(x, y);
+            int d = get(i);
+            if (d == UNREACHABLE) continue;
+            removedX[n] = pox + Math.floorMod(x - pox, side);
+            removedY[n] = poy + Math.floorMod(y - poy, side);
+            removedDist[n++] = d;
+            dist[i] = UNREACHABLE;
+        }
+        ox = nox;
+        oy = noy;
+        clear(n);
+        for (int k = 0; k < entering; k++) seedFromNeighbors(enteringX[k], enteringY[k]);
+    }
+
+    private void seedFromNeighbors(int x, int y) {
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + DX[dir], ny = y + DY[dir];
+            if (inWindow(nx, ny) && dist[index(nx, ny)] != UNREACHABLE) enqueue(index(nx, ny));
+        }
+    }
+
+    /** Relaxes from every queued cell until nothing improves (label-correcting BFS). */
+    private void propagate() {
+        while (qSize > 0) {
+            int c = queue[qHead];
+            qHead = qHead + 1 == queue.length ? 0 : qHead + 1;
+            qSize--;
+            queued[c] = false;
+            touched++;
+
+            int d = get(c);
+            if (d == UNREACHABLE) continue;
+            int x = cellX(c), y = cellY(c);
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir], ny = y + DY[dir];
+                if (!inWindow(nx, ny)) continue;
+                int j = index(nx, ny);
+                if (get(j) <= d + 1) continue;
+                if (world.solid(nx, ny)) continue;
+                set(j, d + 1);
+                enqueue(j);
+            }
+        }
+        qHead = 0;
+    }
+
+    private void enqueue(int c) {
+        if (queued[c]) return;
+        queued[c] = true;
+        int tail = qHead + qSize;
+        queue[tail >= queue.length ? tail - queue.length : tail] = c;
+        qSize++;
+    }
+
+    private int get(int i) {
+        int s = dist[i];
+        return s == UNREACHABLE ? UNREACHABLE : s + bias;
+    }
+
+    private void set(int i, int d) {
+        dist[i] = d - bias;
+    }
+
+    private boolean inWindow(int x, int y) {
+        return x >= ox && y >= oy && x < ox + side && y < oy + side;
+    }
+
+    private int index(int x, int y) {
+        return Math.floorMod(y, side) * side + Math.floorMod(x, side);
+    }
+
+    private int cellX(int i) {
+        return ox + Math.floorMod(i % side - ox, side);
+    }
+
+    private int cellY(int i) {
+        return oy + Math.floorMod(i / side - oy, side);
+    }
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+}
@@ -0,0 +1,123 @@
+package blockcraft;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Rolling per-frame measurements for the performance overlay: the last WINDOW frames, one column per
+ * metric, plus heap and GC read from the JVM. No graphics classes; the game fills in the draw stats.
+ * - {@link #percentile} sorts a copy of one column, so call it a few times a second, not per sample
+ * - {@link #writeCsv} dumps the window with a header row, oldest frame first
+ */
+public final class FrameStats {
+    public static final int WINDOW = 600; // 10 s at 60 fps
+
+    // columns
+    public static final int FRAME_NS = 0;
+    public static final int UPDATE_NS = 1;
+    public static final int RENDER_NS = 2;
+    public static final int TICKS = 3;
+    public static final int RENDER_CALLS = 4;
+    public static final int MAX_SPRITES = 5;
+    public static final int CHUNK_DRAWS = 6;
+    public static final int VISIBLE_TILES = 7;
+    public static final int MESH_BUILDS = 8;
+    public static final int HEAP_USED = 9;
+    public static final int GC_COUNT = 10;
+    public static final int GC_MS = 11;
+    private static final int COLUMNS = 12;
+    private static final String HEADER = "frame_ns,update_ns,render_ns,ticks,render_calls,max_sprites,"
+            + "chunk_draws,visible_tiles,mesh_builds,heap_used,gc_count,gc_ms";
+
+    private final long[][] samples = new long[COLUMNS][WINDOW];
+    private final long[] current = new long[COLUMNS];
+    private final long[] sorted = new long[WINDOW];
+    private int next;
+    private int count;
+    private long frames;
+
+    private final GarbageCollectorMXBean[] collectors =
+            ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+    private long lastGcCount = -1;
+    private long lastGcMs;
+
+    /** Sets one metric of the frame being measured. */
+    public void set(int column, long value) {
+        current[column] = value;
+    }
+
+    /** Adds heap and GC (collections and pause time since the previous frame), then stores the frame. */
+    public void endFrame() {
+        Runtime rt = Runtime.getRuntime();
+        current[HEAP_USED] = rt.totalMemory() - rt.freeMemory();
+
+        long gcCount = 0, gcMs = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcMs += Math.max(0, gc.getCollectionTime());
+        }
+        if (lastGcCount >= 0) {
+            current[GC_COUNT] = gcCount - lastGcCount;
+            current[GC_MS] = gcMs - lastGcMs;
+        }
+        lastGcCount = gcCount;
+        lastGcMs = gcMs;
+
+        for (int c = 0; c < COLUMNS; c++) {
+            samples[c][next] = current[c];
+            current[c] = 0;
+        }
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        frames++;
+    }
+
+    /** frames in the window */
+    public int count() { return count; }
+
+    /** frames recorded since creation */
+    public long frames() { return frames; }
+
+    /** Most recent value of a column (0 when nothing is recorded yet). */
+    public long last(int column) {
+        return count == 0 ? 0 : samples[column][(next + WINDOW - 1) % WINDOW];
+    }
+
+    /** Nearest-rank percentile (0..100) of a column over the window; 100 = max. */
+    public long percentile(int column, double p) {
+        if (count == 0) return 0;
+        System.arraycopy(samples[column], 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    /** Sum of a column over the window. */
+    public long sum(int column) {
+        long s = 0;
+        for (int i = 0; i < count; i++) s += samples[column][i];
+        return s;
+    }
+
+    public void writeCsv(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.write('\n');
+            int start = (next + WINDOW - count) % WINDOW;
+            for (int i = 0; i < count; i++) {
+                int s = (start + i) % WINDOW;
+                for (int c = 0; c < COLUMNS; c++) {
+                    if (c > 0) out.write(',');
+                    out.write(Long.toString(samples[c][s]));
+                }
+                out.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package blockcraft;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Connection to a GameServer, and the local copy of its world that a client draws.
+ * - {@link #state} is built from the seed the server sends and is never ticked here: the server's
+ *   edits, positions and inventory counts are applied to it as they arrive (edits through World.set,
+ *   so lighting and the renderers follow as for local play)
+ * - {@link #send} writes one tick of input; {@link #view} tells the server which chunks to keep current
+ * - other players in view are kept as plain arrays, with the previous position for interpolation
+ *
+ * Not thread-safe; the game thread owns it. Non-blocking once connected: poll and send never wait.
+ */
+public final class GameClient implements AutoCloseable {
+
+    private static final int CONNECT_TIMEOUT_MS = 5_000;
+
+    public final int id;
+    public final GameState state;
+    public final float step;
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(1 << 20);
+    private final ByteBuffer out = ByteBuffer.allocate(16 << 10);
+    private final TileRegion chunk = new TileRegion(Chunk.SIZE, Chunk.SIZE);
+    private int minCx, minCy, maxCx = -1, maxCy = -1;
+    private boolean open = true;
+    private long bytesReceived;
+
+    private int others;
+    private final int[] otherId = new int[NetProtocol.MAX_OTHERS];
+    private final float[] otherX = new float[NetProtocol.MAX_OTHERS];
+    private final float[] otherY = new float[NetProtocol.MAX_OTHERS];
+    private final float[] otherPrevX = new float[NetProtocol.MAX_OTHERS];
+    private final float[] otherPrevY = new float[NetProtocol.MAX_OTHERS];
+    private final int[] lastId = new int[NetProtocol.MAX_OTHERS];
+    private final float[] lastX = new float[NetProtocol.MAX_OTHERS];
+    private final float[] lastY = new float[NetProtocol.MAX_OTHERS];
+
+    /** Connects and waits for the server's welcome (at most a few seconds). */
+    public GameClient(String host, int port) {
+        try {
+            channel = SocketChannel.open();
+            channel.socket().connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+
+            int start = NetProtocol.begin(out, NetProtocol.HELLO, 1 + 4);
+            out.putInt(NetProtocol.MAGIC);
+            NetProtocol.end(out, start);
+            flush();
+
+            long deadline = System.nanoTime() + CONNECT_TIMEOUT_MS * 1_000_000L;
+            while (true) {
+                if (!fill()) throw new IOException("server closed the connection");
+                in.flip();
+                if (NetProtocol.next(in) > 0) {
+                    if (in.get() != NetProtocol.WELCOME) throw new IOException("expected a welcome");
+                    break;
+                }
+                in.compact();
+                if (System.nanoTime() - deadline > 0) throw new IOException("no welcome within " + CONNECT_TIMEOUT_MS + " ms");
+                Thread.sleep(1);
+            }
+            id = in.getInt();
+            int w = in.getInt(), h = in.getInt();
+            long seed = in.getLong();
+            step = in.getFloat();
+            float x = in.getFloat(), y = in.getFloat();
+            in.compact();
+
+            state = new GameState(w, h, seed);
+            state.history = null;
+            while (state.mobs.size() > 0) state.mobs.despawn(state.mobs.idAt(0)); // the server runs none yet
+            state.player.setPos(x, y);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not join " + host + ":" + port, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while joining", e);
+        }
+    }
+
+    /** Applies everything the server sent since the last call. False once the connection is gone. */
+    public boolean poll() {
+        if (!open) return false;
+        try {
+            boolean alive = fill();
+            in.flip();
+            for (int len; (len = NetProtocol.next(in)) > 0; ) {
+                int end = in.position() + len;
+                handle(in.get() & 0xFF);
+                in.position(end);
+            }
+            in.compact();
+            if (!alive) close();
+        } catch (IOException | RuntimeException e) { // lost, or sent something this client cannot apply
+            close();
+        }
+        return open;
+    }
+
+    /** Sends one tick of input and consumes its one-shot actions (undo/redo are local-only and dropped). */
+    public void send(TickInput input) {
+        if (open) NetProtocol.writeInput(out, input); // a full buffer drops the tick: the server is not reading
+        input.clearActions();
+        flushQuietly();
+    }
+
+    /** Asks the server to keep the chunks under the tile rectangle current; sent only when it changes. */
+    public void view(int minX, int minY, int maxX, int maxY) {
+        int a = Math.max(0, minX >> Chunk.SHIFT), b = Math.max(0, minY >> Chunk.SHIFT);
+        int c = Math.min(state.world.chunksX() - 1, maxX >> Chunk.SHIFT), d = Math.min(state.world.chunksY() - 1, maxY >> Chunk.SHIFT);
+        if (a == minCx && b == minCy && c == maxCx && d == maxCy) return;
+        int start = NetProtocol.begin(out, NetProtocol.VIEW, 1 + 8);
+        if (start < 0) return; // tried again next frame
+        out.putShort((short) a).putShort((short) b).putShort((short) c).putShort((short) d);
+        NetProtocol.end(out, start);
+        minCx = a;
+        minCy = b;
+        maxCx = c;
+        maxCy = d;
+        flushQuietly();
+    }
+
+    public boolean open() { return open; }
+
+    public long bytesReceived() { return bytesReceived; }
+
+    /** Other players in view, as of the last state received. */
+    public int others() { return others; }
+
+    public int otherId(int i) { return otherId[i]; }
+
+    public float otherX(int i) { return otherX[i]; }
+
+    public float otherY(int i) { return otherY[i]; }
+
+    public float otherPrevX(int i) { return otherPrevX[i]; }
+
+    public float otherPrevY(int i) { return otherPrevY[i]; }
+
+    @Override
+    public void close() {
+        if (!open) return;
+        open = false;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+
+    private void handle(int type) {
+        World world = state.world;
+        switch (type) {
+            case NetProtocol.CHUNK -> {
+                int cx = in.getShort(), cy = in.getShort();
+                in.get(chunk.tiles);
+                for (byte o : chunk.tiles) ordinal(o);
+                world.paste(chunk, cx << Chunk.SHIFT, cy << Chunk.SHIFT);
+            }
+            case NetProtocol.EDITS -> {
+                for (int n = in.getShort() & 0xFFFF; n > 0; n--) {
+                    int x = in.getShort() & 0xFFFF, y = in.getShort() & 0xFFFF;
+                    world.set(x, y, ordinal(in.get()));
+                }
+            }
+            case NetProtocol.STATE -> {
+                state.tick = in.getLong();
+                float x = in.getFloat(), y = in.getFloat();
+                state.player.beginTick();
+                state.player.moveTo(x, y);
+                state.setSelectedIndex(in.get());
+                readOthers(in.get() & 0xFF);
+            }
+            case NetProtocol.COUNT -> {
+                TileType t = ordinal(in.get());
+                state.player.inventory().set(t, in.getInt());
+            }
+            default -> throw new IllegalStateException("unexpected frame type " + type);
+        }
+    }
+
+    /** Replaces the other players, keeping each one's previous position as the start of its step. */
+    private void readOthers(int n) {
+        System.arraycopy(otherId, 0, lastId, 0, others);
+        System.arraycopy(otherX, 0, lastX, 0, others);
+        System.arraycopy(otherY, 0, lastY, 0, others);
+        int last = others;
+        for (int i = 0; i < n; i++) {
+            otherId[i] = in.getInt();
+            otherX[i] = in.getFloat();
+            otherY[i] = in.getFloat();
+            otherPrevX[i] = otherX[i];
+            otherPrevY[i] = otherY[i];
+            for (int j = 0; j < last; j++) {
+                if (lastId[j] != otherId[i]) continue;
+                otherPrevX[i] = lastX[j];
+                otherPrevY[i] = lastY[j];
+                break;
+            }
+        }
+        others = n;
+    }
+
+    private static TileType ordinal(byte o) {
+        if (o < 0 || o >= TileType.BY_ORDINAL.length) throw new IllegalStateException("bad tile ordinal " + o);
+        return TileType.BY_ORDINAL[o];
+    }
+
+    /** Reads what is available; false when the server closed the connection. */
+    private boolean fill() throws IOException {
+        int n = channel.read(in);
+        if (n > 0) bytesReceived += n;
+        return n >= 0;
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    private void flushQuietly() {
+        if (!open) return;
+        try {
+            flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+}
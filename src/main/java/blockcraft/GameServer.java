@@ -0,0 +1,431 @@
+package blockcraft;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Authoritative multiplayer server: owns the GameState, runs its ticks and keeps every client's copy
+ * of the world current. One thread, non-blocking NIO; the wire format is in NetProtocol.
+ * - each connection gets its own Player (position, inventory, selection) moved and acting by the same
+ *   rules as the local player; its input is latched until the next tick like TickInput at the desk
+ * - tile changes are heard through a WorldListener and sent, batched per tick, to each client whose
+ *   view holds the chunk; a chunk the client is not watching is marked stale for it instead
+ * - a chunk coming into view is sent whole only if it was edited and the client's copy is stale;
+ *   unedited chunks the client generates from the seed, so traffic follows edits, not world size
+ * - a client that falls {@link #OUT_BYTES} behind is disconnected rather than buffered without bound
+ *
+ * Mobs are not synchronised yet: the server despawns them, and the state's own player only anchors the
+ * simulated area at the spawn. {@link #tick} is timed; see {@link #tickPercentileNanos}.
+ */
+public final class GameServer implements WorldListener, AutoCloseable {
+
+    /** bytes a client may have waiting to be sent before it is dropped */
+    public static final int OUT_BYTES = 512 << 10;
+    /** a client's view is clamped to this many chunks across and down */
+    public static final int MAX_VIEW_CHUNKS = 12;
+
+    private static final int IN_BYTES = 64 << 10;
+    private static final int LATENCY_SAMPLES = 1024;
+    /** tiles around each player kept resident (as GameState does for its own player) */
+    private static final int SIM_RADIUS = 2 * World.CHUNK_SIZE;
+
+    public final GameState state;
+    public final float step;
+
+    private final World world;
+    private final Selector selector;
+    private final ServerSocketChannel listener;
+    private final ArrayList<Session> sessions = new ArrayList<>();
+    private final TickInput idle = new TickInput();
+    private final byte[] chunkTiles = new byte[TileStorage.TILES];
+    private int nextId = 1;
+    private volatile boolean running = true;
+
+    private final long[] latency = new long[LATENCY_SAMPLES];
+    private long ticks;
+    private long bytesSent;
+    private long chunksSent;
+    private long editsSent;
+
+    /** One connected client. */
+    private final class Session implements InventoryListener {
+        final int id;
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(IN_BYTES);
+        final ByteBuffer out = ByteBuffer.allocate(OUT_BYTES);
+        final TickInput input = new TickInput();
+        final Player player;
+        boolean hello;
+        boolean behind; // out overflowed: dropped at the end of the tick
+        int minCx, minCy, maxCx = -1, maxCy = -1; // view, in chunks; empty until a VIEW arrives
+        final boolean[] current = new boolean[world.chunksX() * world.chunksY()]; // client's copy is up to date
+        int[] edits = new int[256]; // packed (x << 16 | y), ordinal in editTypes
+        byte[] editTypes = new byte[256];
+        int editCount;
+
+        Session(int id, SocketChannel channel, SelectionKey key) {
+            this.id = id;
+            this.channel = channel;
+            this.key = key;
+            this.player = new Player(state.player.x(), state.player.y());
+            Arrays.fill(current, true); // all generator output so far; edited chunks are cleared below
+            Chunk[] chunks = world.chunks();
+            for (int i = 0; i < chunks.length; i++) if (chunks[i] != null && chunks[i].modified) current[i] = false;
+            player.inventory().addListener(this);
+        }
+
+        boolean watches(int cx, int cy) {
+            return cx >= minCx && cx <= maxCx && cy >= minCy && cy <= maxCy;
+        }
+
+        @Override
+        public void countChanged(TileType t, int count) {
+            int start = NetProtocol.begin(out, NetProtocol.COUNT, 1 + 1 + 4);
+            if (start < 0) {
+                behind(this);
+                return;
+            }
+            out.put((byte) t.ordinal()).putInt(count);
+            NetProtocol.end(out, start);
+        }
+    }
+
+    /**
+     * Serves {@code state} on host:port (port 0 picks a free one, see {@link #port}). The world must be at
+     * most 65535 tiles in each direction (EDITS carries u16 coordinates).
+     */
+    public GameServer(GameState state, String host, int port, float step) {
+        if (state.world.width > 0xFFFF || state.world.height > 0xFFFF) {
+            throw new IllegalArgumentException("world too large to serve: " + state.world.width + "x" + state.world.height);
+        }
+        this.state = state;
+        this.step = step;
+        this.world = state.world;
+        state.history = null; // undo is per player at the desk; the server has no single player to undo for
+        while (state.mobs.size() > 0) state.mobs.despawn(state.mobs.idAt(0));
+        try {
+            selector = Selector.open();
+            listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress(host, port));
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not listen on " + host + ":" + port, e);
+        }
+        world.addListener(this);
+    }
+
+    /** The port actually listened on. */
+    public int port() {
+        return listener.socket().getLocalPort();
+    }
+
+    /** Serves until {@link #close}: I/O between ticks, a tick every {@link #step} seconds. */
+    public void run() {
+        long stepNs = (long) (step * 1e9);
+        long next = System.nanoTime();
+        while (running) {
+            long wait = next - System.nanoTime();
+            pump(wait > 0 ? Math.max(1, wait / 1_000_000) : 0);
+            long now = System.nanoTime();
+            if (now - next >= 0) {
+                tick();
+                next += stepNs;
+                if (now - next > 5 * stepNs) next = now; // fell far behind: do not try to catch up in a burst
+            }
+        }
+    }
+
+    /** Handles pending connections, input and writes; waits up to {@code timeoutMs} (0 = do not wait). */
+    public void pump(long timeoutMs) {
+        try {
+            if (timeoutMs > 0) selector.select(timeoutMs);
+            else selector.selectNow();
+            for (SelectionKey key : selector.selectedKeys()) {
+                if (!key.isValid()) continue;
+                if (key.isAcceptable()) accept();
+                else {
+                    Session s = (Session) key.attachment();
+                    if (key.isReadable()) read(s);
+                    if (key.isValid() && key.isWritable()) flush(s);
+                }
+            }
+            selector.selectedKeys().clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("server I/O failed", e);
+        }
+    }
+
+    /** One simulation tick for every player, then each client's share of what changed. */
+    public void tick() {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < sessions.size(); i++) {
+            Session s = sessions.get(i);
+            if (!s.hello) continue;
+            Player p = s.player;
+            TickInput in = s.input;
+            p.beginTick();
+            int px = (int) p.x(), py = (int) p.y();
+            world.stream(px - SIM_RADIUS, py - SIM_RADIUS, px + SIM_RADIUS, py + SIM_RADIUS);
+            if (in.select >= 0) p.setSelectedIndex(in.select, state.hotbar.length);
+            if (in.moveX != 0 || in.moveY != 0) p.move(world, in.moveX, in.moveY, step);
+            if (in.mine) state.mine(p, in.mineX, in.mineY);
+            if (in.place) state.place(p, in.placeX, in.placeY);
+            in.clearActions();
+        }
+        state.tick(idle, step); // water, flow field, tick count
+
+        for (int i = 0; i < sessions.size(); i++) {
+            Session s = sessions.get(i);
+            if (s.hello) send(s);
+        }
+        for (int i = sessions.size() - 1; i >= 0; i--) {
+            Session s = sessions.get(i);
+            if (s.behind) drop(s);
+            else flush(s);
+        }
+        latency[(int) (ticks++ % LATENCY_SAMPLES)] = System.nanoTime() - t0;
+    }
+
+    @Override
+    public void tileChanged(int x, int y, TileType before, TileType after) {
+        int cx = x >> Chunk.SHIFT, cy = y >> Chunk.SHIFT;
+        for (int i = 0; i < sessions.size(); i++) {
+            Session s = sessions.get(i);
+            int c = cy * world.chunksX() + cx;
+            if (!s.hello || !s.current[c]) continue;
+            if (!s.watches(cx, cy)) {
+                s.current[c] = false; // sent whole when it comes back into view
+                continue;
+            }
+            if (s.editCount == s.edits.length) {
+                s.edits = Arrays.copyOf(s.edits, s.editCount * 2);
+                s.editTypes = Arrays.copyOf(s.editTypes, s.editCount * 2);
+            }
+            s.edits[s.editCount] = (x << 16) | y;
+            s.editTypes[s.editCount++] = (byte) after.ordinal();
+        }
+    }
+
+    public int clients() { return sessions.size(); }
+
+    public long ticks() { return ticks; }
+
+    /** Bytes handed to the sockets so far. */
+    public long bytesSent() { return bytesSent; }
+
+    /** Whole chunks sent so far. */
+    public long chunksSent() { return chunksSent; }
+
+    /** Tile edits sent so far (one per client that was told). */
+    public long editsSent() { return editsSent; }
+
+    /** Where a client's player is on the server, or null when the id is not connected. */
+    public Player player(int id) {
+        for (Session s : sessions) if (s.id == id) return s.player;
+        return null;
+    }
+
+    /** Time {@link #tick} took, at percentile {@code p} (0..100) of the last ticks, in nanoseconds. */
+    public long tickPercentileNanos(int p) {
+        int n = (int) Math.min(ticks, LATENCY_SAMPLES);
+        if (n == 0) return 0;
+        long[] sorted = Arrays.copyOf(latency, n);
+        Arrays.sort(sorted);
+        return sorted[Math.min(n - 1, (int) ((long) p * n / 100))];
+    }
+
+    /** Stops {@link #run} and disconnects everyone. Call from any thread. */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /** Releases the sockets; call on the server thread after {@link #run} returned (or instead of it). */
+    public void shutdown() {
+        for (int i = sessions.size() - 1; i >= 0; i--) drop(sessions.get(i));
+        try {
+            listener.close();
+            selector.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        world.removeListener(this);
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = listener.accept();
+        if (ch == null) return;
+        SelectionKey key;
+        try {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            key = ch.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) { // the peer connected and reset before we got to it: this connection only
+            try {
+                ch.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+            return;
+        }
+        Session s = new Session(nextId++, ch, key);
+        key.attach(s);
+        sessions.add(s);
+    }
+
+    private void read(Session s) {
+        int n;
+        try {
+            n = s.channel.read(s.in);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            drop(s);
+            return;
+        }
+        ByteBuffer in = s.in.flip();
+        try {
+            for (int len; (len = NetProtocol.next(in)) > 0; ) {
+                int end = in.position() + len;
+                handle(s, in.get() & 0xFF, in);
+                in.position(end);
+            }
+        } catch (RuntimeException e) { // garbage on the wire: this client only
+            drop(s);
+            return;
+        }
+        in.compact();
+        if (s.out.position() > 0) flush(s); // the welcome goes out right away, not at the next tick
+    }
+
+    private void handle(Session s, int type, ByteBuffer body) {
+        if (!s.hello) {
+            if (type != NetProtocol.HELLO || body.getInt() != NetProtocol.MAGIC) throw new IllegalStateException("no hello");
+            s.hello = true;
+            int start = NetProtocol.begin(s.out, NetProtocol.WELCOME, 1 + 4 * 4 + 8 + 8);
+            s.out.putInt(s.id).putInt(world.width).putInt(world.height).putLong(state.seed).putFloat(step)
+                    .putFloat(s.player.x()).putFloat(s.player.y());
+            NetProtocol.end(s.out, start);
+            Inventory inv = s.player.inventory();
+            for (TileType t : TileType.BY_ORDINAL) s.countChanged(t, inv.get(t));
+            return;
+        }
+        switch (type) {
+            case NetProtocol.INPUT -> NetProtocol.readInput(body, s.input);
+            case NetProtocol.VIEW -> {
+                int minCx = Math.max(0, body.getShort()), minCy = Math.max(0, body.getShort());
+                int maxCx = Math.min(world.chunksX() - 1, body.getShort()), maxCy = Math.min(world.chunksY() - 1, body.getShort());
+                s.minCx = minCx;
+                s.minCy = minCy;
+                s.maxCx = Math.min(maxCx, minCx + MAX_VIEW_CHUNKS - 1);
+                s.maxCy = Math.min(maxCy, minCy + MAX_VIEW_CHUNKS - 1);
+            }
+            default -> throw new IllegalStateException("unexpected frame type " + type);
+        }
+    }
+
+    /** Queues the tick's output for {@code s}: stale chunks now in view, then edits, then positions. */
+    private void send(Session s) {
+        ByteBuffer out = s.out;
+        for (int cy = s.minCy; cy <= s.maxCy; cy++) {
+            for (int cx = s.minCx; cx <= s.maxCx; cx++) {
+                int c = cy * world.chunksX() + cx;
+                if (s.current[c]) continue;
+                s.current[c] = true;
+                Chunk chunk = world.chunkAt(cx, cy); // stale means edited, and edited chunks stay resident
+                int start = NetProtocol.begin(out, NetProtocol.CHUNK, NetProtocol.CHUNK_BODY);
+                if (start < 0) {
+                    behind(s);
+                    return;
+                }
+                chunk.tiles.getRange(0, TileStorage.TILES, chunkTiles, 0);
+                out.putShort((short) cx).putShort((short) cy).put(chunkTiles);
+                NetProtocol.end(out, start);
+                chunksSent++;
+            }
+        }
+
+        for (int from = 0; from < s.editCount; from += NetProtocol.MAX_EDITS) {
+            int n = Math.min(NetProtocol.MAX_EDITS, s.editCount - from);
+            int start = NetProtocol.begin(out, NetProtocol.EDITS, 1 + 2 + n * NetProtocol.EDIT_BYTES);
+            if (start < 0) {
+                behind(s);
+                return;
+            }
+            out.putShort((short) n);
+            for (int i = from; i < from + n; i++) {
+                int e = s.edits[i];
+                out.putShort((short) (e >>> 16)).putShort((short) e).put(s.editTypes[i]);
+            }
+            NetProtocol.end(out, start);
+        }
+        editsSent += s.editCount;
+        s.editCount = 0;
+
+        int others = 0;
+        for (int i = 0; i < sessions.size(); i++) if (sessions.get(i) != s && inView(s, sessions.get(i))) others++;
+        others = Math.min(others, NetProtocol.MAX_OTHERS);
+        int start = NetProtocol.begin(out, NetProtocol.STATE, NetProtocol.STATE_BYTES + others * NetProtocol.OTHER_BYTES);
+        if (start < 0) {
+            behind(s);
+            return;
+        }
+        out.putLong(state.tick).putFloat(s.player.x()).putFloat(s.player.y()).put((byte) s.player.selectedIndex()).put((byte) others);
+        for (int i = 0, written = 0; i < sessions.size() && written < others; i++) {
+            Session o = sessions.get(i);
+            if (o == s || !inView(s, o)) continue;
+            out.putInt(o.id).putFloat(o.player.x()).putFloat(o.player.y());
+            written++;
+        }
+        NetProtocol.end(out, start);
+    }
+
+    private static boolean inView(Session s, Session o) {
+        return o.hello && s.watches((int) o.player.x() >> Chunk.SHIFT, (int) o.player.y() >> Chunk.SHIFT);
+    }
+
+    private void flush(Session s) {
+        ByteBuffer out = s.out.flip();
+        try {
+            bytesSent += s.channel.write(out);
+        } catch (IOException e) {
+            s.out.clear();
+            drop(s);
+            return;
+        }
+        out.compact();
+        if (s.key.isValid()) {
+            s.key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /** The client is not reading fast enough to keep up; it can reconnect and get a fresh copy. */
+    private static void behind(Session s) {
+        s.out.clear();
+        s.behind = true;
+        s.hello = false; // nothing more is queued for it
+    }
+
+    private void drop(Session s) {
+        s.key.cancel();
+        try {
+            s.channel.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        sessions.remove(s);
+        s.player.inventory().removeListener(s);
+    }
+}
@@ -1,6 +1,6 @@
 package blockcraft;
 
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /** game state */
 public final class GameState {
@@ -14,15 +14,38 @@ public final class GameState {
             TileType.DIRT, TileType.GRASS, TileType.STONE, TileType.LOG, TileType.PLANKS, TileType.GOLD
     };
 
-    public final Mob mob;
-    public final Random rng;
+    public final MobStore mobs;
+
+    /** distance to the player for mob chasing, kept current by tick() and World edits */
+    public final FlowField flow;
+
+    /** flowing WATER; steps only cells woken by edits */
+    public final WaterSim water;
+
+    /** undo/redo of mine and place; null = no history (nothing is snapshotted) */
+    public EditHistory history = new EditHistory();
+
+    /** workers for the mob think phase; null = run on the simulation thread (same results either way) */
+    public ForkJoinPool mobPool;
+
+    /** tiles around the player kept resident by the simulation itself (rendering streams its own view) */
+    private static final int SIM_RADIUS = 2 * World.CHUNK_SIZE;
+
+    /** flow field half-size in tiles; stays inside SIM_RADIUS so every tile it reads is resident */
+    private static final int FLOW_RADIUS = 48;
+
+    /** FNV-1a starting value for {@link #hash} and {@link #mix} */
+    static final long FNV_BASIS = 0xcbf29ce484222325L;
+
+    /** simulation ticks run so far */
+    public long tick;
 
     public GameState(int w, int h, long seed) {
         this.seed = seed;
         this.world = new World(w, h);
         this.world.generate(seed);
 
-        this.rng = new Random(seed ^ 0x9E3779B97F4A7C15L);
+        this.mobs = new MobStore(16, w, h, seed ^ 0x9E3779B97F4A7C15L);
 
         // spawn player somewhere safe near center
         float px = (w / 2f) + 0.5f;
@@ -47,12 +70,122 @@ public final class GameState {
         }
 
         this.player = new Player(px, py);
+        this.flow = new FlowField(world, FLOW_RADIUS);
+        world.addListener(flow);
+        this.water = new WaterSim(world);
+        world.addListener(water);
 
         // mob spawn (same as before)
-        mob = new Mob(player.x() + 6f, player.y());
+        mobs.spawn(player.x() + 6f, player.y());
         syncSelectionToPlayer();
     }
 
+    /** Advances the simulation by one fixed tick, consuming the input's one-shot actions. */
+    public void tick(TickInput in, float dt) {
+        player.beginTick();
+        mobs.beginTick();
+
+        int px = (int) player.x(), py = (int) player.y();
+        world.stream(px - SIM_RADIUS, py - SIM_RADIUS, px + SIM_RADIUS, py + SIM_RADIUS);
+
+        if (in.select >= 0) setSelectedIndex(in.select);
+
+        if (in.moveX != 0 || in.moveY != 0) {
+            player.move(world, in.moveX, in.moveY, dt);
+        }
+
+        flow.update((int) Math.floor(player.x()), (int) Math.floor(player.y()));
+        mobs.update(world, dt, player, flow, mobPool);
+
+        if (history != null && in.undo) history.undo(this);
+        if (history != null && in.redo) history.redo(this);
+        if (in.mine) mine(in.mineX, in.mineY);
+        if (in.place) place(in.placeX, in.placeY);
+        in.clearActions();
+
+        water.tick();
+
+        tick++;
+    }
+
+    /** Mines a tile within reach and sight into the inventory. */
+    public boolean mine(int tx, int ty) {
+        return mine(player, tx, ty);
+    }
+
+    /** Mines a tile within {@code p}'s reach and sight into p's inventory (a server runs one Player per client). */
+    public boolean mine(Player p, int tx, int ty) {
+        if (!p.canReach(world, tx, ty)) return false;
+
+        TileType t = world.get(tx, ty);
+        if (t == TileType.AIR) return false;
+        if (!t.mineable) return false;
+
+        if (history != null && p == player) history.record(this);
+        world.set(tx, ty, TileType.AIR);
+        p.inventory().add(t, 1);
+        return true;
+    }
+
+    /** Places the selected tile into an empty spot within reach and sight. */
+    public boolean place(int tx, int ty) {
+        return place(player, tx, ty);
+    }
+
+    /** Places {@code p}'s selected hotbar tile from p's inventory into an empty spot within its reach and sight. */
+    public boolean place(Player p, int tx, int ty) {
+        if (!p.canReach(world, tx, ty)) return false;
+
+        TileType cur = world.get(tx, ty);
+        if (cur != TileType.AIR) return false;
+
+        TileType place = hotbar[p.selectedIndex()];
+        if (place == TileType.AIR) return false;
+
+        if (p.inventory().get(place) < 1) return false;
+        if (history != null && p == player) history.record(this);
+        p.inventory().take(place, 1);
+        world.set(tx, ty, place);
+        return true;
+    }
+
+    /**
+     * FNV-1a over what the simulation has decided so far: tick, player, selection, inventory, mobs
+     * and the tiles of every edited chunk (the rest regenerates from the seed). Equal states hash equal,
+     * so a replay compares one long instead of two worlds.
+     */
+    public long hash() {
+        long h = FNV_BASIS;
+        h = mix(h, tick);
+        h = mix(h, Float.floatToIntBits(player.x()));
+        h = mix(h, Float.floatToIntBits(player.y()));
+        h = mix(h, selectedIndex);
+        for (TileType t : TileType.BY_ORDINAL) h = mix(h, player.inventory().get(t));
+        for (int s = 0; s < mobs.size(); s++) {
+            h = mix(h, mobs.idAt(s));
+            h = mix(h, Float.floatToIntBits(mobs.xAt(s)));
+            h = mix(h, Float.floatToIntBits(mobs.yAt(s)));
+        }
+        for (Chunk c : world.chunks()) {
+            if (c == null || !c.modified) continue;
+            h = mix(h, c.cx);
+            h = mix(h, c.cy);
+            h = mixTiles(h, c.tiles);
+        }
+        return h;
+    }
+
+    /** One FNV-1a step: folds {@code v} into {@code h}. */
+    static long mix(long h, long v) {
+        return (h ^ v) * 0x100000001b3L;
+    }
+
+    /** Folds every tile ordinal of a chunk into {@code h}, in index order. */
+    static long mixTiles(long h, TileStorage tiles) {
+        for (int i = 0; i < TileStorage.TILES; i++) h = mix(h, tiles.get(i));
+        return h;
+    }
+
     public TileType selectedTile() {
         return hotbar[Math.max(0, Math.min(hotbar.length - 1, selectedIndex))];
     }
@@ -0,0 +1,214 @@
+package blockcraft;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+import java.util.Arrays;
+
+/**
+ * Screen-space UI: title bar, save status, hotbar, help box and the performance overlay box.
+ *
+ * Text is laid out into BitmapFontCaches and laid out again only when it changes:
+ * - title and help on resize
+ * - the status line when SaveManager reports a different string
+ * - a hotbar slot when its count changes (the Inventory tells us) or it gains or loses the selection
+ * - the overlay when the caller refreshed its lines
+ * A frame where nothing changed draws each cache's glyph quads as they are: no glyph lookups, no layout.
+ *
+ * Game thread only. The Inventory is followed like the lit World: a load swaps in a new one.
+ */
+final class Hud implements InventoryListener {
+
+    private static final String[] SLOT_KEYS = {"1", "2", "3", "4", "5", "6", "7", "8", "9"};
+    private static final String TITLE =
+            "BlockCraft 2D  |  WASD move  |  LMB mine  RMB place  |  F5 save  F9 load  |  H help";
+    private static final String[] HELP = {
+            "Help",
+            "- Move: WASD",
+            "- Mine: Left Mouse (within reach)",
+            "- Place: Right Mouse (uses selected block)",
+            "- Select: 1..6 or mouse wheel",
+            "- Save/Load: F5 / F9",
+            "- Undo/Redo edits: Ctrl+Z / Ctrl+Y",
+            "- Toggle this help: H",
+            "- Performance overlay: F3 (F12 exports CSV)",
+            "- Renderer: F4 (tilemap shader / chunk meshes)",
+            "- Quit: ESC",
+    };
+    private static final Color SELECTED = new Color(1f, 0.9f, 0.4f, 1f);
+    private static final int SLOT_PX = 64;
+
+    private final Texture white;
+    private final BitmapFontCache title;
+    private final BitmapFontCache help;
+    private final BitmapFontCache status;
+    private final BitmapFontCache stats;
+    private final BitmapFontCache[] slots = new BitmapFontCache[SLOT_KEYS.length];
+    private final StringBuilder label = new StringBuilder(12);
+
+    private float width = -1;
+    private float height = -1;
+    private String shownStatus;
+    private Inventory inventory;
+    private TileType[] hotbar;
+    private int shownSelected = -1;
+    private final boolean[] slotStale = new boolean[SLOT_KEYS.length];
+    private boolean statsStale = true;
+
+    /** Times a cache was laid out (shown on the overlay); flat while the HUD does not change. */
+    private long layouts;
+
+    Hud(BitmapFont font, Texture white) {
+        this.white = white;
+        title = new BitmapFontCache(font);
+        help = new BitmapFontCache(font);
+        status = new BitmapFontCache(font);
+        stats = new BitmapFontCache(font);
+        for (int i = 0; i < slots.length; i++) slots[i] = new BitmapFontCache(font);
+    }
+
+    @Override
+    public void countChanged(TileType t, int count) {
+        if (hotbar == null) return;
+        for (int i = 0; i < hotbar.length; i++) if (hotbar[i] == t) slotStale[i] = true;
+    }
+
+    /** Caches laid out so far. */
+    long layouts() { return layouts; }
+
+    /** Everything but the overlay box; call between batch.begin() and end() with a screen projection. */
+    void draw(SpriteBatch batch, GameState state, SaveManager saves, float w, float h, boolean showHelp) {
+        follow(state);
+        if (w != width || h != height) {
+            width = w;
+            height = h;
+            layoutFixed();
+            shownStatus = null;
+            shownSelected = -1;
+            statsStale = true;
+        }
+
+        // background panel
+        batch.setColor(0f, 0f, 0f, 0.30f);
+        batch.draw(white, 10, h - 160, 420, 150);
+        batch.setColor(1, 1, 1, 1);
+        title.draw(batch);
+
+        // save/load status
+        String s = saves.status();
+        if (s != shownStatus) {
+            shownStatus = s;
+            status.setText(s, 20, h - 50);
+            layouts++;
+        }
+        status.draw(batch);
+        if (saves.busy()) {
+            batch.setColor(1f, 1f, 1f, 0.25f);
+            batch.draw(white, 20, h - 70, 200, 6);
+            batch.setColor(1f, 1f, 1f, 0.9f);
+            batch.draw(white, 20, h - 70, 200 * saves.progress(), 6);
+            batch.setColor(1, 1, 1, 1);
+        }
+
+        drawHotbar(batch, state, w);
+
+        if (showHelp) {
+            batch.setColor(0, 0, 0, 0.30f);
+            batch.draw(white, 10, h - 456, 420, 286);
+            batch.setColor(1, 1, 1, 1);
+            help.draw(batch);
+        }
+    }
+
+    /**
+     * The performance overlay, top right. {@code refreshed}: the lines changed since the last call,
+     * so they are laid out again; otherwise the cached glyphs are drawn.
+     */
+    void drawStats(SpriteBatch batch, CharSequence[] lines, boolean refreshed) {
+        float boxW = 470, boxH = 24 + lines.length * 22;
+        float bx = width - boxW - 10, by = height - boxH - 10;
+        if (refreshed || statsStale) {
+            statsStale = false;
+            stats.clear();
+            for (int i = 0; i < lines.length; i++) stats.addText(lines[i], bx + 12, by + boxH - 12 - i * 22);
+            layouts++;
+        }
+        batch.setColor(0f, 0f, 0f, 0.45f);
+        batch.draw(white, bx, by, boxW, boxH);
+        batch.setColor(1, 1, 1, 1);
+        stats.draw(batch);
+    }
+
+    private void drawHotbar(SpriteBatch batch, GameState state, float w) {
+        float barY = 20;
+        float barX = (w - (hotbar.length * SLOT_PX)) / 4f;
+        int selected = state.selectedIndex;
+        if (selected != shownSelected) {
+            if (shownSelected >= 0 && shownSelected < slotStale.length) slotStale[shownSelected] = true;
+            if (selected >= 0 && selected < slotStale.length) slotStale[selected] = true;
+            shownSelected = selected;
+        }
+        for (int i = 0; i < hotbar.length; i++) {
+            TileType t = hotbar[i];
+            float x = barX + i * SLOT_PX;
+
+            // slot bg
+            batch.setColor(0, 0, 0, 0.55f);
+            batch.draw(white, x, barY, 58, 58);
+
+            // tile color
+            batch.setColor(t.r, t.g, t.b, 1f);
+            batch.draw(white, x + 8, barY + 8, 42, 42);
+
+            // selection border
+            if (i == selected) {
+                batch.setColor(1f, 1f, 1f, 0.9f);
+                batch.draw(white, x, barY + 56, 58, 2);
+                batch.draw(white, x, barY, 58, 2);
+                batch.draw(white, x, barY, 2, 58);
+                batch.draw(white, x + 56, barY, 2, 58);
+            }
+            batch.setColor(1, 1, 1, 1);
+
+            // key + count
+            if (slotStale[i]) layoutSlot(i, x, barY, t, i == selected);
+            slots[i].draw(batch);
+        }
+    }
+
+    private void layoutSlot(int i, float x, float barY, TileType t, boolean selected) {
+        slotStale[i] = false;
+        BitmapFontCache c = slots[i];
+        c.clear();
+        c.setColor(selected ? SELECTED : Color.WHITE);
+        c.addText(SLOT_KEYS[i], x + 4, barY + 14);
+        label.setLength(0);
+        label.append('x').append(inventory.get(t));
+        c.addText(label, x + 28, barY + 14);
+        layouts++;
+    }
+
+    private void layoutFixed() {
+        title.setText(TITLE, 20, height - 25);
+        help.clear();
+        float top = height - 456 + 286;
+        help.addText(HELP[0], 22, top - 12);
+        for (int i = 1; i < HELP.length; i++) help.addText(HELP[i], 22, top - 18 - i * 22);
+        layouts += 2;
+        Arrays.fill(slotStale, true); // the hotbar is centred on the width
+    }
+
+    /** Listens to the state's Inventory; a swapped-in state gets every slot laid out again. */
+    private void follow(GameState state) {
+        Inventory inv = state.player.inventory();
+        if (inv == inventory && state.hotbar == hotbar) return;
+        if (inventory != null) inventory.removeListener(this);
+        inventory = inv;
+        hotbar = state.hotbar;
+        inv.addListener(this);
+        Arrays.fill(slotStale, true);
+    }
+}
@@ -0,0 +1,160 @@
+package blockcraft;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Records every tick's TickInput from a fresh GameState, so the session can be replayed headless
+ * (InputReplay, gradle replay) and end in the same state.
+ * - the header holds the world size, seed and tick length: that plus the inputs is the whole run
+ * - a tick is one byte when the keys are -1/0/1 and nothing is clicked; ticks that repeat the previous
+ *   movement with no action collapse into one run record, so idling or walking costs almost nothing
+ * - every {@link #CHECK_TICKS} ticks, and at the end, GameState.hash() is written; replay compares them
+ *   and reports the first tick that diverged. The file is flushed there too, so a crash keeps a prefix.
+ *
+ * Format (big-endian): "BCR1", int width, int height, long seed, float tick length, then records:
+ *   0x00..0x7F  one tick; bits 0-1 moveX, bits 2-3 moveY (0 = -1, 1 = 0, 2 = +1, 3 = float follows),
+ *               bit 4 mine (int x, int y), bit 5 place (int x, int y), bit 6 select (byte);
+ *               the floats come first, then the actions in that order
+ *   0xFF varint n             n more ticks with the previous movement and no action
+ *   0xFC / 0xFB               the next tick also undoes / redoes
+ *   0xFE long tick, long hash checkpoint after that tick
+ *   0xFD long tick, long hash end of the recording
+ *
+ * Simulation thread only; allocates nothing per tick.
+ */
+public final class InputRecorder implements AutoCloseable {
+
+    static final byte[] MAGIC = { 'B', 'C', 'R', '1' };
+    static final int RUN = 0xFF;
+    static final int CHECK = 0xFE;
+    static final int END = 0xFD;
+    static final int UNDO = 0xFC;
+    static final int REDO = 0xFB;
+
+    static final int MOVE_FLOAT = 3;
+    static final int MINE = 1 << 4;
+    static final int PLACE = 1 << 5;
+    static final int SELECT = 1 << 6;
+
+    /** ticks between hash checkpoints (10 s of play) */
+    public static final int CHECK_TICKS = 600;
+
+    private final DataOutputStream out;
+    private int lastMove = -1; // move bits of the last tick written, -1 = none yet
+    private int run;
+    private long ticks;
+
+    /** Starts a recording of {@code s}, which must not have ticked yet. */
+    public InputRecorder(String file, GameState s, float step) {
+        if (s.tick != 0) throw new IllegalArgumentException("recording must start from a fresh GameState, not tick " + s.tick);
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            out.write(MAGIC);
+            out.writeInt(s.world.width);
+            out.writeInt(s.world.height);
+            out.writeLong(s.seed);
+            out.writeFloat(step);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not start recording " + file, e);
+        }
+    }
+
+    /** Records {@code in}, then runs the tick (which consumes in's actions). */
+    public void tick(GameState s, TickInput in, float dt) {
+        try {
+            write(in);
+            s.tick(in, dt);
+            ticks++;
+            if (ticks % CHECK_TICKS == 0) {
+                mark(CHECK, s);
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("recording failed", e);
+        }
+    }
+
+    /** Ticks recorded so far. */
+    public long ticks() { return ticks; }
+
+    /** Ends the recording with {@code s}'s final hash; {@code s} must be the state that was recorded. */
+    public void finish(GameState s) {
+        try {
+            mark(END, s);
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("recording failed", e);
+        }
+    }
+
+    /** Closes without an end record (replay then only checks the checkpoints). */
+    @Override
+    public void close() {
+        try {
+            flushRun();
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("recording failed", e);
+        }
+    }
+
+    private void write(TickInput in) throws IOException {
+        int move = moveCode(in.moveX) | (moveCode(in.moveY) << 2);
+        boolean floats = (move & MOVE_FLOAT) == MOVE_FLOAT || (move >> 2) == MOVE_FLOAT;
+        if (!in.mine && !in.place && in.select < 0 && !in.undo && !in.redo && !floats && move == lastMove) {
+            run++;
+            return;
+        }
+        flushRun();
+        if (in.undo) out.writeByte(UNDO);
+        if (in.redo) out.writeByte(REDO);
+        int op = move;
+        if (in.mine) op |= MINE;
+        if (in.place) op |= PLACE;
+        if (in.select >= 0) op |= SELECT;
+        out.writeByte(op);
+        if ((move & MOVE_FLOAT) == MOVE_FLOAT) out.writeFloat(in.moveX);
+        if ((move >> 2) == MOVE_FLOAT) out.writeFloat(in.moveY);
+        if (in.mine) {
+            out.writeInt(in.mineX);
+            out.writeInt(in.mineY);
+        }
+        if (in.place) {
+            out.writeInt(in.placeX);
+            out.writeInt(in.placeY);
+        }
+        if (in.select >= 0) out.writeByte(in.select);
+        lastMove = floats ? -1 : move;
+    }
+
+    private void mark(int kind, GameState s) throws IOException {
+        flushRun();
+        out.writeByte(kind);
+        out.writeLong(s.tick);
+        out.writeLong(s.hash());
+    }
+
+    private void flushRun() throws IOException {
+        if (run == 0) return;
+        out.writeByte(RUN);
+        for (int v = run; ; v >>>= 7) {
+            if ((v & ~0x7F) == 0) {
+                out.writeByte(v);
+                break;
+            }
+            out.writeByte((v & 0x7F) | 0x80);
+        }
+        run = 0;
+    }
+
+    private static int moveCode(float v) {
+        if (v == -1f) return 0;
+        if (v == 0f) return 1;
+        if (v == 1f) return 2;
+        return MOVE_FLOAT;
+    }
+}
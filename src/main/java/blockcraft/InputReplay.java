@@ -0,0 +1,124 @@
+package blockcraft;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays back a recording made by InputRecorder on a fresh GameState, as fast as the simulation goes.
+ * - {@link #newState} builds the state the recording started from
+ * - {@link #next} fills a TickInput per tick and verifies every checkpoint it passes: the first hash
+ *   that differs throws, naming the tick, so a desync is caught within {@link InputRecorder#CHECK_TICKS}
+ *   ticks of where it happened
+ *
+ * The simulation reads chunks that are not resident as the generator makes them (World.peek), so a replay
+ * matches exactly whatever the recorded view streamed and however large either chunk cache is.
+ */
+public final class InputReplay {
+
+    public final int width;
+    public final int height;
+    public final long seed;
+    public final float step;
+
+    private final ByteBuffer buf;
+    private float moveX;
+    private float moveY;
+    private int run;
+    private int checks;
+    private boolean ended;
+
+    public InputReplay(String file) {
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(Path.of(file)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not read recording " + file, e);
+        }
+        for (byte m : InputRecorder.MAGIC) {
+            if (buf.remaining() == 0 || buf.get() != m) throw new IllegalArgumentException(file + " is not an input recording");
+        }
+        width = buf.getInt();
+        height = buf.getInt();
+        seed = buf.getLong();
+        step = buf.getFloat();
+    }
+
+    /** The state the recording started from. */
+    public GameState newState() {
+        return new GameState(width, height, seed);
+    }
+
+    /**
+     * Fills {@code in} with the next tick's input, first checking any checkpoint recorded for the ticks
+     * {@code s} has run. Returns false once the recording is over (or cut short by a crash).
+     */
+    public boolean next(GameState s, TickInput in) {
+        if (run > 0) {
+            run--;
+            in.moveX = moveX;
+            in.moveY = moveY;
+            return true;
+        }
+        while (buf.hasRemaining()) {
+            int op = buf.get() & 0xFF;
+            switch (op) {
+                case InputRecorder.RUN -> {
+                    run = readVarint() - 1;
+                    in.moveX = moveX;
+                    in.moveY = moveY;
+                    return true;
+                }
+                case InputRecorder.UNDO -> in.undo = true;
+                case InputRecorder.REDO -> in.redo = true;
+                case InputRecorder.CHECK, InputRecorder.END -> {
+                    check(s, buf.getLong(), buf.getLong());
+                    if (op == InputRecorder.END) {
+                        ended = true;
+                        return false;
+                    }
+                }
+                default -> {
+                    moveX = move(op & 3);
+                    moveY = move((op >> 2) & 3);
+                    in.moveX = moveX;
+                    in.moveY = moveY;
+                    if ((op & InputRecorder.MINE) != 0) in.mine(buf.getInt(), buf.getInt());
+                    if ((op & InputRecorder.PLACE) != 0) in.place(buf.getInt(), buf.getInt());
+                    if ((op & InputRecorder.SELECT) != 0) in.select = buf.get();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Checkpoints verified so far (the end record included). */
+    public int checks() { return checks; }
+
+    /** Whether the recording was finished properly rather than cut off. */
+    public boolean ended() { return ended; }
+
+    private void check(GameState s, long tick, long hash) {
+        if (s.tick != tick) throw new IllegalStateException("recording checks tick " + tick + " but the replay is at " + s.tick);
+        long got = s.hash();
+        if (got != hash) {
+            throw new IllegalStateException(String.format("desync by tick %d: state hash %016x, recorded %016x", tick, got, hash));
+        }
+        checks++;
+    }
+
+    private float move(int code) {
+        return code == InputRecorder.MOVE_FLOAT ? buf.getFloat() : code - 1;
+    }
+
+    private int readVarint() {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
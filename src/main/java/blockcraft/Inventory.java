@@ -1,11 +1,13 @@
 package blockcraft;
 
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 
-/** hotbar-style inventory */
+/** hotbar-style inventory; counts are a plain int per TileType ordinal, so add/take/get never allocate; listeners hear every change */
 public final class Inventory {
-    private final EnumMap<TileType, Integer> counts = new EnumMap<>(TileType.class);
+    private final int[] counts = new int[TileType.BY_ORDINAL.length];
+    private InventoryListener[] listeners = new InventoryListener[0];
 
     public Inventory() {
         add(TileType.DIRT, 25);
@@ -18,24 +20,56 @@ public final class Inventory {
     }
 
     public int get(TileType t) {
-        return counts.getOrDefault(t, 0);
+        return counts[t.ordinal()];
     }
 
     public void add(TileType t, int amount) {
         if (amount <= 0) return;
-        counts.put(t, get(t) + amount);
+        counts[t.ordinal()] += amount;
+        changed(t);
     }
 
     public boolean take(TileType t, int amount) {
         int have = get(t);
         if (have < amount) return false;
-        int left = have - amount;
-        if (left == 0) counts.remove(t);
-        else counts.put(t, left);
+        counts[t.ordinal()] = have - amount;
+        changed(t);
         return true;
     }
 
+    /** Sets a count outright (journal replay). */
+    public void set(TileType t, int count) {
+        if (counts[t.ordinal()] == count) return;
+        counts[t.ordinal()] = Math.max(0, count);
+        changed(t);
+    }
+
+    public void addListener(InventoryListener l) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = l;
+    }
+
+    public void removeListener(InventoryListener l) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] != l) continue;
+            InventoryListener[] out = new InventoryListener[listeners.length - 1];
+            System.arraycopy(listeners, 0, out, 0, i);
+            System.arraycopy(listeners, i + 1, out, i, out.length - i);
+            listeners = out;
+            return;
+        }
+    }
+
+    private void changed(TileType t) {
+        for (InventoryListener l : listeners) l.countChanged(t, counts[t.ordinal()]);
+    }
+
+    /** Non-zero counts only (what saves write). */
     public Map<TileType, Integer> snapshot() {
-        return new EnumMap<>(counts);
+        EnumMap<TileType, Integer> out = new EnumMap<>(TileType.class);
+        for (TileType t : TileType.BY_ORDINAL) {
+            if (counts[t.ordinal()] > 0) out.put(t, counts[t.ordinal()]);
+        }
+        return out;
     }
 }
@@ -0,0 +1,6 @@
+package blockcraft;
+
+/** Told about every count change of an Inventory, right after it happens. */
+public interface InventoryListener {
+    void countChanged(TileType t, int count);
+}
@@ -0,0 +1,287 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+/**
+ * Tile light levels 0..MAX_LEVEL: sky light from above plus emissive tiles, spread by BFS flood fill
+ * (one level lost per step, stopped by solid tiles).
+ * - levels live in Chunk.light, one byte per tile, filled when a resident chunk is first lit and
+ *   dropped along with the chunk when it is evicted
+ * - sky: an open tile with no solid tile in the SKY_SHADOW tiles straight above it is a MAX_LEVEL
+ *   source (sky is at low y in this world); the limit keeps the many small floating stone clusters from
+ *   darkening every column below them, and keeps the effect of an edit local
+ * - World.set edits are queued by the listener and relit by {@link #update}: a removal BFS clears the
+ *   light that depended on the changed tile, then an add BFS refills it from whatever survived, so only
+ *   the affected neighbourhood is touched
+ * - only lit chunks hold levels; light stops at an unlit chunk and is pulled in once it gets lit
+ *
+ * Threading: update() may run on a background thread while nothing modifies the World or streams
+ * chunks; renderers may read levels at the same time (at worst one frame shows a half-done relight).
+ * Chunk.light and Chunk.lightVersion are volatile and written in that order, so a renderer that reads
+ * the version before the levels never sees a newer version with older levels, or an unfilled chunk.
+ * The listener runs on the thread calling World.set and must not overlap update().
+ */
+public final class LightEngine implements WorldListener {
+    public static final int MAX_LEVEL = 15;
+
+    /** how far straight down a solid tile blocks sky light */
+    static final int SKY_SHADOW = 24;
+
+    /** brightness of a level-0 tile, so unlit caves still read as terrain */
+    private static final float MIN_BRIGHTNESS = 0.12f;
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private final World world;
+
+    // edits queued by the listener
+    private int[] editX = new int[64];
+    private int[] editY = new int[64];
+    private int editCount;
+
+    // BFS queues of packed tile positions (y * width + x); removal also keeps the cleared level
+    private int[] addQueue = new int[1024];
+    private int addCount;
+    private int[] removeQueue = new int[1024];
+    private int[] removeLevel = new int[1024];
+    private int removeCount;
+
+    /** tiles whose level was written by the last update (for benchmarks/overlays) */
+    private int touched;
+
+    public LightEngine(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public void tileChanged(int x, int y, TileType before, TileType after) {
+        if (before.solid == after.solid && before.emission == after.emission) return;
+        if (editCount == editX.length) {
+            editX = Arrays.copyOf(editX, editCount * 2);
+            editY = Arrays.copyOf(editY, editCount * 2);
+        }
+        editX[editCount] = x;
+        editY[editCount++] = y;
+    }
+
+    /** Relights queued edits, then lights every resident chunk in the tile rectangle that is not lit yet. */
+    public void update(int minX, int minY, int maxX, int maxY) {
+        touched = 0;
+        for (int i = 0; i < editCount; i++) relight(editX[i], editY[i]);
+        editCount = 0;
+
+        Chunk[] chunks = world.chunks();
+        int minCx = Math.max(0, minX >> Chunk.SHIFT), maxCx = Math.min(world.chunksX() - 1, maxX >> Chunk.SHIFT);
+        int minCy = Math.max(0, minY >> Chunk.SHIFT), maxCy = Math.min(world.chunksY() - 1, maxY >> Chunk.SHIFT);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                Chunk c = chunks[cy * world.chunksX() + cx];
+                if (c != null && c.light == null) lightChunk(c);
+            }
+        }
+    }
+
+    public int touched() { return touched; }
+
+    /** Stored level, or MAX_LEVEL where nothing is lit (so an unlit world draws at full brightness). */
+    public static int level(World world, int x, int y) {
+        if (!world.inBounds(x, y)) return 0;
+        Chunk c = world.chunks()[(y >> Chunk.SHIFT) * world.chunksX() + (x >> Chunk.SHIFT)];
+        byte[] light = c != null ? c.light : null; // one volatile read
+        if (light == null) return MAX_LEVEL;
+        return light[((y & Chunk.MASK) << Chunk.SHIFT) | (x & Chunk.MASK)];
+    }
+
+    /**
+     * Color multiplier for drawing tile (x, y). Solid tiles hold no light of their own, so they show
+     * the brightest of their open neighbors (a lit surface, dark rock behind it).
+     */
+    public static float brightness(World world, int x, int y, boolean solid) {
+        int l = level(world, x, y);
+        if (solid) {
+            for (int d = 0; d < 4; d++) l = Math.max(l, level(world, x + DX[d], y + DY[d]));
+        }
+        return MIN_BRIGHTNESS + (1f - MIN_BRIGHTNESS) * l / MAX_LEVEL;
+    }
+
+    private void lightChunk(Chunk c) {
+        byte[] light = new byte[TileStorage.TILES]; // filled before renderers can see it
+        int x0 = c.cx << Chunk.SHIFT, y0 = c.cy << Chunk.SHIFT;
+
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            int x = x0 + lx;
+            if (x >= world.width) break;
+            // open tiles straight above the current one, capped at SKY_SHADOW
+            int run = 0;
+            while (run < SKY_SHADOW && y0 - run - 1 >= 0 && !world.peek(x, y0 - run - 1).solid) run++;
+
+            for (int ly = 0; ly < Chunk.SIZE; ly++) {
+                int y = y0 + ly;
+                if (y >= world.height) break;
+                TileType t = c.get(lx, ly);
+                int src = t.solid ? t.emission : (run == SKY_SHADOW || run == y) ? MAX_LEVEL : t.emission;
+                run = t.solid ? 0 : Math.min(run + 1, SKY_SHADOW);
+                if (src == 0) continue;
+                light[(ly << Chunk.SHIFT) | lx] = (byte) src;
+                pushAdd(x, y);
+            }
+        }
+        c.light = light;
+        // pull light across the borders from lit neighbors
+        for (int i = 0; i < Chunk.SIZE; i++) {
+            pushIfLit(x0 - 1, y0 + i);
+            pushIfLit(x0 + Chunk.SIZE, y0 + i);
+            pushIfLit(x0 + i, y0 - 1);
+            pushIfLit(x0 + i, y0 + Chunk.SIZE);
+        }
+        touched += TileStorage.TILES;
+        c.lightVersion++;
+        // neighbors' border tiles read this chunk's levels (as MAX_LEVEL while it was unlit)
+        bump(x0 - 1, y0);
+        bump(x0 + Chunk.SIZE, y0);
+        bump(x0, y0 - 1);
+        bump(x0, y0 + Chunk.SIZE);
+        propagate();
+    }
+
+    private void pushIfLit(int x, int y) {
+        Chunk n = litChunk(x, y);
+        if (n != null && n.light[local(x, y)] > 1) pushAdd(x, y);
+    }
+
+    /**
+     * Removal then add BFS around a changed tile. The tile and the SKY_SHADOW tiles below it may have
+     * gained or lost sky, so all of them are cleared and then re-seeded from their sources.
+     */
+    private void relight(int x, int y) {
+        int last = Math.min(world.height - 1, y + SKY_SHADOW);
+        for (int yy = y; yy <= last; yy++) clear(x, yy);
+        propagateRemovals();
+
+        for (int yy = y; yy <= last; yy++) {
+            Chunk c = litChunk(x, yy);
+            if (c == null) continue;
+            TileType t = c.get(x & Chunk.MASK, yy & Chunk.MASK);
+            int src = sourceLevel(t, x, yy);
+            if (src > c.light[local(x, yy)]) {
+                setLevel(c, x, yy, src);
+                pushAdd(x, yy);
+            }
+        }
+        // the changed tile may now let neighbors' light through
+        if (!world.peek(x, y).solid) {
+            for (int d = 0; d < 4; d++) pushIfLit(x + DX[d], y + DY[d]);
+        }
+        propagate();
+    }
+
+    /** Zeroes a lit tile and queues it for the removal BFS with the level it had. */
+    private void clear(int x, int y) {
+        Chunk c = litChunk(x, y);
+        if (c == null) return;
+        int l = c.light[local(x, y)];
+        if (l == 0) return;
+        setLevel(c, x, y, 0);
+        pushRemove(x, y, l);
+    }
+
+    private void propagateRemovals() {
+        int w = world.width;
+        for (int k = 0; k < removeCount; k++) {
+            int p = removeQueue[k], l = removeLevel[k];
+            int x = p % w, y = p / w;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                Chunk n = litChunk(nx, ny);
+                if (n == null) continue;
+                int nl = n.light[local(nx, ny)];
+                if (nl == 0) continue;
+                if (nl < l) {
+                    setLevel(n, nx, ny, 0);
+                    pushRemove(nx, ny, nl);
+                    int src = sourceLevel(n.get(nx & Chunk.MASK, ny & Chunk.MASK), nx, ny);
+                    if (src > 0) {
+                        setLevel(n, nx, ny, src);
+                        pushAdd(nx, ny);
+                    }
+                } else {
+                    pushAdd(nx, ny);
+                }
+            }
+        }
+        removeCount = 0;
+    }
+
+    private void propagate() {
+        int w = world.width;
+        for (int k = 0; k < addCount; k++) {
+            int p = addQueue[k];
+            int x = p % w, y = p / w;
+            Chunk c = litChunk(x, y);
+            if (c == null) continue;
+            int l = c.light[local(x, y)] - 1;
+            if (l <= 0) continue;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], ny = y + DY[d];
+                Chunk n = litChunk(nx, ny);
+                if (n == null) continue;
+                int i = local(nx, ny);
+                if (n.light[i] >= l || n.get(nx & Chunk.MASK, ny & Chunk.MASK).solid) continue;
+                setLevel(n, nx, ny, l);
+                pushAdd(nx, ny);
+            }
+        }
+        addCount = 0;
+    }
+
+    private int sourceLevel(TileType t, int x, int y) {
+        if (t.solid) return t.emission;
+        for (int k = 1; k <= SKY_SHADOW && y - k >= 0; k++) {
+            if (world.peek(x, y - k).solid) return t.emission;
+        }
+        return MAX_LEVEL;
+    }
+
+    private Chunk litChunk(int x, int y) {
+        if (!world.inBounds(x, y)) return null;
+        Chunk c = world.chunks()[(y >> Chunk.SHIFT) * world.chunksX() + (x >> Chunk.SHIFT)];
+        return c != null && c.light != null ? c : null;
+    }
+
+    /** Writes a level and flags the chunk (and a neighbor when on its border) for redraw. */
+    private void setLevel(Chunk c, int x, int y, int level) {
+        c.light[local(x, y)] = (byte) level;
+        c.lightVersion++;
+        touched++;
+        int lx = x & Chunk.MASK, ly = y & Chunk.MASK;
+        if (lx == 0) bump(x - 1, y);
+        else if (lx == Chunk.MASK) bump(x + 1, y);
+        if (ly == 0) bump(x, y - 1);
+        else if (ly == Chunk.MASK) bump(x, y + 1);
+    }
+
+    private void bump(int x, int y) {
+        if (!world.inBounds(x, y)) return;
+        Chunk n = world.chunks()[(y >> Chunk.SHIFT) * world.chunksX() + (x >> Chunk.SHIFT)];
+        if (n != null) n.lightVersion++;
+    }
+
+    private void pushAdd(int x, int y) {
+        if (addCount == addQueue.length) addQueue = Arrays.copyOf(addQueue, addCount * 2);
+        addQueue[addCount++] = y * world.width + x;
+    }
+
+    private void pushRemove(int x, int y, int level) {
+        if (removeCount == removeQueue.length) {
+            removeQueue = Arrays.copyOf(removeQueue, removeCount * 2);
+            removeLevel = Arrays.copyOf(removeLevel, removeCount * 2);
+        }
+        removeQueue[removeCount] = y * world.width + x;
+        removeLevel[removeCount++] = level;
+    }
+
+    private static int local(int x, int y) {
+        return ((y & Chunk.MASK) << Chunk.SHIFT) | (x & Chunk.MASK);
+    }
+}
@@ -1,63 +1,50 @@
 package blockcraft;
 
-import java.util.Random;
-
+/**
+ * Entity view of one mob in a {@link MobStore}. Holds only the store and an id, so a single
+ * instance can be re-pointed with {@link #bind} to walk many mobs without allocating.
+ */
 public final class Mob implements Entity {
-    private float x, y; // tile coordinates (center)
-    private float moveCooldown = 0f;
+    private final MobStore store;
+    private int id;
+
+    Mob(MobStore store, int id) {
+        this.store = store;
+        this.id = id;
+    }
+
+    public int id() { return id; }
 
-    public Mob(float x, float y) {
-        this.x = x;
-        this.y = y;
+    /** Re-points this view at another mob. */
+    public Mob bind(int id) {
+        this.id = id;
+        return this;
     }
 
     @Override
-    public float x() { return x; }
+    public float x() { return store.x(id); }
+
+    @Override
+    public float y() { return store.y(id); }
+
+    @Override
+    public float prevX() { return store.prevX(id); }
 
     @Override
-    public float y() { return y; }
+    public float prevY() { return store.prevY(id); }
 
     @Override
     public void setPos(float x, float y) {
-        this.x = x;
-        this.y = y;
+        store.setPos(id, x, y);
     }
 
     @Override
     public void update(World world, float dt) {
-        // AI tick is driven externally with a Random for determinism; no-op here.
+        // mobs are updated all at once by MobStore.update; no-op here.
     }
 
     @Override
     public EntityColor color() {
         return EntityColor.MOB;
     }
-
-    public void update(World world, float dt, Random rng, Player player) {
-        moveCooldown -= dt;
-        if (moveCooldown > 0f) return;
-
-        moveCooldown = 0.25f + rng.nextFloat() * 0.25f;
-
-        int dir = rng.nextInt(4);
-        int dx = 0, dy = 0;
-        switch (dir) {
-            case 0 -> dx = 1;
-            case 1 -> dx = -1;
-            case 2 -> dy = 1;
-            case 3 -> dy = -1;
-        }
-
-        int nx = Math.round(x + dx);
-        int ny = Math.round(y + dy);
-
-        if (!world.inBounds(nx, ny)) return;
-        if (world.get(nx, ny).solid) return;
-
-        // don't step into the player
-        if (Math.abs(player.x() - nx) < 0.5f && Math.abs(player.y() - ny) < 0.5f) return;
-
-        x = nx;
-        y = ny;
-    }
 }
@@ -0,0 +1,285 @@
+package blockcraft;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All mobs of a world, stored as parallel primitive arrays (struct of arrays).
+ * - live mobs are packed into slots 0..size-1, so update loops run over dense arrays
+ * - despawn moves the last mob into the freed slot (order is not stable, ids are)
+ * - ids are stable handles while a mob lives; a despawned id is reused by a later spawn
+ * - arrays only grow (doubling), so spawning and despawning allocate nothing in steady state
+ * - every position change also moves the id in a {@link SpatialGrid}, used for mob-vs-mob
+ *   avoidance and by callers for area queries (e.g. which mobs are on screen)
+ * - each mob draws from its own splitmix64 stream, seeded from the store seed and its spawn number,
+ *   so AI results do not depend on update order or thread count (see {@link #update})
+ *
+ * {@link Mob} is an Entity view of one id for code that wants an object.
+ */
+public final class MobStore {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final int SLOTS_PER_TASK = 4096;
+    static final int CHASE_RANGE = 24;
+
+    // per slot
+    private float[] x;
+    private float[] y;
+    private float[] prevX;
+    private float[] prevY;
+    private float[] cooldown;
+    private long[] rng;    // splitmix64 state
+    private int[] target;  // set by the think phase: tile index (y * width + x) to step to, -1 = stay
+    private int[] idOf;
+
+    // per id
+    private int[] slotOf; // -1 = free
+    private int[] freeIds;
+    private int freeCount;
+    private int nextId;
+
+    private int size;
+    private long spawned;
+
+    /** within {@link #CHASE_RANGE} steps of the player: false = walk toward, true = walk away */
+    public boolean flee;
+
+    private final long seed;
+    private final int width;
+    private final SpatialGrid grid;
+
+    /** {@code width}/{@code height}: world size in tiles; {@code seed}: root of every mob's RNG stream. */
+    public MobStore(int capacity, int width, int height, long seed) {
+        capacity = Math.max(1, capacity);
+        this.seed = seed;
+        this.width = width;
+        grid = new SpatialGrid(width, height, capacity);
+        x = new float[capacity];
+        y = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        cooldown = new float[capacity];
+        rng = new long[capacity];
+        target = new int[capacity];
+        idOf = new int[capacity];
+        slotOf = new int[capacity];
+        freeIds = new int[capacity];
+    }
+
+    /** @return the new mob's id */
+    public int spawn(float px, float py) {
+        if (size == x.length) grow();
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        int s = size++;
+        x[s] = px;
+        y[s] = py;
+        prevX[s] = px;
+        prevY[s] = py;
+        cooldown[s] = 0f;
+        rng[s] = WorldGenerator.mix64(seed + spawned++ * GOLDEN);
+        idOf[s] = id;
+        slotOf[id] = s;
+        grid.insert(id, px, py);
+        return id;
+    }
+
+    public void despawn(int id) {
+        int s = slotOf[id];
+        if (s < 0) return;
+        int last = --size;
+        if (s != last) {
+            x[s] = x[last];
+            y[s] = y[last];
+            prevX[s] = prevX[last];
+            prevY[s] = prevY[last];
+            cooldown[s] = cooldown[last];
+            rng[s] = rng[last];
+            idOf[s] = idOf[last];
+            slotOf[idOf[s]] = s;
+        }
+        slotOf[id] = -1;
+        freeIds[freeCount++] = id;
+        grid.remove(id);
+    }
+
+    public boolean alive(int id) {
+        return id >= 0 && id < nextId && slotOf[id] >= 0;
+    }
+
+    public int size() { return size; }
+
+    // slot accessors, for loops over 0..size-1
+
+    public int idAt(int slot) { return idOf[slot]; }
+
+    public float xAt(int slot) { return x[slot]; }
+
+    public float yAt(int slot) { return y[slot]; }
+
+    public float prevXAt(int slot) { return prevX[slot]; }
+
+    public float prevYAt(int slot) { return prevY[slot]; }
+
+    // id accessors
+
+    public float x(int id) { return x[slotOf[id]]; }
+
+    public float y(int id) { return y[slotOf[id]]; }
+
+    public float prevX(int id) { return prevX[slotOf[id]]; }
+
+    public float prevY(int id) { return prevY[slotOf[id]]; }
+
+    /** Teleport: also resets the previous position. */
+    public void setPos(int id, float px, float py) {
+        int s = slotOf[id];
+        x[s] = px;
+        y[s] = py;
+        prevX[s] = px;
+        prevY[s] = py;
+        grid.move(id, px, py);
+    }
+
+    /** Live mob ids by position; query it, but move mobs only through this store. */
+    public SpatialGrid grid() { return grid; }
+
+    /** A new Entity view of {@code id}; reuse one with {@link Mob#bind} in loops. */
+    public Mob view(int id) {
+        return new Mob(this, id);
+    }
+
+    /** Remembers current positions as the start of the next tick. */
+    public void beginTick() {
+        System.arraycopy(x, 0, prevX, 0, size);
+        System.arraycopy(y, 0, prevY, 0, size);
+    }
+
+    /** {@link #update(World, float, Player, FlowField, ForkJoinPool)} on the calling thread. */
+    public void update(World world, float dt, Player player, FlowField flow) {
+        update(world, dt, player, flow, null);
+    }
+
+    /**
+     * Mob AI: after a random 0.25-0.5 s cooldown, each mob takes one step.
+     * - within CHASE_RANGE steps of the player (by {@code flow}, may be null) the step follows the
+     *   flow field toward the player, or away from it when {@link #flee} is set; ties are broken randomly
+     * - otherwise it wanders in a random direction
+     * - steps into solid tiles, out of the world, onto the player or onto another mob are skipped
+     * - terrain comes from {@link World#peekSolid}, which never loads: chunks that are not resident read as the
+     *   generator makes them, so a mob there moves the same whether or not the view streamed its chunk
+     *
+     * Runs in two phases so the result is the same for any {@code pool} (null = calling thread):
+     * - think, split across the pool: cooldowns, RNG draws, terrain and player checks; each mob only
+     *   writes its own slot and reads the World through {@link World#peekSolid}, so no locks are needed
+     * - commit, on the calling thread in slot order: mob-vs-mob checks and moves
+     *
+     * The World must not be modified while this runs.
+     */
+    public void update(World world, float dt, Player player, FlowField flow, ForkJoinPool pool) {
+        if (pool == null || size < 2 * SLOTS_PER_TASK) {
+            think(world, flow, dt, player.x(), player.y(), 0, size);
+        } else {
+            pool.invoke(new ThinkTask(this, world, flow, dt, player.x(), player.y(), 0, size));
+        }
+
+        for (int s = 0; s < size; s++) {
+            int t = target[s];
+            if (t < 0) continue;
+            int nx = t % width, ny = t / width;
+            if (grid.occupied(nx, ny, idOf[s])) continue;
+            x[s] = nx;
+            y[s] = ny;
+            grid.move(idOf[s], nx, ny);
+        }
+    }
+
+    private void think(World world, FlowField flow, float dt, float plx, float ply, int from, int to) {
+        for (int s = from; s < to; s++) {
+            target[s] = -1;
+            float c = cooldown[s] - dt;
+            if (c > 0f) {
+                cooldown[s] = c;
+                continue;
+            }
+            long r = WorldGenerator.mix64(rng[s] += GOLDEN);
+            cooldown[s] = 0.25f + (r >>> 40) * 0x1.0p-24f * 0.25f;
+
+            int mx = Math.round(x[s]), my = Math.round(y[s]);
+            int dir = flow != null ? flowDirection(flow, mx, my, r) : -1;
+            if (dir < 0) dir = (int) (r & 3);
+            int nx = mx + DX[dir], ny = my + DY[dir];
+
+            if (world.peekSolid(nx, ny)) continue;
+            if (Math.abs(plx - nx) < 0.5f && Math.abs(ply - ny) < 0.5f) continue;
+            target[s] = ny * width + nx;
+        }
+    }
+
+    /** Direction (index into DX/DY) one step along the flow field, or -1 to wander. */
+    private int flowDirection(FlowField flow, int mx, int my, long r) {
+        int here = flow.distance(mx, my);
+        if (here > CHASE_RANGE) return -1;
+        int want = flee ? here + 1 : here - 1;
+        int found = 0, pick = -1;
+        for (int d = 0; d < 4; d++) {
+            if (flow.distance(mx + DX[d], my + DY[d]) != want) continue;
+            // reservoir pick among the matching directions, from otherwise unused RNG bits
+            if ((int) ((r >>> (8 + 8 * found)) & 0xFF) % (found + 1) == 0) pick = d;
+            found++;
+        }
+        return pick;
+    }
+
+    private void grow() {
+        int n = x.length * 2;
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        prevX = Arrays.copyOf(prevX, n);
+        prevY = Arrays.copyOf(prevY, n);
+        cooldown = Arrays.copyOf(cooldown, n);
+        rng = Arrays.copyOf(rng, n);
+        target = Arrays.copyOf(target, n);
+        idOf = Arrays.copyOf(idOf, n);
+        slotOf = Arrays.copyOf(slotOf, n);
+        freeIds = Arrays.copyOf(freeIds, n);
+        grid.ensureCapacity(n);
+    }
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /** Think phase over a slot range, halved until small enough. */
+    private static final class ThinkTask extends RecursiveAction {
+        private final MobStore store;
+        private final World world;
+        private final FlowField flow;
+        private final float dt;
+        private final float plx;
+        private final float ply;
+        private final int from;
+        private final int to;
+
+        ThinkTask(MobStore store, World world, FlowField flow, float dt, float plx, float ply, int from, int to) {
+            this.store = store;
+            this.world = world;
+            this.flow = flow;
+            this.dt = dt;
+            this.plx = plx;
+            this.ply = ply;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SLOTS_PER_TASK) {
+                store.think(world, flow, dt, plx, ply, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ThinkTask(store, world, flow, dt, plx, ply, from, mid),
+                    new ThinkTask(store, world, flow, dt, plx, ply, mid, to));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package blockcraft;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between GameServer and GameClient: length-prefixed binary frames over TCP.
+ *
+ * Frame: u16 body length, then the body: u8 type, payload (big-endian).
+ *
+ * Client to server:
+ *   HELLO   int magic "BCN1"
+ *   INPUT   byte flags (MINE, PLACE, SELECT), float moveX, float moveY,
+ *           then int x, int y for mine, int x, int y for place, byte index for select
+ *   VIEW    short minCx, minCy, maxCx, maxCy: the chunks the client wants kept current
+ * Server to client:
+ *   WELCOME int player id, int width, int height, long seed, float tick length, float x, float y
+ *   CHUNK   short cx, short cy, 1024 ordinals: a whole edited chunk, sent once when it comes into view
+ *           (unedited chunks are never sent: the client generates the same tiles from the seed)
+ *   EDITS   u16 n, n times (u16 x, u16 y, byte ordinal): the tick's changes inside the client's view,
+ *           at most MAX_EDITS per frame (a big tick is split over several)
+ *   STATE   long tick, float x, float y, byte selected, u8 n, n times (int id, float x, float y) for
+ *           the other players in view, at most MAX_OTHERS of them
+ *   COUNT   byte ordinal, int count: an inventory count changed
+ *
+ * No frame body is longer than MAX_BODY; the limits above are derived from it so every frame either side
+ * can send is one the other side accepts.
+ *
+ * All helpers work on buffers in write mode (out) or read mode (in) and never allocate.
+ */
+final class NetProtocol {
+
+    static final int MAGIC = 0x42434E31; // "BCN1"
+
+    static final int HELLO = 1;
+    static final int INPUT = 2;
+    static final int VIEW = 3;
+    static final int WELCOME = 10;
+    static final int CHUNK = 11;
+    static final int EDITS = 12;
+    static final int STATE = 13;
+    static final int COUNT = 14;
+
+    static final int MINE = 1;
+    static final int PLACE = 1 << 1;
+    static final int SELECT = 1 << 2;
+
+    /** largest frame body either side sends or accepts */
+    static final int MAX_BODY = 8 << 10;
+    /** body of a CHUNK frame */
+    static final int CHUNK_BODY = 1 + 4 + TileStorage.TILES;
+    /** bytes per entry of an EDITS frame */
+    static final int EDIT_BYTES = 5;
+    /** entries per EDITS frame, so that one fits MAX_BODY */
+    static final int MAX_EDITS = (MAX_BODY - 1 - 2) / EDIT_BYTES;
+    /** bytes per other player in a STATE frame, and before the first */
+    static final int OTHER_BYTES = 12;
+    static final int STATE_BYTES = 1 + 8 + 8 + 1 + 1;
+    /** other players per STATE frame: what a u8 counts, and fits MAX_BODY */
+    static final int MAX_OTHERS = Math.min(0xFF, (MAX_BODY - STATE_BYTES) / OTHER_BYTES);
+
+    private NetProtocol() {}
+
+    /** Starts a frame of {@code type} if {@code bodyBytes} more fit; returns its start, or -1 when full. */
+    static int begin(ByteBuffer out, int type, int bodyBytes) {
+        if (out.remaining() < 2 + bodyBytes) return -1;
+        int start = out.position();
+        out.putShort((short) 0);
+        out.put((byte) type);
+        return start;
+    }
+
+    /** Writes the length of the frame started at {@code start}. */
+    static void end(ByteBuffer out, int start) {
+        out.putShort(start, (short) (out.position() - start - 2));
+    }
+
+    /**
+     * Length of the next complete frame body in {@code in}, with the position moved to the body;
+     * -1 (position unchanged) when the frame has not fully arrived yet.
+     */
+    static int next(ByteBuffer in) {
+        if (in.remaining() < 2) return -1;
+        int len = in.getShort(in.position()) & 0xFFFF;
+        if (in.remaining() < 2 + len) return -1;
+        if (len == 0 || len > MAX_BODY) throw new IllegalStateException("bad frame length " + len);
+        in.position(in.position() + 2);
+        return len;
+    }
+
+    /** Writes one tick of input (movement plus any latched actions) as an INPUT frame. */
+    static boolean writeInput(ByteBuffer out, TickInput in) {
+        int start = begin(out, INPUT, 1 + 1 + 8 + 17);
+        if (start < 0) return false;
+        int flags = (in.mine ? MINE : 0) | (in.place ? PLACE : 0) | (in.select >= 0 ? SELECT : 0);
+        out.put((byte) flags);
+        out.putFloat(in.moveX);
+        out.putFloat(in.moveY);
+        if (in.mine) out.putInt(in.mineX).putInt(in.mineY);
+        if (in.place) out.putInt(in.placeX).putInt(in.placeY);
+        if (in.select >= 0) out.put((byte) in.select);
+        end(out, start);
+        return true;
+    }
+
+    /** Reads an INPUT body into {@code in}: movement replaces, actions are latched until a tick consumes them. */
+    static void readInput(ByteBuffer body, TickInput in) {
+        int flags = body.get();
+        in.moveX = clampMove(body.getFloat());
+        in.moveY = clampMove(body.getFloat());
+        if ((flags & MINE) != 0) in.mine(body.getInt(), body.getInt());
+        if ((flags & PLACE) != 0) in.place(body.getInt(), body.getInt());
+        if ((flags & SELECT) != 0) in.select = body.get() & 0xFF;
+    }
+
+    /** Movement is a direction; anything else from the wire (NaN, huge values) becomes a valid one. */
+    private static float clampMove(float v) {
+        return v > 0 ? Math.min(v, 1f) : v < 0 ? Math.max(v, -1f) : 0f;
+    }
+}
@@ -1,7 +1,5 @@
 package blockcraft;
 
-import com.badlogic.gdx.math.MathUtils;
-
 /**
  * Player entity.
  *
@@ -15,6 +13,8 @@ public final class Player implements Entity {
 
     private float x;
     private float y;
+    private float prevX;
+    private float prevY;
 
     private final Inventory inventory = new Inventory(5);
     private int selectedIndex = 0;
@@ -24,8 +24,7 @@ public final class Player implements Entity {
     private static final float REACH_TILES = 4.0f;
 
     public Player(float startX, float startY) {
-        this.x = startX;
-        this.y = startY;
+        setPos(startX, startY);
     }
 
     @Override
@@ -36,15 +35,35 @@ public final class Player implements Entity {
 
 
 
+    @Override
+    public float prevX() { return prevX; }
+
+    @Override
+    public float prevY() { return prevY; }
+
     @Override
     public void setPos(float x, float y) {
         this.x = x;
         this.y = y;
+        this.prevX = x;
+        this.prevY = y;
+    }
+
+    /** Moves without touching prev, so drawing interpolates to it like a tick (network clients). */
+    public void moveTo(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /** Remembers the current position as the start of the next tick. */
+    public void beginTick() {
+        prevX = x;
+        prevY = y;
     }
 
     @Override
     public void update(World world, float dt) {
-        // Player update is driven by input in BlockCraftGame.
+        // Player update is driven by TickInput in GameState.tick.
     }
 
     @Override
@@ -79,35 +98,24 @@ public final class Player implements Entity {
         float dx = dirX * SPEED_TILES_PER_SEC * dt;
         float dy = dirY * SPEED_TILES_PER_SEC * dt;
 
-        // Separate axis collision
-        float nx = x + dx;
-        float ny = y;
-        if (!collides(world, nx, ny)) x = nx;
-
-        nx = x;
-        ny = y + dy;
-        if (!collides(world, nx, ny)) y = ny;
+        // Swept, one axis after the other: stops flush against a wall and slides along it
+        x += world.sweepX(x - COLLIDER_RADIUS, y - COLLIDER_RADIUS, x + COLLIDER_RADIUS, y + COLLIDER_RADIUS, dx);
+        y += world.sweepY(x - COLLIDER_RADIUS, y - COLLIDER_RADIUS, x + COLLIDER_RADIUS, y + COLLIDER_RADIUS, dy);
     }
 
-    public boolean canReach(int tileX, int tileY) {
+    /** Within reach, and in line of sight: no other solid tile between the player and the tile. */
+    public boolean canReach(World world, int tileX, int tileY) {
         float cx = tileX + 0.5f;
         float cy = tileY + 0.5f;
         float dx = x - cx;
         float dy = y - cy;
-        return (dx * dx + dy * dy) <= (REACH_TILES * REACH_TILES);
+        if ((dx * dx + dy * dy) > (REACH_TILES * REACH_TILES)) return false;
+        return world.lineOfSight(x, y, tileX, tileY);
     }
 
-    private boolean collides(World world, float px, float py) {
-        int minX = MathUtils.floor(px - COLLIDER_RADIUS);
-        int maxX = MathUtils.floor(px + COLLIDER_RADIUS);
-        int minY = MathUtils.floor(py - COLLIDER_RADIUS);
-        int maxY = MathUtils.floor(py + COLLIDER_RADIUS);
-
-        for (int ty = minY; ty <= maxY; ty++) {
-            for (int tx = minX; tx <= maxX; tx++) {
-                if (world.get(tx, ty).solid) return true;
-            }
-        }
-        return false;
+    /** Whether the collider overlaps a solid tile. */
+    public boolean collides(World world) {
+        return world.anySolid((int) Math.floor(x - COLLIDER_RADIUS), (int) Math.floor(y - COLLIDER_RADIUS),
+                (int) Math.floor(x + COLLIDER_RADIUS), (int) Math.floor(y + COLLIDER_RADIUS));
     }
 }
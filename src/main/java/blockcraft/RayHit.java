@@ -0,0 +1,23 @@
+package blockcraft;
+
+/**
+ * Where a {@link World#raycast} stopped. Filled in place so a caller can reuse one instance for every ray.
+ * - x, y: the solid tile hit
+ * - distance: along the ray, in tiles, to where it enters that tile (0 when it starts inside)
+ * - normalX, normalY: the face it entered through, pointing back at the origin (both 0 when it starts inside)
+ */
+public final class RayHit {
+    public int x;
+    public int y;
+    public float distance;
+    public int normalX;
+    public int normalY;
+
+    void set(int x, int y, float distance, int normalX, int normalY) {
+        this.x = x;
+        this.y = y;
+        this.distance = distance;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+}
@@ -0,0 +1,177 @@
+package blockcraft;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves and loads one slot without stalling the game thread.
+ * - save: the game thread takes a SaveSystem.Snapshot; serializing and writing run on a background thread
+ * - requests made while a save is running coalesce into one more save of the latest state; so do
+ *   requests made while a load runs, and that save starts once the loaded state is swapped in
+ * - load: the new GameState is built in the background and handed over by {@link #poll}, which the
+ *   game calls at the start of a frame, so the swap never happens mid-update
+ * - between saves every edit goes to an EditJournal, flushed by {@link #poll} once per frame; loading
+ *   (and {@link #recover} at startup) replays it on top of the last save, so a crash loses one frame.
+ *   When the journal outgrows {@link #COMPACT_BYTES} a save folds it into the base.
+ *
+ * All public methods are meant for the game thread; status/progress may be read any time.
+ */
+public final class SaveManager implements AutoCloseable {
+
+    /** journal size that triggers a full save on its own */
+    public static final long COMPACT_BYTES = 1 << 20;
+
+    private final String name;
+    private final EditJournal journal;
+    private GameState journaled; // game thread only; null while a load runs
+    private IOException journalError;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "save-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private boolean saveQueued; // game thread only
+    private volatile boolean loadRunning;
+    private volatile boolean saveRunning;
+    private volatile float progress = 1f;
+    private volatile String status = "";
+    private final AtomicReference<GameState> loaded = new AtomicReference<>();
+
+    public SaveManager(String name) {
+        this.name = name;
+        this.journal = new EditJournal(name);
+    }
+
+    /** Deletes the slot's save and journals, for a session that starts over from the seed. Call before the first poll. */
+    public void discard() {
+        try {
+            for (String suffix : new String[] {"", ".journal", ".journal.old"}) Files.deleteIfExists(Path.of(name + suffix));
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not discard " + name, e);
+        }
+    }
+
+    /** Synchronous load of the save plus its journal, for startup; null when there is none or it fails. */
+    public GameState recover() {
+        try {
+            return EditJournal.recover(name, SaveSystem.Progress.NONE);
+        } catch (RuntimeException e) {
+            status = "Recovery failed: " + e.getMessage();
+            return null;
+        }
+    }
+
+    public void requestSave(GameState state) {
+        // during a load the journal is closed and the state is about to be replaced: saving it now
+        // would write a base the loaded state's journal doesn't belong to
+        if (saveRunning || loadRunning) {
+            saveQueued = true;
+            return;
+        }
+        startSave(state);
+    }
+
+    public void requestLoad() {
+        if (loadRunning) return;
+        loadRunning = true;
+        progress = 0f;
+        status = "Loading...";
+        // the load reads the journal, so stop writing it; edits made meanwhile are replaced anyway
+        journal.close();
+        journaled = null;
+        io.execute(() -> {
+            try {
+                GameState s = EditJournal.recover(name, f -> progress = f);
+                if (s == null) {
+                    status = "No save to load";
+                    loadRunning = false;
+                } else {
+                    loaded.set(s);
+                }
+            } catch (RuntimeException e) {
+                status = "Load failed: " + e.getMessage();
+                loadRunning = false;
+            }
+            progress = 1f;
+        });
+    }
+
+    /**
+     * Call once per frame before updating. Flushes the journal, starts a coalesced (or compacting)
+     * save if one is waiting and returns a freshly loaded state to swap in, or null.
+     */
+    public GameState poll(GameState current) {
+        GameState s = loaded.getAndSet(null);
+        if (s != null) {
+            loadRunning = false;
+            status = "Loaded";
+            current = s;
+        }
+        if (!loadRunning && journaled != current) {
+            journal.attach(current);
+            journaled = current;
+        }
+        journal.flush();
+        if (journal.error() != null && journal.error() != journalError) {
+            journalError = journal.error();
+            status = "Journal failed: " + journalError.getMessage();
+        }
+
+        if (journal.size() > COMPACT_BYTES && !saveRunning) saveQueued = true;
+        if (saveQueued && !saveRunning && !loadRunning) {
+            saveQueued = false;
+            startSave(current);
+        }
+        return s;
+    }
+
+    public boolean busy() {
+        return saveRunning || loadRunning || saveQueued;
+    }
+
+    /** Bytes of edits journaled since the last save. */
+    public long journalBytes() { return journal.size(); }
+
+    public float progress() { return progress; }
+
+    public String status() { return status; }
+
+    /** Waits for an in-flight save so quitting doesn't leave a half-written file behind. */
+    @Override
+    public void close() {
+        journal.close();
+        io.shutdown();
+        try {
+            io.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startSave(GameState state) {
+        SaveSystem.Snapshot snap = SaveSystem.snapshot(state);
+        journal.rotate();
+        saveRunning = true;
+        progress = 0f;
+        status = "Saving...";
+        io.execute(() -> {
+            long t0 = System.nanoTime();
+            try {
+                SaveSystem.write(name, snap, f -> progress = f);
+                journal.dropOld();
+                status = "Saved (" + (System.nanoTime() - t0) / 1_000_000 + " ms)";
+            } catch (RuntimeException e) {
+                status = "Save failed: " + e.getMessage();
+            }
+            progress = 1f;
+            saveRunning = false;
+        });
+    }
+}
@@ -1,13 +1,41 @@
 package blockcraft;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
 
 /**
- * Simple save/load:
- * - Stores: seed, player, selected, inventory counts, world tiles (chars)
+ * Save/load (paths are relative to the working directory, like Gdx.files.local).
  *
- * Format v1:
+ * Format v3 (binary, big-endian), written by {@link #save}:
+ *   "BC2D" 0x03
+ *   int width, int height, long seed
+ *   byte terrain        0 = generated from seed, 1 + ordinal = flat fill
+ *   int generator       WorldGenerator.VERSION the unedited chunks come from
+ *   float player x, float player y, int sel
+ *   int n, n x (byte tile ordinal, int count)          inventory
+ *   int n, n x (int cx, int cy, byte enc, payload)      edited chunks only
+ *     enc 0 uniform: byte ordinal
+ *     enc 1 rle:     (byte ordinal, varint run)... covering 32x32 tiles row-major
+ *     enc 2 palette: byte size, size x byte ordinal, 512 bytes of 4-bit indices (low nibble first)
+ *
+ * Unedited chunks are not stored: they regenerate identically from the seed, so file size
+ * grows with edits, not with world size. That only holds for the same generator, so a generated
+ * world saved under another WorldGenerator.VERSION fails to load instead of silently changing.
+ * Loading reads the file into one heap buffer (saves are small) and parses it from there; no
+ * mapping is left open to block the next save's rename on Windows.
+ *
+ * Format v2 is v3 without the generator field; it was only written by generator version 1.
+ *
+ * Format v1 (text, "BC2D:1", one char per tile) is still imported by {@link #load}:
  *   BC2D:1
  *   w=<width>
  *   h=<height>
@@ -21,44 +49,302 @@ import com.badlogic.gdx.files.FileHandle;
  */
 public final class SaveSystem {
 
+    private static final byte[] MAGIC = { 'B', 'C', '2', 'D' };
+    private static final int VERSION = 3;
+    /** the generator every v2 save was made with */
+    private static final int V2_GENERATOR = 1;
+
+    private static final int ENC_UNIFORM = 0;
+    private static final int ENC_RLE = 1;
+    private static final int ENC_PALETTE = 2;
+
     private SaveSystem() {}
 
-    public static void save(String name, GameState s) {
-        FileHandle f = Gdx.files.local(name);
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("BC2D:1\n");
-        sb.append("w=").append(s.world.width).append("\n");
-        sb.append("h=").append(s.world.height).append("\n");
-        sb.append("seed=").append(s.seed).append("\n");
-        sb.append("player=").append(s.player.x()).append(",").append(s.player.y()).append("\n");
-        sb.append("sel=").append(s.selectedIndex).append("\n");
-
-        sb.append("inv=");
-        boolean first = true;
-        for (var e : s.player.inventory().snapshot().entrySet()) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append(e.getKey().name()).append(":").append(e.getValue());
-        }
-        sb.append("\n");
-
-        sb.append("tiles:\n");
-        for (int y = 0; y < s.world.height; y++) {
-            for (int x = 0; x < s.world.width; x++) {
-                sb.append(toChar(s.world.get(x, y)));
+    /** Receives fractions 0..1 while a save or load runs (called from the thread doing the work). */
+    public interface Progress {
+        Progress NONE = f -> {};
+
+        void update(float fraction);
+    }
+
+    /**
+     * Everything a save needs, detached from the live game: edited chunks' tiles are shared
+     * copy-on-write (Chunk.share), so the snapshot can be written on another thread while the game
+     * keeps editing the world. Costs one reference per edited chunk; a chunk edited before the write
+     * finishes copies itself once.
+     */
+    public static final class Snapshot {
+        final int width;
+        final int height;
+        final long seed;
+        final int terrain;
+        final float playerX;
+        final float playerY;
+        final int selectedIndex;
+        final Map<TileType, Integer> inventory;
+        final int[] chunkXY; // cx, cy pairs
+        final TileStorage[] chunkTiles;
+
+        private Snapshot(GameState s) {
+            World world = s.world;
+            width = world.width;
+            height = world.height;
+            seed = s.seed;
+            terrain = world.generator() != null ? 0 : 1 + world.fillTile().ordinal();
+            playerX = s.player.x();
+            playerY = s.player.y();
+            selectedIndex = s.selectedIndex;
+            inventory = s.player.inventory().snapshot();
+
+            Chunk[] chunks = world.chunks();
+            int edited = 0;
+            for (Chunk c : chunks) if (c != null && c.modified) edited++;
+            chunkXY = new int[edited * 2];
+            chunkTiles = new TileStorage[edited];
+            int n = 0;
+            for (Chunk c : chunks) {
+                if (c == null || !c.modified) continue;
+                chunkXY[n * 2] = c.cx;
+                chunkXY[n * 2 + 1] = c.cy;
+                chunkTiles[n++] = c.share();
             }
-            sb.append("\n");
         }
+    }
+
+    public static void save(String name, GameState s) {
+        write(name, snapshot(s), Progress.NONE);
+    }
 
-        f.writeString(sb.toString(), false, "UTF-8");
+    /** Cheap, consistent copy of the state to save; take it on the thread that owns the GameState. */
+    public static Snapshot snapshot(GameState s) {
+        return new Snapshot(s);
+    }
+
+    /** Serializes and writes a snapshot; safe to call from any thread. */
+    public static void write(String name, Snapshot snap, Progress progress) {
+        Path path = Path.of(name);
+        Path tmp = Path.of(name + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                write(out, snap, progress);
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("save failed: " + name, e);
+        }
     }
 
     public static GameState load(String name) {
-        FileHandle f = Gdx.files.local(name);
-        if (!f.exists()) return null;
+        return load(name, Progress.NONE);
+    }
+
+    /** Builds a fresh GameState from a file; touches no live state, so it can run on any thread. */
+    public static GameState load(String name, Progress progress) {
+        Path path = Path.of(name);
+        if (!Files.exists(path)) return null;
+
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < MAGIC.length + 1) return null;
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+
+            for (byte m : MAGIC) if (buf.get() != m) return null;
+            int version = buf.get();
+            if (version == ':') return loadV1(new String(bytes, StandardCharsets.UTF_8));
+            if (version != VERSION && version != 2) return null;
+            return read(buf, version, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("load failed: " + name, e);
+        }
+    }
+
+    private static void write(DataOutputStream out, Snapshot s, Progress progress) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(s.width);
+        out.writeInt(s.height);
+        out.writeLong(s.seed);
+        out.writeByte(s.terrain);
+        out.writeInt(WorldGenerator.VERSION);
+
+        out.writeFloat(s.playerX);
+        out.writeFloat(s.playerY);
+        out.writeInt(s.selectedIndex);
+
+        out.writeInt(s.inventory.size());
+        for (var e : s.inventory.entrySet()) {
+            out.writeByte(e.getKey().ordinal());
+            out.writeInt(e.getValue());
+        }
+
+        int count = s.chunkTiles.length;
+        out.writeInt(count);
+        byte[] ords = new byte[TileStorage.TILES];
+        for (int i = 0; i < count; i++) {
+            out.writeInt(s.chunkXY[i * 2]);
+            out.writeInt(s.chunkXY[i * 2 + 1]);
+            writeTiles(out, s.chunkTiles[i], ords);
+            if ((i & 255) == 255) progress.update((i + 1) / (float) count);
+        }
+        progress.update(1f);
+    }
+
+    private static void writeTiles(DataOutputStream out, TileStorage tiles, byte[] ords) throws IOException {
+        if (tiles.isUniform()) {
+            out.writeByte(ENC_UNIFORM);
+            out.writeByte(tiles.get(0));
+            return;
+        }
+
+        int rleBytes = 0;
+        long used = 0; // bitset of ordinals present
+        for (int i = 0; i < TileStorage.TILES; i++) {
+            ords[i] = (byte) tiles.get(i);
+            used |= 1L << ords[i];
+        }
+        for (int i = 0; i < TileStorage.TILES; ) {
+            int run = runLength(ords, i);
+            rleBytes += 1 + varintSize(run);
+            i += run;
+        }
+        int paletteSize = Long.bitCount(used);
+        int paletteBytes = 1 + paletteSize + TileStorage.TILES / 2;
 
-        String[] lines = f.readString("UTF-8").split("\\R");
+        if (paletteSize > 16 || rleBytes <= paletteBytes) {
+            out.writeByte(ENC_RLE);
+            for (int i = 0; i < TileStorage.TILES; ) {
+                int run = runLength(ords, i);
+                out.writeByte(ords[i]);
+                writeVarint(out, run);
+                i += run;
+            }
+            return;
+        }
+
+        out.writeByte(ENC_PALETTE);
+        out.writeByte(paletteSize);
+        byte[] index = new byte[64];
+        int n = 0;
+        for (int o = 0; o < 64; o++) {
+            if ((used & (1L << o)) == 0) continue;
+            index[o] = (byte) n++;
+            out.writeByte(o);
+        }
+        for (int i = 0; i < TileStorage.TILES; i += 2) {
+            out.writeByte(index[ords[i]] | (index[ords[i + 1]] << 4));
+        }
+    }
+
+    private static GameState read(ByteBuffer buf, int version, Progress progress) {
+        int w = buf.getInt();
+        int h = buf.getInt();
+        long seed = buf.getLong();
+        int terrain = buf.get();
+        int generator = version == 2 ? V2_GENERATOR : buf.getInt();
+        if (terrain == 0 && generator != WorldGenerator.VERSION) {
+            throw new IllegalStateException("saved with terrain generator v" + generator + ", this build has v"
+                    + WorldGenerator.VERSION + ": its unedited terrain would come out different");
+        }
+
+        GameState s = new GameState(w, h, seed);
+        if (terrain != 0) s.world.fill(TileType.BY_ORDINAL[terrain - 1]);
+
+        float px = buf.getFloat();
+        float py = buf.getFloat();
+        s.player.setPos(px, py);
+        s.setSelectedIndex(buf.getInt());
+
+        // the saved counts replace the starting ones (only non-zero counts are stored)
+        Inventory inv = s.player.inventory();
+        for (TileType t : TileType.BY_ORDINAL) inv.set(t, 0);
+        int invCount = buf.getInt();
+        for (int i = 0; i < invCount; i++) {
+            TileType t = TileType.BY_ORDINAL[buf.get()];
+            inv.set(t, buf.getInt());
+        }
+
+        int chunkCount = buf.getInt();
+        for (int i = 0; i < chunkCount; i++) {
+            int cx = buf.getInt();
+            int cy = buf.getInt();
+            s.world.restoreChunk(cx, cy, readTiles(buf));
+            if ((i & 255) == 255) progress.update((i + 1) / (float) chunkCount);
+        }
+        progress.update(1f);
+        return s;
+    }
+
+    private static TileStorage readTiles(ByteBuffer buf) {
+        int enc = buf.get();
+        switch (enc) {
+            case ENC_UNIFORM -> {
+                return new TileStorage(buf.get());
+            }
+            case ENC_RLE -> {
+                TileStorage tiles = null;
+                for (int i = 0; i < TileStorage.TILES; ) {
+                    int ord = buf.get();
+                    int run = readVarint(buf);
+                    if (tiles == null) tiles = new TileStorage(ord);
+                    else for (int j = i; j < i + run; j++) tiles.set(j, ord);
+                    i += run;
+                }
+                return tiles;
+            }
+            case ENC_PALETTE -> {
+                byte[] palette = new byte[buf.get()];
+                buf.get(palette);
+                TileStorage tiles = new TileStorage(palette[0]);
+                for (int i = 0; i < TileStorage.TILES; i += 2) {
+                    int b = buf.get();
+                    int lo = palette[b & 0xF];
+                    int hi = palette[(b >> 4) & 0xF];
+                    if (lo != palette[0]) tiles.set(i, lo);
+                    if (hi != palette[0]) tiles.set(i + 1, hi);
+                }
+                return tiles;
+            }
+            default -> throw new IllegalStateException("unknown chunk encoding " + enc);
+        }
+    }
+
+    private static int runLength(byte[] ords, int from) {
+        int i = from + 1;
+        while (i < ords.length && ords[i] == ords[from]) i++;
+        return i - from;
+    }
+
+    private static int varintSize(int v) {
+        int n = 1;
+        while ((v >>>= 7) != 0) n++;
+        return n;
+    }
+
+    private static void writeVarint(DataOutputStream out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static int readVarint(ByteBuffer buf) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    // ---- v1 text import ----
+
+    private static GameState loadV1(String text) {
+        String[] lines = text.split("\\R");
         if (lines.length < 6 || !lines[0].trim().equals("BC2D:1")) return null;
 
         int w = parseInt(value(lines, "w"));
@@ -85,12 +371,18 @@ public final class SaveSystem {
         if (idx < 0) return null;
         idx++;
 
-        for (int y = 0; y < h; y++) {
-            String row = lines[idx + y];
-            for (int x = 0; x < w; x++) {
-                s.world.set(x, y, fromChar(row.charAt(x)));
+        // chunk by chunk, so a wide map doesn't cycle every chunk of a row through the LRU
+        for (int y0 = 0; y0 < h; y0 += World.CHUNK_SIZE) {
+            for (int x0 = 0; x0 < w; x0 += World.CHUNK_SIZE) {
+                for (int y = y0; y < Math.min(h, y0 + World.CHUNK_SIZE); y++) {
+                    String row = lines[idx + y];
+                    for (int x = x0; x < Math.min(w, x0 + World.CHUNK_SIZE); x++) {
+                        s.world.set(x, y, fromChar(row.charAt(x)));
+                    }
+                }
             }
         }
+        s.world.compact();
 
         return s;
     }
@@ -110,19 +402,6 @@ public final class SaveSystem {
         return Integer.parseInt(s.trim());
     }
 
-    private static char toChar(TileType t) {
-        return switch (t) {
-            case AIR -> '.';
-            case GRASS -> 'g';
-            case DIRT -> 'd';
-            case STONE -> 's';
-            case WATER -> 'w';
-            case LOG -> 'l';
-            case PLANKS -> 'p';
-            case GOLD -> 'a';
-        };
-    }
-
     private static TileType fromChar(char c) {
         return switch (c) {
             case '.' -> TileType.AIR;
@@ -0,0 +1,250 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+/**
+ * Uniform bucket grid over the world for "which ids are near here" queries.
+ * - each cell is CELL x CELL tiles and holds an intrusive doubly linked list of ids (int arrays, no nodes)
+ * - only occupied cells take memory: their list heads sit in an open-addressing table keyed by cell, at
+ *   most half full because there are never more occupied cells than ids, so memory follows the number of
+ *   ids and not the size of the world
+ * - {@link #move} is O(1) and does nothing when an id stays in its cell
+ * - queries write ids into a caller-owned int[] and allocate nothing; a query covering more cells than
+ *   the table has slots walks the table instead
+ *
+ * Positions outside the world are clamped into the border cells; queries still test exact positions.
+ */
+public final class SpatialGrid {
+    static final int CELL_SHIFT = 2;
+    static final int CELL = 1 << CELL_SHIFT;
+
+    private final int cellsX;
+    private final int cellsY;
+
+    // occupied cells, linear probing: cell index (cy * cellsX + cx) or -1 = free, and its first id
+    private int[] cells;
+    private int[] heads;
+    private int hashShift;
+
+    // per id
+    private int[] next;
+    private int[] prev;
+    private int[] cellOf; // -1 = not in the grid
+    private float[] px;
+    private float[] py;
+
+    public SpatialGrid(int width, int height, int capacity) {
+        cellsX = Math.max(1, (width + CELL - 1) >> CELL_SHIFT);
+        cellsY = Math.max(1, (height + CELL - 1) >> CELL_SHIFT);
+        capacity = Math.max(1, capacity);
+        next = new int[capacity];
+        prev = new int[capacity];
+        cellOf = new int[capacity];
+        px = new float[capacity];
+        py = new float[capacity];
+        Arrays.fill(cellOf, -1);
+        rehash(capacity);
+    }
+
+    /** Makes room for ids 0..n-1. */
+    public void ensureCapacity(int n) {
+        if (n <= cellOf.length) return;
+        int old = cellOf.length;
+        int cap = Math.max(n, old * 2);
+        next = Arrays.copyOf(next, cap);
+        prev = Arrays.copyOf(prev, cap);
+        cellOf = Arrays.copyOf(cellOf, cap);
+        px = Arrays.copyOf(px, cap);
+        py = Arrays.copyOf(py, cap);
+        Arrays.fill(cellOf, old, cap, -1);
+        rehash(cap);
+    }
+
+    public void insert(int id, float x, float y) {
+        px[id] = x;
+        py[id] = y;
+        link(id, cellIndex(x, y));
+    }
+
+    public void remove(int id) {
+        if (cellOf[id] >= 0) unlink(id);
+    }
+
+    public void move(int id, float x, float y) {
+        px[id] = x;
+        py[id] = y;
+        int c = cellIndex(x, y);
+        if (c == cellOf[id]) return;
+        if (cellOf[id] >= 0) unlink(id);
+        link(id, c);
+    }
+
+    /**
+     * Ids whose position lies in the closed rectangle, written to {@code out}.
+     * @return how many were written; stops early once {@code out} is full
+     */
+    public int queryRect(float minX, float minY, float maxX, float maxY, int[] out) {
+        int n = 0;
+        int minCx = cellX(minX), maxCx = cellX(maxX);
+        int minCy = cellY(minY), maxCy = cellY(maxY);
+        if ((long) (maxCx - minCx + 1) * (maxCy - minCy + 1) > cells.length) {
+            for (int s = 0; s < cells.length; s++) {
+                if (cells[s] < 0) continue;
+                for (int id = heads[s]; id >= 0; id = next[id]) {
+                    float x = px[id], y = py[id];
+                    if (x < minX || x > maxX || y < minY || y > maxY) continue;
+                    if (n == out.length) return n;
+                    out[n++] = id;
+                }
+            }
+            return n;
+        }
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int id = head(cy * cellsX + cx); id >= 0; id = next[id]) {
+                    float x = px[id], y = py[id];
+                    if (x < minX || x > maxX || y < minY || y > maxY) continue;
+                    if (n == out.length) return n;
+                    out[n++] = id;
+                }
+            }
+        }
+        return n;
+    }
+
+    /** Ids within distance {@code r} of (x, y); same contract as {@link #queryRect}. */
+    public int queryRadius(float x, float y, float r, int[] out) {
+        int n = 0;
+        float r2 = r * r;
+        int minCx = cellX(x - r), maxCx = cellX(x + r);
+        int minCy = cellY(y - r), maxCy = cellY(y + r);
+        if ((long) (maxCx - minCx + 1) * (maxCy - minCy + 1) > cells.length) {
+            for (int s = 0; s < cells.length; s++) {
+                if (cells[s] < 0) continue;
+                for (int id = heads[s]; id >= 0; id = next[id]) {
+                    float dx = px[id] - x, dy = py[id] - y;
+                    if (dx * dx + dy * dy > r2) continue;
+                    if (n == out.length) return n;
+                    out[n++] = id;
+                }
+            }
+            return n;
+        }
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int id = head(cy * cellsX + cx); id >= 0; id = next[id]) {
+                    float dx = px[id] - x, dy = py[id] - y;
+                    if (dx * dx + dy * dy > r2) continue;
+                    if (n == out.length) return n;
+                    out[n++] = id;
+                }
+            }
+        }
+        return n;
+    }
+
+    /** True if some id other than {@code self} is strictly within half a tile of (x, y) on both axes. */
+    public boolean occupied(float x, float y, int self) {
+        int minCx = cellX(x - 0.5f), maxCx = cellX(x + 0.5f);
+        int minCy = cellY(y - 0.5f), maxCy = cellY(y + 0.5f);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int id = head(cy * cellsX + cx); id >= 0; id = next[id]) {
+                    if (id != self && Math.abs(px[id] - x) < 0.5f && Math.abs(py[id] - y) < 0.5f) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int cellX(float x) {
+        return Math.max(0, Math.min(cellsX - 1, (int) Math.floor(x) >> CELL_SHIFT));
+    }
+
+    private int cellY(float y) {
+        return Math.max(0, Math.min(cellsY - 1, (int) Math.floor(y) >> CELL_SHIFT));
+    }
+
+    private int cellIndex(float x, float y) {
+        return cellY(y) * cellsX + cellX(x);
+    }
+
+    private void link(int id, int c) {
+        int s = hash(c);
+        while (cells[s] >= 0 && cells[s] != c) s = (s + 1) & (cells.length - 1);
+        if (cells[s] < 0) {
+            cells[s] = c;
+            heads[s] = -1;
+        }
+        int h = heads[s];
+        next[id] = h;
+        prev[id] = -1;
+        if (h >= 0) prev[h] = id;
+        heads[s] = id;
+        cellOf[id] = c;
+    }
+
+    private void unlink(int id) {
+        int c = cellOf[id];
+        int p = prev[id], n = next[id];
+        if (p >= 0) {
+            next[p] = n;
+        } else {
+            int s = slot(c);
+            heads[s] = n;
+            if (n < 0) free(s);
+        }
+        if (n >= 0) prev[n] = p;
+        cellOf[id] = -1;
+    }
+
+    /** First id in cell {@code c}, or -1 when it is empty. */
+    private int head(int c) {
+        int s = slot(c);
+        return s >= 0 ? heads[s] : -1;
+    }
+
+    /** Table slot of cell {@code c}, or -1 when the cell is empty. */
+    private int slot(int c) {
+        for (int s = hash(c); ; s = (s + 1) & (cells.length - 1)) {
+            if (cells[s] == c) return s;
+            if (cells[s] < 0) return -1;
+        }
+    }
+
+    private int hash(int c) {
+        return (c * 0x9E3779B9) >>> hashShift;
+    }
+
+    /** Empties slot {@code s}, moving later entries of its probe run back so lookups still find them. */
+    private void free(int s) {
+        int mask = cells.length - 1;
+        for (int j = (s + 1) & mask; cells[j] >= 0; j = (j + 1) & mask) {
+            int home = hash(cells[j]);
+            if (((j - home) & mask) < ((j - s) & mask)) continue; // cannot move before its home slot
+            cells[s] = cells[j];
+            heads[s] = heads[j];
+            s = j;
+        }
+        cells[s] = -1;
+    }
+
+    /** A table of at least twice {@code capacity} slots (so it stays at most half full), keeping every cell. */
+    private void rehash(int capacity) {
+        int size = Integer.highestOneBit(Math.max(8, capacity) * 2 - 1) << 1;
+        if (cells != null && cells.length >= size) return;
+        int[] oldCells = cells, oldHeads = heads;
+        cells = new int[size];
+        heads = new int[size];
+        Arrays.fill(cells, -1);
+        hashShift = 32 - Integer.numberOfTrailingZeros(size);
+        if (oldCells == null) return;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] < 0) continue;
+            int s = hash(oldCells[i]);
+            while (cells[s] >= 0) s = (s + 1) & (size - 1);
+            cells[s] = oldCells[i];
+            heads[s] = oldHeads[i];
+        }
+    }
+}
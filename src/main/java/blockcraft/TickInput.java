@@ -0,0 +1,48 @@
+package blockcraft;
+
+/**
+ * Player input for one simulation tick.
+ * - movement is a held state, sampled every tick
+ * - mine/place/select/undo/redo are one-shot actions, latched until a tick consumes them
+ *
+ * One instance is reused for the whole session.
+ */
+public final class TickInput {
+    public float moveX;
+    public float moveY;
+
+    public boolean mine;
+    public int mineX;
+    public int mineY;
+
+    public boolean place;
+    public int placeX;
+    public int placeY;
+
+    /** hotbar index to select, -1 = unchanged */
+    public int select = -1;
+
+    /** step the edit history back / forward (applied before mine and place) */
+    public boolean undo;
+    public boolean redo;
+
+    public void mine(int tx, int ty) {
+        mine = true;
+        mineX = tx;
+        mineY = ty;
+    }
+
+    public void place(int tx, int ty) {
+        place = true;
+        placeX = tx;
+        placeY = ty;
+    }
+
+    public void clearActions() {
+        mine = false;
+        place = false;
+        select = -1;
+        undo = false;
+        redo = false;
+    }
+}
@@ -0,0 +1,153 @@
+package blockcraft;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * CPU half of the tilemap renderer: the visible tiles as an RGBA texel grid, one texel per tile
+ * (R = TileType ordinal, G = brightness 0..255, B = 0, A = 255), kept current incrementally.
+ * - the grid is a ring: tile (x, y) lives at texel (x mod width, y mod height), so scrolling only writes
+ *   the tiles that came into view and GL_REPEAT does the wrap on the GPU
+ * - a chunk whose version or lightVersion changed since it was last copied is rewritten where it
+ *   overlaps the view; nothing else is touched
+ * - every written texel flags its row dirty; the renderer uploads each run of dirty rows and clears them
+ * - outside the world reads as STONE at full brightness, like ChunkRenderer's border mesh
+ *
+ * No graphics classes, so it runs and is checked headless (TileWindowTest).
+ */
+final class TileIdWindow {
+    static final int BYTES_PER_TEXEL = 4;
+
+    /** texture size in tiles, powers of two */
+    final int width;
+    final int height;
+
+    /** width * height texels, row-major, ready for glTexSubImage2D */
+    final ByteBuffer texels;
+
+    private final boolean[] dirtyRows;
+    private int dirtyCount;
+
+    private World world;
+    private int minX, minY, maxX, maxY; // view held now (inclusive); valid while world != null
+
+    // per world chunk: the chunk and versions last copied into the texels
+    private Chunk[] seen;
+    private int[] seenVersion;
+    private int[] seenLight;
+
+    /** texels written by the last update */
+    int written;
+
+    /** Smallest power-of-two window that holds a view of viewW x viewH tiles. */
+    TileIdWindow(int viewW, int viewH) {
+        this.width = Integer.highestOneBit(Math.max(1, viewW - 1)) << 1;
+        this.height = Integer.highestOneBit(Math.max(1, viewH - 1)) << 1;
+        this.texels = ByteBuffer.allocateDirect(width * height * BYTES_PER_TEXEL);
+        this.dirtyRows = new boolean[height];
+    }
+
+    /**
+     * Brings the texels up to date for the tile rectangle (inclusive), which must fit in the window.
+     * A different World than last time (a load) rewrites the whole view.
+     */
+    void update(World world, int minX, int minY, int maxX, int maxY) {
+        if (maxX - minX + 1 > width || maxY - minY + 1 > height) {
+            throw new IllegalArgumentException("view " + (maxX - minX + 1) + "x" + (maxY - minY + 1)
+                    + " does not fit a " + width + "x" + height + " window");
+        }
+        written = 0;
+        if (world != this.world) {
+            this.world = world;
+            int chunks = world.chunksX() * world.chunksY();
+            seen = new Chunk[chunks];
+            seenVersion = new int[chunks];
+            seenLight = new int[chunks];
+            writeOutside(minX, minY, maxX, maxY); // refreshChanged writes the rest, chunk by chunk
+        } else {
+            writeEntering(minX, minY, maxX, maxY);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        refreshChanged();
+    }
+
+    boolean dirty(int row) { return dirtyRows[row]; }
+
+    int dirtyRows() { return dirtyCount; }
+
+    void clearDirty() {
+        Arrays.fill(dirtyRows, false);
+        dirtyCount = 0;
+    }
+
+    /** Tiles of the new view that the old one did not cover. */
+    private void writeEntering(int nMinX, int nMinY, int nMaxX, int nMaxY) {
+        for (int y = nMinY; y <= nMaxY; y++) {
+            if (y < minY || y > maxY) {
+                for (int x = nMinX; x <= nMaxX; x++) write(x, y);
+                continue;
+            }
+            for (int x = nMinX; x <= Math.min(nMaxX, minX - 1); x++) write(x, y);
+            for (int x = Math.max(nMinX, maxX + 1); x <= nMaxX; x++) write(x, y);
+        }
+    }
+
+    /** Rewrites the part of the view covered by each chunk that changed since it was last copied. */
+    private void refreshChanged() {
+        int minCx = Math.max(0, minX >> Chunk.SHIFT), maxCx = Math.min(world.chunksX() - 1, maxX >> Chunk.SHIFT);
+        int minCy = Math.max(0, minY >> Chunk.SHIFT), maxCy = Math.min(world.chunksY() - 1, maxY >> Chunk.SHIFT);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                Chunk c = world.chunkAt(cx, cy);
+                int k = cy * world.chunksX() + cx;
+                if (seen[k] == c && seenVersion[k] == c.version && seenLight[k] == c.lightVersion) continue;
+                // record first: a relight racing with the copy then shows up as a change next frame
+                seen[k] = c;
+                seenVersion[k] = c.version;
+                seenLight[k] = c.lightVersion;
+                int x0 = cx << Chunk.SHIFT, y0 = cy << Chunk.SHIFT;
+                writeRect(Math.max(minX, x0), Math.max(minY, y0),
+                        Math.min(maxX, x0 + Chunk.MASK), Math.min(maxY, y0 + Chunk.MASK));
+            }
+        }
+    }
+
+    /** The tiles of the rectangle beyond the world's edge, which belong to no chunk. */
+    private void writeOutside(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                if (!world.inBounds(x, y)) write(x, y);
+            }
+        }
+    }
+
+    private void writeRect(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) write(x, y);
+        }
+    }
+
+    private void write(int x, int y) {
+        TileType t = TileType.STONE;
+        int light = 255;
+        Chunk c = world.inBounds(x, y) ? world.chunkAt(x >> Chunk.SHIFT, y >> Chunk.SHIFT) : null;
+        if (c != null) {
+            t = c.get(x & Chunk.MASK, y & Chunk.MASK);
+            light = t == TileType.AIR ? 0 : Math.round(LightEngine.brightness(world, x, y, t.solid) * 255f);
+        }
+        int row = y & (height - 1);
+        int i = (row * width + (x & (width - 1))) * BYTES_PER_TEXEL;
+        texels.put(i, (byte) t.ordinal());
+        texels.put(i + 1, (byte) light);
+        texels.put(i + 2, (byte) 0);
+        texels.put(i + 3, (byte) 255);
+        if (!dirtyRows[row]) {
+            dirtyRows[row] = true;
+            dirtyCount++;
+        }
+        written++;
+    }
+}
@@ -0,0 +1,175 @@
+package blockcraft;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Draws all visible tiles, WATER included, as one quad over the view.
+ * - the tiles live in a small tile-ID texture (TileIdWindow), and only rows that changed are re-uploaded
+ * - the fragment shader looks up each pixel's tile, takes its color from a palette texture and applies
+ *   the light, the checkerboard shade, the outlines and the WATER pulse
+ * - so per-frame CPU cost is the dirty tiles, not the number of pixels or tiles on screen
+ *
+ * Looks the same as ChunkRenderer plus its water pass, which stays as the fallback (see BlockCraftGame).
+ * {@link #compiled} is false when the GPU rejects the shader.
+ */
+final class TileMapRenderer implements Disposable {
+
+    private static final String VERT =
+            "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" +
+            "uniform mat4 u_projTrans;\n" +
+            "varying vec2 v_world;\n" +
+            "void main() {\n" +
+            "  v_world = " + ShaderProgram.POSITION_ATTRIBUTE + ".xy;\n" +
+            "  gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" +
+            "}\n";
+    // world pixel coords reach a few hundred thousand, hence highp
+    private static final String FRAG =
+            "#ifdef GL_ES\nprecision highp float;\n#endif\n" +
+            "varying vec2 v_world;\n" +
+            "uniform sampler2D u_tiles;\n" +
+            "uniform sampler2D u_palette;\n" +
+            "uniform vec2 u_windowSize;\n" +
+            "uniform float u_paletteSize;\n" +
+            "uniform float u_tilePx;\n" +
+            "uniform float u_water;\n" +
+            "uniform float u_time;\n" +
+            "void main() {\n" +
+            "  vec2 tile = floor(v_world / u_tilePx);\n" +
+            "  vec4 t = texture2D(u_tiles, (tile + 0.5) / u_windowSize);\n" +
+            "  float id = floor(t.r * 255.0 + 0.5);\n" +
+            "  if (id < 0.5) discard;\n" + // AIR
+            "  vec3 c = texture2D(u_palette, vec2((id + 0.5) / u_paletteSize, 0.5)).rgb;\n" +
+            "  if (abs(id - u_water) < 0.5) {\n" +
+            "    c += 0.08 * sin(u_time * 2.8 + tile.x * 0.7 + tile.y * 0.5);\n" +
+            "  } else {\n" +
+            "    c *= mod(tile.x + tile.y, 2.0) < 0.5 ? 0.96 : 1.0;\n" +
+            "  }\n" +
+            "  c *= t.g;\n" +
+            "  vec2 local = v_world - tile * u_tilePx;\n" +
+            "  if (local.x < 2.0 || local.y < 2.0) c *= 0.88;\n" + // outline: black at alpha 0.12
+            "  gl_FragColor = vec4(c, 1.0);\n" +
+            "}\n";
+
+    private static final int PALETTE_SIZE = Integer.highestOneBit(TileType.BY_ORDINAL.length - 1) << 1;
+
+    private final int tilePx;
+    private final ShaderProgram shader;
+    private final Mesh quad;
+    private final float[] corners = new float[8];
+    private final int paletteTex;
+    private int tilesTex;
+    private TileIdWindow window;
+
+    /** rows uploaded by the last draw */
+    int uploadedRows;
+
+    TileMapRenderer(int tilePx) {
+        this.tilePx = tilePx;
+        this.shader = new ShaderProgram(VERT, FRAG);
+        this.quad = new Mesh(false, 4, 6, new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE));
+        quad.setIndices(new short[] {0, 1, 2, 2, 3, 0});
+
+        // one texel per TileType ordinal, padded to a power of two (GLES2 needs that for REPEAT)
+        ByteBuffer palette = BufferUtils.newByteBuffer(PALETTE_SIZE * TileIdWindow.BYTES_PER_TEXEL);
+        for (TileType t : TileType.BY_ORDINAL) {
+            palette.put((byte) Math.round(t.r * 255f)).put((byte) Math.round(t.g * 255f))
+                    .put((byte) Math.round(t.b * 255f)).put((byte) 255);
+        }
+        palette.position(0);
+        paletteTex = newTexture(PALETTE_SIZE, 1, palette);
+    }
+
+    boolean compiled() { return shader.isCompiled(); }
+
+    String log() { return shader.getLog(); }
+
+    /**
+     * Draws the tile rectangle (inclusive) sized for a viewW x viewH-tile view. Call outside
+     * batch.begin/end; resizes the window texture when the view outgrows it.
+     */
+    void draw(World world, Matrix4 combined, int minX, int minY, int maxX, int maxY, float time) {
+        int viewW = maxX - minX + 1, viewH = maxY - minY + 1;
+        if (window == null || viewW > window.width || viewH > window.height) {
+            if (tilesTex != 0) Gdx.gl.glDeleteTexture(tilesTex);
+            window = new TileIdWindow(viewW, viewH);
+            tilesTex = newTexture(window.width, window.height, null);
+        }
+
+        window.update(world, minX, minY, maxX, maxY);
+        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE1);
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, paletteTex);
+        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, tilesTex);
+        upload();
+
+        float x0 = minX * tilePx, y0 = minY * tilePx, x1 = (maxX + 1) * tilePx, y1 = (maxY + 1) * tilePx;
+        corners[0] = x0; corners[1] = y0;
+        corners[2] = x1; corners[3] = y0;
+        corners[4] = x1; corners[5] = y1;
+        corners[6] = x0; corners[7] = y1;
+        quad.setVertices(corners);
+
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", combined);
+        shader.setUniformi("u_tiles", 0);
+        shader.setUniformi("u_palette", 1);
+        shader.setUniformf("u_windowSize", window.width, window.height);
+        shader.setUniformf("u_paletteSize", PALETTE_SIZE);
+        shader.setUniformf("u_tilePx", tilePx);
+        shader.setUniformf("u_water", TileType.WATER.ordinal());
+        shader.setUniformf("u_time", time);
+        quad.render(shader, GL20.GL_TRIANGLES);
+    }
+
+    /** One glTexSubImage2D per run of dirty rows. */
+    private void upload() {
+        uploadedRows = window.dirtyRows();
+        if (uploadedRows == 0) return;
+        ByteBuffer texels = window.texels;
+        int rowBytes = window.width * TileIdWindow.BYTES_PER_TEXEL;
+        for (int r = 0; r < window.height; ) {
+            if (!window.dirty(r)) {
+                r++;
+                continue;
+            }
+            int start = r;
+            while (r < window.height && window.dirty(r)) r++;
+            texels.limit(r * rowBytes).position(start * rowBytes);
+            Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, start, window.width, r - start,
+                    GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, texels);
+        }
+        texels.clear();
+        window.clearDirty();
+    }
+
+    /** NEAREST, REPEAT (the window is a ring); data == null leaves it uninitialized. */
+    private static int newTexture(int w, int h, ByteBuffer data) {
+        int tex = Gdx.gl.glGenTexture();
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, tex);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MIN_FILTER, GL20.GL_NEAREST);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MAG_FILTER, GL20.GL_NEAREST);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_WRAP_S, GL20.GL_REPEAT);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_WRAP_T, GL20.GL_REPEAT);
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        Gdx.gl.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL20.GL_RGBA, w, h, 0, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, data);
+        return tex;
+    }
+
+    @Override
+    public void dispose() {
+        if (tilesTex != 0) Gdx.gl.glDeleteTexture(tilesTex);
+        Gdx.gl.glDeleteTexture(paletteTex);
+        quad.dispose();
+        shader.dispose();
+    }
+}
@@ -0,0 +1,46 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+/**
+ * A rectangle of tiles outside any world: what World.copy reads and World.paste/stamp write.
+ * - one ordinal per cell, row-major, so a world row maps to one contiguous run
+ * - a cell may be {@link #KEEP}: pasting leaves the world's tile there, which is how a prefab
+ *   (a tree, a hut) carries its own shape
+ */
+public final class TileRegion {
+
+    /** cell value that leaves the world's tile as it is */
+    public static final byte KEEP = -1;
+
+    public final int width;
+    public final int height;
+
+    /** width * height ordinals (or KEEP), row-major */
+    final byte[] tiles;
+
+    /** A region of KEEP cells. */
+    public TileRegion(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("empty region " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.tiles = new byte[width * height];
+        Arrays.fill(tiles, KEEP);
+    }
+
+    /** The tile at (x, y), or null for a KEEP cell. */
+    public TileType get(int x, int y) {
+        byte v = tiles[y * width + x];
+        return v == KEEP ? null : TileType.BY_ORDINAL[v];
+    }
+
+    /** Sets (x, y); null makes it a KEEP cell. */
+    public void set(int x, int y, TileType t) {
+        tiles[y * width + x] = t == null ? KEEP : (byte) t.ordinal();
+    }
+
+    /** Sets every cell (null = KEEP). */
+    public void fill(TileType t) {
+        Arrays.fill(tiles, t == null ? KEEP : (byte) t.ordinal());
+    }
+}
@@ -0,0 +1,222 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+/**
+ * Tile ordinals for one chunk, in the most compact of three encodings:
+ * - uniform: a single ordinal, no array (all-AIR sky, solid bedrock)
+ * - palette: up to 16 distinct types, 4 bits per tile indexing a small palette
+ * - bytes:   one ordinal per byte once a chunk needs more than 16 types
+ *
+ * Writes upgrade the encoding as needed; {@link #compact()} shrinks it back.
+ */
+final class TileStorage {
+    static final int TILES = Chunk.SIZE * Chunk.SIZE;
+
+    private static final int MAX_PALETTE = 16;
+
+    private byte uniform;
+    private byte[] palette;   // palette mode: index -> ordinal
+    private int paletteSize;
+    private byte[] nibbles;   // palette mode: two 4-bit indices per byte, low nibble = even tile
+    private byte[] bytes;     // bytes mode: ordinal per tile
+
+    TileStorage(int ordinal) {
+        uniform = (byte) ordinal;
+    }
+
+    int get(int i) {
+        if (nibbles != null) return palette[(nibbles[i >> 1] >> ((i & 1) << 2)) & 0xF];
+        if (bytes != null) return bytes[i];
+        return uniform;
+    }
+
+    void set(int i, int ordinal) {
+        if (nibbles != null) {
+            int p = paletteIndex(ordinal);
+            if (p >= 0) {
+                writeNibble(i, p);
+                return;
+            }
+            toBytes();
+        } else if (bytes == null) {
+            if (ordinal == uniform) return;
+            palette = new byte[MAX_PALETTE];
+            palette[0] = uniform;
+            paletteSize = 1;
+            nibbles = new byte[TILES / 2];
+            writeNibble(i, paletteIndex(ordinal));
+            return;
+        }
+        bytes[i] = (byte) ordinal;
+    }
+
+    /** Decodes tiles i .. i+n-1 (within one row or the whole chunk) into out[off..]. */
+    void getRange(int i, int n, byte[] out, int off) {
+        if (bytes != null) {
+            System.arraycopy(bytes, i, out, off, n);
+        } else if (nibbles != null) {
+            for (int k = 0; k < n; k++, i++) out[off + k] = palette[(nibbles[i >> 1] >> ((i & 1) << 2)) & 0xF];
+        } else {
+            Arrays.fill(out, off, off + n, uniform);
+        }
+    }
+
+    /** Sets tiles i .. i+n-1 to one ordinal: one palette lookup, then plain array writes. */
+    void fillRange(int i, int n, int ordinal) {
+        if (n == TILES) {
+            fill(ordinal);
+            return;
+        }
+        if (isUniform()) {
+            if (ordinal == uniform) return;
+            set(i, ordinal); // upgrades to a palette holding both
+        }
+        if (nibbles != null) {
+            int p = paletteIndex(ordinal);
+            if (p >= 0) {
+                int end = i + n;
+                if ((i & 1) != 0 && i < end) writeNibble(i++, p);
+                if ((end & 1) != 0 && i < end) writeNibble(--end, p);
+                Arrays.fill(nibbles, i >> 1, end >> 1, (byte) (p | (p << 4)));
+                return;
+            }
+            toBytes();
+        }
+        Arrays.fill(bytes, i, i + n, (byte) ordinal);
+    }
+
+    /** How many of tiles i .. i+n-1 have an ordinal whose bit is set in {@code types}. */
+    int count(int i, int n, long types) {
+        if (bytes != null) {
+            int c = 0;
+            for (int end = i + n; i < end; i++) c += (int) (types >>> bytes[i]) & 1;
+            return c;
+        }
+        if (nibbles != null) {
+            int match = 0; // palette slots whose ordinal is wanted
+            for (int p = 0; p < paletteSize; p++) match |= (int) ((types >>> palette[p]) & 1) << p;
+            if (match == 0) return 0;
+            int c = 0;
+            for (int end = i + n; i < end; i++) c += (match >>> ((nibbles[i >> 1] >> ((i & 1) << 2)) & 0xF)) & 1;
+            return c;
+        }
+        return (int) ((types >>> uniform) & 1) * n;
+    }
+
+    /**
+     * One bit per tile into {@code out} (TILES / 64 words, tile i at bit i & 63 of word i >> 6): set when the
+     * tile's ordinal is in {@code types}. A uniform chunk fills whole words, a palette chunk matches slots once.
+     */
+    void mask(long types, long[] out) {
+        if (isUniform()) {
+            Arrays.fill(out, ((types >>> uniform) & 1) != 0 ? -1L : 0L);
+            return;
+        }
+        int match = 0; // palette slots whose ordinal is wanted
+        for (int p = 0; p < paletteSize; p++) match |= (int) ((types >>> palette[p]) & 1) << p;
+        for (int w = 0, i = 0; w < out.length; w++) {
+            long bits = 0;
+            for (int b = 0; b < 64; b++, i++) {
+                long hit = nibbles != null ? (match >>> ((nibbles[i >> 1] >> ((i & 1) << 2)) & 0xF)) & 1 : (types >>> bytes[i]) & 1;
+                bits |= hit << b;
+            }
+            out[w] = bits;
+        }
+    }
+
+    /** Takes over a full row-major array of ordinals (TILES long) as the contents; call compact() after. */
+    void load(byte[] ordinals) {
+        fill(0);
+        bytes = ordinals;
+    }
+
+    void fill(int ordinal) {
+        uniform = (byte) ordinal;
+        palette = null;
+        paletteSize = 0;
+        nibbles = null;
+        bytes = null;
+    }
+
+    boolean isUniform() {
+        return nibbles == null && bytes == null;
+    }
+
+    /** Re-encodes with the smallest palette that still fits; a chunk of one type collapses to a single value. */
+    void compact() {
+        if (isUniform()) return;
+
+        boolean[] used = new boolean[256];
+        int distinct = 0;
+        for (int i = 0; i < TILES; i++) {
+            int o = get(i);
+            if (!used[o]) {
+                used[o] = true;
+                distinct++;
+            }
+        }
+        if (distinct == 1) {
+            fill(get(0));
+            return;
+        }
+        if (distinct > MAX_PALETTE) {
+            toBytes();
+            return;
+        }
+        if (nibbles != null && distinct == paletteSize) return;
+
+        byte[] values = new byte[TILES];
+        for (int i = 0; i < TILES; i++) values[i] = (byte) get(i);
+        palette = new byte[MAX_PALETTE];
+        paletteSize = 0;
+        nibbles = new byte[TILES / 2];
+        bytes = null;
+        for (int i = 0; i < TILES; i++) writeNibble(i, paletteIndex(values[i]));
+    }
+
+    /** Approximate retained heap in bytes (64-bit JVM, compressed oops). */
+    long memoryBytes() {
+        long b = 32; // header + fields
+        if (palette != null) b += 16 + palette.length;
+        if (nibbles != null) b += 16 + nibbles.length;
+        if (bytes != null) b += 16 + bytes.length;
+        return b;
+    }
+
+    TileStorage copy() {
+        TileStorage c = new TileStorage(uniform);
+        c.paletteSize = paletteSize;
+        if (palette != null) c.palette = palette.clone();
+        if (nibbles != null) c.nibbles = nibbles.clone();
+        if (bytes != null) c.bytes = bytes.clone();
+        return c;
+    }
+
+    /** Palette slot for an ordinal, adding it if there is room; -1 when the palette is full. */
+    private int paletteIndex(int ordinal) {
+        for (int p = 0; p < paletteSize; p++) if (palette[p] == ordinal) return p;
+        if (paletteSize == MAX_PALETTE) return -1;
+        palette[paletteSize] = (byte) ordinal;
+        return paletteSize++;
+    }
+
+    private void writeNibble(int i, int p) {
+        int shift = (i & 1) << 2;
+        int j = i >> 1;
+        nibbles[j] = (byte) ((nibbles[j] & ~(0xF << shift)) | (p << shift));
+    }
+
+    private void toBytes() {
+        byte[] b = new byte[TILES];
+        if (nibbles != null) {
+            for (int i = 0; i < TILES; i++) b[i] = (byte) get(i);
+        } else {
+            Arrays.fill(b, uniform);
+        }
+        bytes = b;
+        palette = null;
+        paletteSize = 0;
+        nibbles = null;
+    }
+}
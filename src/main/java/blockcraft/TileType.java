@@ -1,24 +1,59 @@
 package blockcraft;
 
-import com.badlogic.gdx.graphics.Color;
-
+/** Tile kinds. Colors are plain RGBA floats so simulation code needs no graphics classes. */
 public enum TileType {
-    AIR(false, false, new Color(0,0,0,0)),
-    GRASS(true, true, new Color(0.25f, 0.75f, 0.25f, 1f)),
-    DIRT(true, true, new Color(0.55f, 0.37f, 0.20f, 1f)),
-    STONE(true, true, new Color(0.55f, 0.55f, 0.60f, 1f)),
-    WATER(false, false, new Color(0.20f, 0.45f, 0.90f, 1f)),
-    LOG(true, true, new Color(0.55f, 0.30f, 0.12f, 1f)),
-    PLANKS(true, true, new Color(0.80f, 0.65f, 0.35f, 1f)),
-    GOLD(true, true, Color.GOLD);
+    AIR(false, false, 0f, 0f, 0f, 0f),
+    GRASS(true, true, 0.25f, 0.75f, 0.25f, 1f),
+    DIRT(true, true, 0.55f, 0.37f, 0.20f, 1f),
+    STONE(true, true, 0.55f, 0.55f, 0.60f, 1f),
+    WATER(false, false, 0.20f, 0.45f, 0.90f, 1f),
+    LOG(true, true, 0.55f, 0.30f, 0.12f, 1f),
+    PLANKS(true, true, 0.80f, 0.65f, 0.35f, 1f),
+    GOLD(true, true, 1f, 0.84f, 0f, 1f, 9);
+
+    /** values() without the defensive copy; index = ordinal */
+    static final TileType[] BY_ORDINAL = values();
+
+    /** every type, as a {@link #mask} */
+    public static final long ANY = -1L;
+
+    /** the solid types, as a {@link #mask}; what World's occupancy bits are made of */
+    public static final long SOLID = solidMask();
 
     public final boolean solid;
     public final boolean mineable;
-    public final Color color;
+    public final float r;
+    public final float g;
+    public final float b;
+    public final float a;
+
+    /** light level the tile gives off (0..LightEngine.MAX_LEVEL); solid tiles block light */
+    public final int emission;
 
-    TileType(boolean solid, boolean mineable, Color color) {
+    TileType(boolean solid, boolean mineable, float r, float g, float b, float a) {
+        this(solid, mineable, r, g, b, a, 0);
+    }
+
+    TileType(boolean solid, boolean mineable, float r, float g, float b, float a, int emission) {
         this.solid = solid;
         this.mineable = mineable;
-        this.color = color;
+        this.r = r;
+        this.g = g;
+        this.b = b;
+        this.a = a;
+        this.emission = emission;
+    }
+
+    /** Bit set of types (bit = ordinal), for World's region queries and stamps. */
+    public static long mask(TileType... types) {
+        long m = 0;
+        for (TileType t : types) m |= 1L << t.ordinal();
+        return m;
+    }
+
+    private static long solidMask() {
+        long m = 0;
+        for (TileType t : BY_ORDINAL) if (t.solid) m |= 1L << t.ordinal();
+        return m;
     }
 }
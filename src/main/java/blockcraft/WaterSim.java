@@ -0,0 +1,134 @@
+package blockcraft;
+
+import java.util.BitSet;
+
+/**
+ * Falling-sand style WATER: each cell moves at most one tile per tick, down (+y) if open, otherwise
+ * one step sideways towards the nearest drop within FLOW_REACH tiles. Water is moved, never created,
+ * so a pool keeps its volume.
+ * - only active cells are visited; World.set edits wake the changed tile's neighbourhood through the
+ *   listener, and a cell that cannot move goes back to sleep, so still water costs nothing per tick
+ * - at most {@link #budget} cells are stepped per tick; the rest wait in the queue, so a large flood
+ *   spreads over several ticks instead of stalling one
+ * - reads go through World.peek, which answers for chunks that are not resident from the generator, and
+ *   moving into one loads it (World.set): the flow never depends on what the view happened to stream
+ * - deterministic: cells run in wake order and ties pick a side from (x, y, tick)
+ */
+public final class WaterSim implements WorldListener {
+    public static final int DEFAULT_BUDGET = 4096;
+
+    /**
+     * How far sideways a cell looks for somewhere lower to go. Cells hold no partial levels, so a
+     * settled surface can keep a one-tile step every FLOW_REACH columns.
+     */
+    static final int FLOW_REACH = 16;
+
+    private final World world;
+
+    /** max cells stepped per tick */
+    public int budget = DEFAULT_BUDGET;
+
+    // FIFO ring of packed positions (y * width + x), deduplicated by queued
+    private int[] queue = new int[1024];
+    private int head;
+    private int size;
+    private final BitSet queued = new BitSet();
+
+    private long ticks;
+    private int moved;
+
+    public WaterSim(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public void tileChanged(int x, int y, TileType before, TileType after) {
+        // water above or beside the change may now fall or spread into it
+        for (int dx = -FLOW_REACH; dx <= FLOW_REACH; dx++) {
+            wake(x + dx, y - 1);
+            wake(x + dx, y);
+        }
+        wake(x, y + 1);
+    }
+
+    /** Queues (x, y) if it holds WATER. */
+    public void wake(int x, int y) {
+        if (!world.inBounds(x, y) || world.peek(x, y) != TileType.WATER) return;
+        int p = y * world.width + x;
+        if (queued.get(p)) return;
+        queued.set(p);
+        if (size == queue.length) {
+            int[] grown = new int[size * 2];
+            for (int i = 0; i < size; i++) grown[i] = queue[(head + i) % size];
+            queue = grown;
+            head = 0;
+        }
+        queue[(head + size++) % queue.length] = p;
+    }
+
+    /** Steps the cells that were active when the tick started, up to the budget. */
+    public void tick() {
+        moved = 0;
+        int n = Math.min(size, budget);
+        for (int i = 0; i < n; i++) {
+            int p = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            queued.clear(p);
+            step(p % world.width, p / world.width);
+        }
+        ticks++;
+    }
+
+    /** cells waiting to be stepped */
+    public int active() { return size; }
+
+    /** cells moved by the last tick */
+    public int moved() { return moved; }
+
+    /** Forgets all active cells (after the world was replaced in bulk). */
+    public void clear() {
+        head = 0;
+        size = 0;
+        queued.clear();
+    }
+
+    private void step(int x, int y) {
+        if (world.peek(x, y) != TileType.WATER) return;
+        if (open(x, y + 1)) {
+            move(x, y, x, y + 1);
+            return;
+        }
+        int left = dropDistance(x, y, -1), right = dropDistance(x, y, 1);
+        if (left == 0 && right == 0) return; // settled: sleeps until an edit wakes it
+        int dir;
+        if (left == 0) dir = 1;
+        else if (right == 0) dir = -1;
+        else if (left != right) dir = left < right ? -1 : 1;
+        else dir = ((x + y + ticks) & 1) == 0 ? -1 : 1;
+        move(x, y, x + dir, y);
+    }
+
+    /**
+     * Steps sideways along open tiles until one with an open tile below it; 0 when there is none within
+     * FLOW_REACH (the water would only wander on a flat floor).
+     */
+    private int dropDistance(int x, int y, int dir) {
+        for (int d = 1; d <= FLOW_REACH; d++) {
+            int nx = x + d * dir;
+            if (!open(nx, y)) return 0;
+            if (open(nx, y + 1)) return d;
+        }
+        return 0;
+    }
+
+    private boolean open(int x, int y) {
+        return world.peek(x, y) == TileType.AIR;
+    }
+
+    private void move(int x, int y, int nx, int ny) {
+        world.set(x, y, TileType.AIR);
+        world.set(nx, ny, TileType.WATER);
+        moved++;
+    }
+}
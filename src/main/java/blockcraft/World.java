@@ -1,26 +1,74 @@
 package blockcraft;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * - fixed grid (later to chunks)
- * - procedural generation using a seed
+ * Bounded tile world stored as 32x32 chunks.
+ * - chunks are generated from the seed on first access, so startup cost does not grow with world size
+ * - clean chunks sit in a bounded LRU and are dropped once out of range (they regenerate identically)
+ * - edited chunks are pinned, so heap grows with edits, not with area
+ * - chunk lookup is a flat array index (one ref per chunk), no hashing on the render path
+ * - tiles are stored as palette-encoded ordinals (see TileStorage), 0.5 byte per tile or less
+ * - {@link #prefetch} generates many chunks at once on a fork-join pool; the result is identical to
+ *   {@link #stream} because WorldGenerator is a pure function of (seed, x, y)
+ * - {@link #snapshot} freezes every tile copy-on-write, for undo and for readers on other threads; it
+ *   holds the edited chunks only, since the rest is what the generator makes
+ * - rectangle operations (fillRect, copy/paste, stamp, count, find) clip once and work a chunk row at
+ *   a time on the encoded tiles, instead of a bounds check and chunk lookup per tile
+ * - every chunk also keeps a bit per solid tile, kept in step by every write: collision ({@link #anySolid},
+ *   {@link #sweepX}/{@link #sweepY}) masks 64 tiles per word, and {@link #raycast} walks the bits tile by tile
  */
 public final class World {
+    public static final int CHUNK_SIZE = Chunk.SIZE;
+    public static final int DEFAULT_MAX_CACHED_CHUNKS = 256;
+
+    /** gap {@link #sweepX}/{@link #sweepY} leave before a wall, so float rounding never puts an edge inside it */
+    public static final float SKIN = 1f / 1024f;
+
     public final int width;
     public final int height;
-    private final TileType[] tiles;// row-major
-    private Object rng;
+
+    private final int chunksX;
+    private final int chunksY;
+    private final Chunk[] chunks; // cy * chunksX + cx, null = not resident
+    private final int maxCachedChunks;
+
+    // LRU of clean chunks (newest = most recently streamed)
+    private Chunk newest;
+    private Chunk oldest;
+    private int cachedCount;
+    private int pinnedCount;
+    private int[] pinned = new int[16]; // chunk indices of the edited chunks, ascending, pinnedCount of them
+
+    private WorldListener[] listeners = new WorldListener[0];
+    private long edits;
+    private final byte[] scratch = new byte[TileStorage.TILES]; // tiles of one run before a bulk write
+    private final RayHit sight = new RayHit(); // lineOfSight's ray
+
+    private WorldGenerator generator; // null = flat fill
+    private TileType fillTile = TileType.AIR;
 
     public World(int width, int height) {
+        this(width, height, DEFAULT_MAX_CACHED_CHUNKS);
+    }
+
+    public World(int width, int height, int maxCachedChunks) {
         this.width = width;
         this.height = height;
-        this.tiles = new TileType[width * height];
+        this.chunksX = (width + Chunk.MASK) >> Chunk.SHIFT;
+        this.chunksY = (height + Chunk.MASK) >> Chunk.SHIFT;
+        this.chunks = new Chunk[chunksX * chunksY];
+        this.maxCachedChunks = Math.max(1, maxCachedChunks);
         fill(TileType.AIR);
     }
 
+    /** Drops all chunks; from now on every tile reads as {@code t} until set. */
     public void fill(TileType t) {
-        for (int i = 0; i < tiles.length; i++) tiles[i] = t;
+        clear();
+        generator = null;
+        fillTile = t;
     }
 
     public boolean inBounds(int x, int y) {
@@ -29,67 +77,614 @@ public final class World {
 
     public TileType get(int x, int y) {
         if (!inBounds(x, y)) return TileType.STONE; // outside is solid wall
-        return tiles[y * width + x];
+        Chunk c = chunks[(y >> Chunk.SHIFT) * chunksX + (x >> Chunk.SHIFT)];
+        if (c == null) c = load(x >> Chunk.SHIFT, y >> Chunk.SHIFT);
+        return c.get(x & Chunk.MASK, y & Chunk.MASK);
+    }
+
+    /**
+     * Like {@link #get}, but never loads: a chunk that is not resident is unedited, so its tiles are read
+     * straight from the generator. The answer never depends on what happens to be resident, which keeps
+     * simulation reads the same however the view streamed. Leaves the LRU alone; safe from several threads
+     * while the World is not modified.
+     */
+    public TileType peek(int x, int y) {
+        if (!inBounds(x, y)) return TileType.STONE;
+        Chunk c = chunks[(y >> Chunk.SHIFT) * chunksX + (x >> Chunk.SHIFT)];
+        return c != null ? c.get(x & Chunk.MASK, y & Chunk.MASK) : unloaded(x, y);
     }
 
     public void set(int x, int y, TileType t) {
         if (!inBounds(x, y)) return;
-        tiles[y * width + x] = t;
+        Chunk c = chunks[(y >> Chunk.SHIFT) * chunksX + (x >> Chunk.SHIFT)];
+        if (c == null) c = load(x >> Chunk.SHIFT, y >> Chunk.SHIFT);
+        TileType before = c.set(x & Chunk.MASK, y & Chunk.MASK, t);
+        if (before == t) return;
+        changed(c, 1);
+        for (WorldListener l : listeners) l.tileChanged(x, y, before, t);
     }
 
-    public void generate(long seed) {
-        fill(TileType.AIR);
-        Random rng = new Random(seed);
-
-        int baseGround = (int) (height * 0.62f);
+    /**
+     * Sets every tile of the rectangle (x0, y0) .. (x1, y1), inclusive and clipped to the world, to {@code t}.
+     * - one chunk lookup per chunk; a rectangle spanning whole chunk rows fills them as one run,
+     *   a whole chunk collapses to a uniform one
+     * - runs already all {@code t} are skipped without a write; listeners hear each tile that changed
+     * @return the number of tiles that changed
+     */
+    public int fillRect(int x0, int y0, int x1, int y1, TileType t) {
+        int minX = Math.max(0, x0), minY = Math.max(0, y0);
+        int maxX = Math.min(width - 1, x1), maxY = Math.min(height - 1, y1);
+        if (minX > maxX || minY > maxY) return 0;
+        int ordinal = t.ordinal();
+        long same = 1L << ordinal;
+        int total = 0;
+        for (int cy = minY >> Chunk.SHIFT; cy <= maxY >> Chunk.SHIFT; cy++) {
+            int ly0 = Math.max(minY, cy << Chunk.SHIFT) & Chunk.MASK, ly1 = Math.min(maxY, (cy << Chunk.SHIFT) | Chunk.MASK) & Chunk.MASK;
+            for (int cx = minX >> Chunk.SHIFT; cx <= maxX >> Chunk.SHIFT; cx++) {
+                int lx0 = Math.max(minX, cx << Chunk.SHIFT) & Chunk.MASK, lx1 = Math.min(maxX, (cx << Chunk.SHIFT) | Chunk.MASK) & Chunk.MASK;
+                Chunk c = chunkAt(cx, cy);
+                boolean wholeRows = lx0 == 0 && lx1 == Chunk.MASK;
+                for (int ly = ly0; ly <= ly1; ly++) {
+                    int i = (ly << Chunk.SHIFT) | lx0;
+                    int n = wholeRows ? (ly1 - ly + 1) << Chunk.SHIFT : lx1 - lx0 + 1;
+                    int k = n - c.tiles.count(i, n, same);
+                    if (k > 0) {
+                        if (listeners.length > 0) c.tiles.getRange(i, n, scratch, 0);
+                        c.own();
+                        c.tiles.fillRange(i, n, ordinal);
+                        c.setSolid(i, n, t.solid);
+                        changed(c, k);
+                        total += k;
+                        if (listeners.length > 0) notifyRun(c, i, n, t);
+                    }
+                    if (wholeRows) break;
+                }
+            }
+        }
+        return total;
+    }
 
-        for (int x = 0; x < width; x++) {
-            int bump = rng.nextInt(5) - 2; // -2..2
-            int gy = clamp(baseGround + bump, 4, height - 4);
+    /** The rectangle (x0, y0) .. (x1, y1), inclusive, as a new region; see {@link #copy(int, int, TileRegion)}. */
+    public TileRegion copy(int x0, int y0, int x1, int y1) {
+        TileRegion r = new TileRegion(x1 - x0 + 1, y1 - y0 + 1);
+        copy(x0, y0, r);
+        return r;
+    }
 
-            for (int y = gy; y < height; y++) {
-                int goldChance = rng.nextInt(50);
-                if (y == gy) set(x, y, TileType.GRASS);
-                else if (y < gy + 3)  set(x, y, TileType.DIRT);
-                else if (goldChance != 1) set(x, y, TileType.STONE);
-                else set(x, y, TileType.GOLD);
+    /**
+     * Reads the tiles under {@code into} placed with its top-left corner at (x, y), a chunk row at a time.
+     * Cells outside the world read as STONE, like {@link #get}. Loads chunks as needed.
+     */
+    public void copy(int x, int y, TileRegion into) {
+        int minX = Math.max(0, x), minY = Math.max(0, y);
+        int maxX = Math.min(width, x + into.width) - 1, maxY = Math.min(height, y + into.height) - 1;
+        if (minX != x || minY != y || maxX != x + into.width - 1 || maxY != y + into.height - 1) {
+            Arrays.fill(into.tiles, (byte) TileType.STONE.ordinal());
+        }
+        for (int wy = minY; wy <= maxY; wy++) {
+            int off = (wy - y) * into.width + (minX - x);
+            for (int wx = minX; wx <= maxX; ) {
+                int n = Math.min(maxX, wx | Chunk.MASK) - wx + 1;
+                Chunk c = chunkAt(wx >> Chunk.SHIFT, wy >> Chunk.SHIFT);
+                c.tiles.getRange(((wy & Chunk.MASK) << Chunk.SHIFT) | (wx & Chunk.MASK), n, into.tiles, off);
+                off += n;
+                wx += n;
             }
+        }
+    }
 
-            // water pools above ground in random low spots
-            if (rng.nextFloat() < 0.05f) {
-                int poolY = gy - 1;
-                int poolW = 4 + rng.nextInt(8);
-                for (int px = x; px < Math.min(width, x + poolW); px++) {
-                    if (poolY >= 0 && get(px, poolY) == TileType.AIR) set(px, poolY, TileType.WATER);
+    /** Writes every non-KEEP cell of {@code r} with its top-left corner at (x, y). @return tiles changed */
+    public int paste(TileRegion r, int x, int y) {
+        return stamp(r, x, y, TileType.ANY);
+    }
+
+    /**
+     * Writes the non-KEEP cells of {@code r} with its top-left corner at (x, y), but only over tiles whose
+     * type is in {@code replaceable} (a TileType.mask): a prefab stamped with mask(AIR) never cuts into terrain.
+     * - clipped to the world once; each chunk row is decoded once, compared and written in one pass
+     * - listeners hear each tile that changed, after its chunk row is written
+     * @return the number of tiles that changed
+     */
+    public int stamp(TileRegion r, int x, int y, long replaceable) {
+        int minX = Math.max(0, x), minY = Math.max(0, y);
+        int maxX = Math.min(width, x + r.width) - 1, maxY = Math.min(height, y + r.height) - 1;
+        byte[] src = r.tiles;
+        int total = 0;
+        for (int wy = minY; wy <= maxY; wy++) {
+            int off = (wy - y) * r.width + (minX - x);
+            for (int wx = minX; wx <= maxX; ) {
+                int n = Math.min(maxX, wx | Chunk.MASK) - wx + 1;
+                Chunk c = chunkAt(wx >> Chunk.SHIFT, wy >> Chunk.SHIFT);
+                int i = ((wy & Chunk.MASK) << Chunk.SHIFT) | (wx & Chunk.MASK);
+                c.tiles.getRange(i, n, scratch, 0);
+                int k = 0;
+                for (int j = 0; j < n; j++) {
+                    byte v = src[off + j], before = scratch[j];
+                    if (v == TileRegion.KEEP || v == before || ((replaceable >>> before) & 1) == 0) continue;
+                    if (k++ == 0) c.own();
+                    c.tiles.set(i + j, v);
+                    c.setSolid(i + j, (TileType.SOLID >>> v & 1) != 0);
                 }
+                if (k > 0) {
+                    changed(c, k);
+                    total += k;
+                    if (listeners.length > 0) notifyRun(c, i, n, null);
+                }
+                off += n;
+                wx += n;
             }
+        }
+        return total;
+    }
 
-            // trees
-            if (rng.nextFloat() < 0.07f) {
-                int ty = gy - 1;
-                if (ty >= 2 && get(x, ty) == TileType.AIR && get(x, ty + 1).solid) {
-                    set(x, ty, TileType.LOG);
-                    if (get(x, ty - 1) == TileType.AIR) set(x, ty - 1, TileType.LOG);
+    /**
+     * How many tiles of the rectangle (x0, y0) .. (x1, y1), inclusive and clipped to the world, have a type in
+     * {@code types} (a TileType.mask). Counts straight from the chunk encoding: a uniform chunk costs O(1),
+     * a palette chunk matches palette slots once rather than decoding types per tile.
+     */
+    public int count(int x0, int y0, int x1, int y1, long types) {
+        int minX = Math.max(0, x0), minY = Math.max(0, y0);
+        int maxX = Math.min(width - 1, x1), maxY = Math.min(height - 1, y1);
+        if (minX > maxX || minY > maxY) return 0;
+        int total = 0;
+        for (int cy = minY >> Chunk.SHIFT; cy <= maxY >> Chunk.SHIFT; cy++) {
+            int ly0 = Math.max(minY, cy << Chunk.SHIFT) & Chunk.MASK, ly1 = Math.min(maxY, (cy << Chunk.SHIFT) | Chunk.MASK) & Chunk.MASK;
+            for (int cx = minX >> Chunk.SHIFT; cx <= maxX >> Chunk.SHIFT; cx++) {
+                int lx0 = Math.max(minX, cx << Chunk.SHIFT) & Chunk.MASK, lx1 = Math.min(maxX, (cx << Chunk.SHIFT) | Chunk.MASK) & Chunk.MASK;
+                TileStorage tiles = chunkAt(cx, cy).tiles;
+                if (lx0 == 0 && lx1 == Chunk.MASK) {
+                    total += tiles.count(ly0 << Chunk.SHIFT, (ly1 - ly0 + 1) << Chunk.SHIFT, types);
+                } else {
+                    for (int ly = ly0; ly <= ly1; ly++) total += tiles.count((ly << Chunk.SHIFT) | lx0, lx1 - lx0 + 1, types);
                 }
             }
         }
+        return total;
+    }
 
-        // scattered stones above ground
-        for (int i = 0; i < 60; i++) {
-            int cx = rng.nextInt(width);
-            int cy = rng.nextInt(baseGround - 2);
-            int r = 1 + rng.nextInt(2);
-            for (int y = cy - r; y <= cy + r; y++) {
-                for (int x = cx - r; x <= cx + r; x++) {
-                    if (inBounds(x, y) && rng.nextFloat() < 0.65f && get(x, y) == TileType.AIR) {
-                        set(x, y, TileType.STONE);
+    /**
+     * The first tile of the rectangle (x0, y0) .. (x1, y1), in row-major order, whose type is in {@code types}:
+     * as y * width + x, or -1 when there is none. Chunk rows without a match are skipped by count alone.
+     */
+    public int find(int x0, int y0, int x1, int y1, long types) {
+        int minX = Math.max(0, x0), minY = Math.max(0, y0);
+        int maxX = Math.min(width - 1, x1), maxY = Math.min(height - 1, y1);
+        for (int wy = minY; wy <= maxY; wy++) {
+            for (int wx = minX; wx <= maxX; ) {
+                int n = Math.min(maxX, wx | Chunk.MASK) - wx + 1;
+                TileStorage tiles = chunkAt(wx >> Chunk.SHIFT, wy >> Chunk.SHIFT).tiles;
+                int i = ((wy & Chunk.MASK) << Chunk.SHIFT) | (wx & Chunk.MASK);
+                if (tiles.count(i, n, types) > 0) {
+                    tiles.getRange(i, n, scratch, 0);
+                    for (int j = 0; ; j++) {
+                        if (((types >>> scratch[j]) & 1) != 0) return wy * width + wx + j;
                     }
                 }
+                wx += n;
+            }
+        }
+        return -1;
+    }
+
+    /** Whether the tile is solid; outside the world counts as solid, like {@link #get}. Loads the chunk. */
+    public boolean solid(int x, int y) {
+        if (!inBounds(x, y)) return true;
+        Chunk c = chunks[(y >> Chunk.SHIFT) * chunksX + (x >> Chunk.SHIFT)];
+        if (c == null) c = load(x >> Chunk.SHIFT, y >> Chunk.SHIFT);
+        return c.solid(x & Chunk.MASK, y & Chunk.MASK);
+    }
+
+    /** Like {@link #solid}, but never loads: see {@link #peek}. Safe from several threads while the World is not modified. */
+    public boolean peekSolid(int x, int y) {
+        if (!inBounds(x, y)) return true;
+        Chunk c = chunks[(y >> Chunk.SHIFT) * chunksX + (x >> Chunk.SHIFT)];
+        return c != null ? c.solid(x & Chunk.MASK, y & Chunk.MASK) : unloaded(x, y).solid;
+    }
+
+    /** What a tile of a chunk that is not resident holds: what the generator makes there. */
+    private TileType unloaded(int x, int y) {
+        return generator != null ? generator.tileAt(x, y) : fillTile;
+    }
+
+    /**
+     * Whether any tile of the rectangle (x0, y0) .. (x1, y1), inclusive, is solid; a rectangle reaching outside
+     * the world always is. Tests the solid bits a word (two chunk rows) at a time. Loads chunks as needed.
+     */
+    public boolean anySolid(int x0, int y0, int x1, int y1) {
+        if (x0 > x1 || y0 > y1) return false;
+        if (x0 < 0 || y0 < 0 || x1 >= width || y1 >= height) return true;
+        for (int cy = y0 >> Chunk.SHIFT; cy <= y1 >> Chunk.SHIFT; cy++) {
+            int ly0 = Math.max(y0, cy << Chunk.SHIFT) & Chunk.MASK, ly1 = Math.min(y1, (cy << Chunk.SHIFT) | Chunk.MASK) & Chunk.MASK;
+            for (int cx = x0 >> Chunk.SHIFT; cx <= x1 >> Chunk.SHIFT; cx++) {
+                int lx0 = Math.max(x0, cx << Chunk.SHIFT) & Chunk.MASK, lx1 = Math.min(x1, (cx << Chunk.SHIFT) | Chunk.MASK) & Chunk.MASK;
+                long row = (-1L >>> (63 - lx1 + lx0)) << lx0; // columns lx0..lx1 of one row
+                long[] bits = chunkAt(cx, cy).solid;
+                for (int ly = ly0; ly <= ly1; ly = (ly | 1) + 1) {
+                    long m = ((ly & 1) == 0 ? row : 0) | (ly < ly1 || (ly & 1) != 0 ? row << Chunk.SIZE : 0);
+                    if ((bits[ly >> 1] & m) != 0) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How far the box (x0, y0) .. (x1, y1) can move by {@code dx} along x: dx itself when the way is clear,
+     * otherwise up to {@link #SKIN} short of the first solid tile column it would enter (0 when already
+     * touching). Tiles the box already overlaps do not stop it, so a box stuck in a wall can walk out.
+     * Tile overlap is by floor of each edge, as for {@link #anySolid} with those floors.
+     */
+    public float sweepX(float x0, float y0, float x1, float y1, float dx) {
+        int r0 = (int) Math.floor(y0), r1 = (int) Math.floor(y1);
+        if (dx > 0) {
+            for (int c = (int) Math.floor(x1) + 1, last = (int) Math.floor(x1 + dx); c <= last; c++) {
+                if (anySolid(c, r0, c, r1)) return Math.max(0f, c - SKIN - x1);
+            }
+        } else if (dx < 0) {
+            for (int c = (int) Math.floor(x0) - 1, last = (int) Math.floor(x0 + dx); c >= last; c--) {
+                if (anySolid(c, r0, c, r1)) return Math.min(0f, c + 1 + SKIN - x0);
+            }
+        }
+        return dx;
+    }
+
+    /** {@link #sweepX} along y. */
+    public float sweepY(float x0, float y0, float x1, float y1, float dy) {
+        int c0 = (int) Math.floor(x0), c1 = (int) Math.floor(x1);
+        if (dy > 0) {
+            for (int r = (int) Math.floor(y1) + 1, last = (int) Math.floor(y1 + dy); r <= last; r++) {
+                if (anySolid(c0, r, c1, r)) return Math.max(0f, r - SKIN - y1);
+            }
+        } else if (dy < 0) {
+            for (int r = (int) Math.floor(y0) - 1, last = (int) Math.floor(y0 + dy); r >= last; r--) {
+                if (anySolid(c0, r, c1, r)) return Math.min(0f, r + 1 + SKIN - y0);
+            }
+        }
+        return dy;
+    }
+
+    /**
+     * Walks the tiles along the ray from (ox, oy) in direction (dx, dy) (any length) in the order it enters
+     * them (a grid DDA: one step per tile crossed, no sampling) and stops at the first solid one within
+     * {@code maxDist} tiles. The tile holding the origin counts; outside the world is solid. Loads chunks as
+     * needed, allocates nothing.
+     * @return true on a hit, with the tile, the distance to where the ray enters it and the face it enters
+     *         through in {@code hit}; false (hit untouched) when nothing solid is within maxDist
+     */
+    public boolean raycast(float ox, float oy, float dx, float dy, float maxDist, RayHit hit) {
+        int x = (int) Math.floor(ox), y = (int) Math.floor(oy);
+        float len = (float) Math.sqrt(dx * dx + dy * dy);
+        if (!(len > 0)) {
+            if (!solid(x, y)) return false;
+            hit.set(x, y, 0f, 0, 0);
+            return true;
+        }
+        dx /= len;
+        dy /= len;
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0, stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        // distance along the ray between grid lines, and to the next one, per axis
+        float deltaX = stepX != 0 ? Math.abs(1f / dx) : Float.POSITIVE_INFINITY;
+        float deltaY = stepY != 0 ? Math.abs(1f / dy) : Float.POSITIVE_INFINITY;
+        float nextX = stepX > 0 ? (x + 1 - ox) * deltaX : stepX < 0 ? (ox - x) * deltaX : Float.POSITIVE_INFINITY;
+        float nextY = stepY > 0 ? (y + 1 - oy) * deltaY : stepY < 0 ? (oy - y) * deltaY : Float.POSITIVE_INFINITY;
+        float t = 0f;
+        int nx = 0, ny = 0;
+        while (!solid(x, y)) {
+            if (nextX < nextY) {
+                t = nextX;
+                x += stepX;
+                nextX += deltaX;
+                nx = -stepX;
+                ny = 0;
+            } else {
+                t = nextY;
+                y += stepY;
+                nextY += deltaY;
+                nx = 0;
+                ny = -stepY;
             }
+            if (t > maxDist) return false;
         }
+        hit.set(x, y, t, nx, ny);
+        return true;
+    }
+
+    /**
+     * Whether a straight line from (ox, oy) to the centre of tile (tx, ty) gets there without passing through
+     * another solid tile first: the target itself may be solid (mining), the tiles before it may not.
+     */
+    public boolean lineOfSight(float ox, float oy, int tx, int ty) {
+        float dx = tx + 0.5f - ox, dy = ty + 0.5f - oy;
+        float dist = (float) Math.sqrt(dx * dx + dy * dy);
+        if (!raycast(ox, oy, dx, dy, dist, sight)) return true;
+        return sight.x == tx && sight.y == ty;
     }
 
-    private static int clamp(int v, int lo, int hi) {
-        return Math.max(lo, Math.min(hi, v));
+    /** Tile changes made through {@link #set} so far. */
+    public long edits() { return edits; }
+
+    /**
+     * A frozen copy of every tile, for undo or for readers on other threads. O(edited chunks): their tiles
+     * are shared copy-on-write, and each one the world edits afterwards is copied once.
+     */
+    public WorldSnapshot snapshot() {
+        return new WorldSnapshot(this);
+    }
+
+    /**
+     * Sets every tile back to what {@code s} holds, through {@link #set} so listeners hear each change.
+     * Only chunks edited on either side may differ, so the cost follows what changed since (or after) {@code s}:
+     * - chunks edited in {@code s}, unless the world still shares their tiles
+     * - chunks edited now but not in {@code s}, which go back to generator output
+     */
+    public void restore(WorldSnapshot s) {
+        if (s.width != width || s.height != height) {
+            throw new IllegalArgumentException("snapshot of a " + s.width + "x" + s.height + " world, this is " + width + "x" + height);
+        }
+        for (int k = 0; k < s.editedCount(); k++) {
+            int i = s.editedIndex(k);
+            if (chunks[i] == null || chunks[i].tiles != s.editedTiles(k)) rewrite(s, i);
+        }
+        // the first loop pins only chunks s has edited, so this list holds still
+        for (int k = 0; k < pinnedCount; k++) {
+            if (!s.edited(pinned[k])) rewrite(s, pinned[k]);
+        }
+    }
+
+    private void rewrite(WorldSnapshot s, int i) {
+        int x0 = (i % chunksX) << Chunk.SHIFT, y0 = (i / chunksX) << Chunk.SHIFT;
+        for (int y = y0; y < Math.min(height, y0 + Chunk.SIZE); y++) {
+            for (int x = x0; x < Math.min(width, x0 + Chunk.SIZE); x++) set(x, y, s.get(x, y));
+        }
+    }
+
+    public void addListener(WorldListener l) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = l;
+    }
+
+    public void removeListener(WorldListener l) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] != l) continue;
+            WorldListener[] out = new WorldListener[listeners.length - 1];
+            System.arraycopy(listeners, 0, out, 0, i);
+            System.arraycopy(listeners, i + 1, out, i, out.length - i);
+            listeners = out;
+            return;
+        }
+    }
+
+    /** Terrain is generated lazily, chunk by chunk, as it gets streamed in. */
+    public void generate(long seed) {
+        clear();
+        generator = new WorldGenerator(seed, width, height);
+        fillTile = TileType.AIR;
+    }
+
+    /**
+     * Makes sure every chunk overlapping the tile rectangle is resident and marks it recently used.
+     * Call once per frame with the area around the camera/player.
+     */
+    public void stream(int minX, int minY, int maxX, int maxY) {
+        int minCx = Math.max(0, minX >> Chunk.SHIFT);
+        int minCy = Math.max(0, minY >> Chunk.SHIFT);
+        int maxCx = Math.min(chunksX - 1, maxX >> Chunk.SHIFT);
+        int maxCy = Math.min(chunksY - 1, maxY >> Chunk.SHIFT);
+
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                Chunk c = chunks[cy * chunksX + cx];
+                if (c == null) {
+                    load(cx, cy);
+                } else if (!c.modified && c != newest) {
+                    unlink(c);
+                    linkNewest(c);
+                }
+            }
+        }
+    }
+
+    /** {@link #prefetch(int, int, int, int, ForkJoinPool)} on the common pool. */
+    public void prefetch(int minX, int minY, int maxX, int maxY) {
+        prefetch(minX, minY, maxX, maxY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same effect as {@link #stream}, but missing chunks are generated in parallel on {@code pool}.
+     * - chunks are generated independently, then installed on the calling thread in row-major order,
+     *   so contents and LRU order do not depend on the number of threads
+     * - the rectangle should fit in the chunk cache, or early chunks are evicted again right away
+     * - not for use while another thread reads this World
+     */
+    public void prefetch(int minX, int minY, int maxX, int maxY, ForkJoinPool pool) {
+        int minCx = Math.max(0, minX >> Chunk.SHIFT);
+        int minCy = Math.max(0, minY >> Chunk.SHIFT);
+        int maxCx = Math.min(chunksX - 1, maxX >> Chunk.SHIFT);
+        int maxCy = Math.min(chunksY - 1, maxY >> Chunk.SHIFT);
+        if (minCx > maxCx || minCy > maxCy) return;
+
+        Chunk[] missing = new Chunk[(maxCx - minCx + 1) * (maxCy - minCy + 1)];
+        int n = 0;
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                if (chunks[cy * chunksX + cx] == null) missing[n++] = new Chunk(cx, cy, fillTile);
+            }
+        }
+        if (n > 0 && generator != null) pool.invoke(new GenerateTask(generator, missing, 0, n));
+
+        for (int i = 0; i < n; i++) install(missing[i]);
+        stream(minX, minY, maxX, maxY);
+    }
+
+    public int residentChunks() { return cachedCount + pinnedCount; }
+
+    public int pinnedChunks() { return pinnedCount; }
+
+    /** Approximate heap held by resident tile data, in bytes. */
+    public long tileMemoryBytes() {
+        long b = 16 + 4L * chunks.length;
+        for (Chunk c : chunks) if (c != null) b += 32 + c.tiles.memoryBytes();
+        return b;
+    }
+
+    /** Re-encodes edited chunks as compactly as possible (uniform chunks collapse to one value). */
+    public void compact() {
+        for (Chunk c : chunks) {
+            if (c == null || !c.modified) continue;
+            c.own();
+            c.tiles.compact();
+        }
+    }
+
+    public int chunksX() { return chunksX; }
+
+    public int chunksY() { return chunksY; }
+
+    /** Seed-generated terrain, or null for a flat {@link #fill} world. */
+    WorldGenerator generator() { return generator; }
+
+    TileType fillTile() { return fillTile; }
+
+    /** Backing chunk array (cy * chunksX + cx, null = not resident). Read-only for callers. */
+    Chunk[] chunks() { return chunks; }
+
+    /** Indices of the edited chunks, ascending, in the first {@link #pinnedChunks} entries. Read-only for callers. */
+    int[] pinnedIndices() { return pinned; }
+
+    /** Installs saved tile data as an edited (pinned) chunk, replacing whatever was there. */
+    void restoreChunk(int cx, int cy, TileStorage tiles) {
+        int i = cy * chunksX + cx;
+        Chunk old = chunks[i];
+        if (old != null && !old.modified) {
+            unlink(old);
+            cachedCount--;
+        }
+        if (old == null || !old.modified) pin(i);
+        Chunk c = new Chunk(cx, cy, tiles);
+        c.syncSolid();
+        c.modified = true;
+        chunks[i] = c;
+    }
+
+    /** Resident chunk at chunk coords (loading it if needed), or null outside the world. */
+    Chunk chunkAt(int cx, int cy) {
+        if (cx < 0 || cy < 0 || cx >= chunksX || cy >= chunksY) return null;
+        Chunk c = chunks[cy * chunksX + cx];
+        return c != null ? c : load(cx, cy);
+    }
+
+    private Chunk load(int cx, int cy) {
+        Chunk c = new Chunk(cx, cy, fillTile);
+        if (generator != null) {
+            generator.generate(c);
+            c.tiles.compact();
+        }
+        return install(c);
+    }
+
+    /** Bookkeeping after {@code n} tiles of {@code c} changed: version, edit count, pinning. */
+    private void changed(Chunk c, int n) {
+        c.version++;
+        edits += n;
+        if (!c.modified) {
+            c.modified = true;
+            unlink(c);
+            cachedCount--;
+            pin(c.cy * chunksX + c.cx);
+        }
+    }
+
+    /** Adds chunk index i to {@link #pinned}, keeping it ascending. */
+    private void pin(int i) {
+        if (pinnedCount == pinned.length) pinned = Arrays.copyOf(pinned, pinnedCount * 2);
+        int at = -Arrays.binarySearch(pinned, 0, pinnedCount, i) - 1;
+        System.arraycopy(pinned, at, pinned, at + 1, pinnedCount - at);
+        pinned[at] = i;
+        pinnedCount++;
+    }
+
+    /**
+     * Tells the listeners about each tile of run i .. i+n-1 of {@code c} that differs from {@link #scratch}
+     * (the run before the write). {@code after} is the value written, or null to read it back.
+     */
+    private void notifyRun(Chunk c, int i, int n, TileType after) {
+        int x0 = c.cx << Chunk.SHIFT, y0 = c.cy << Chunk.SHIFT;
+        for (int j = 0; j < n; j++, i++) {
+            TileType now = after != null ? after : TileType.BY_ORDINAL[c.tiles.get(i)];
+            TileType before = TileType.BY_ORDINAL[scratch[j]];
+            if (before == now) continue;
+            for (WorldListener l : listeners) l.tileChanged(x0 + (i & Chunk.MASK), y0 + (i >> Chunk.SHIFT), before, now);
+        }
+    }
+
+    /** Makes a freshly built clean chunk resident as the newest LRU entry, evicting as needed. */
+    private Chunk install(Chunk c) {
+        c.syncSolid();
+        chunks[c.cy * chunksX + c.cx] = c;
+        linkNewest(c);
+        cachedCount++;
+
+        while (cachedCount > maxCachedChunks && oldest != c) {
+            Chunk victim = oldest;
+            unlink(victim);
+            cachedCount--;
+            chunks[victim.cy * chunksX + victim.cx] = null;
+        }
+        return c;
+    }
+
+    private void clear() {
+        Arrays.fill(chunks, null);
+        newest = null;
+        oldest = null;
+        cachedCount = 0;
+        pinnedCount = 0;
+    }
+
+    private void linkNewest(Chunk c) {
+        c.older = newest;
+        c.newer = null;
+        if (newest != null) newest.newer = c;
+        newest = c;
+        if (oldest == null) oldest = c;
+    }
+
+    private void unlink(Chunk c) {
+        if (c.newer != null) c.newer.older = c.older;
+        else newest = c.older;
+        if (c.older != null) c.older.newer = c.newer;
+        else oldest = c.newer;
+        c.newer = null;
+        c.older = null;
+    }
+
+    /** Splits a run of new chunks in halves until it is small enough to generate directly. */
+    private static final class GenerateTask extends RecursiveAction {
+        private static final int CHUNKS_PER_TASK = 4;
+
+        private final WorldGenerator generator;
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+
+        GenerateTask(WorldGenerator generator, Chunk[] chunks, int from, int to) {
+            this.generator = generator;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNKS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    generator.generate(chunks[i]);
+                    chunks[i].tiles.compact();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new GenerateTask(generator, chunks, from, mid), new GenerateTask(generator, chunks, mid, to));
+        }
     }
 }
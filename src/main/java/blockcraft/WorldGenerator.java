@@ -0,0 +1,214 @@
+package blockcraft;
+
+/**
+ * Procedural terrain as a pure function of (seed, x, y).
+ *
+ * Every random decision is a hash of the seed and the coordinates it belongs to
+ * (column, pool start, stone cluster cell), so any chunk can be generated on its own,
+ * in any order, and always comes out the same. The generator holds no mutable state, so
+ * several threads may generate different chunks at once (see World.prefetch).
+ *
+ * Terrain rules (same as the old single-pass generator):
+ * - ground height per column = base +-2, grass on top, 3 dirt, then stone with ~2% gold
+ * - water pools (4..11 wide) just above the ground where the column is still open
+ * - trees (1-2 logs) on open grass
+ * - scattered stone clusters in the air above ground
+ */
+final class WorldGenerator {
+
+    /**
+     * Bump whenever any (seed, x, y) generates a different tile. Saves hold only edited chunks and
+     * regenerate the rest, so SaveSystem refuses saves made under another version.
+     */
+    static final int VERSION = 1;
+
+    private static final long SALT_BUMP = 1;
+    private static final long SALT_GOLD = 2;
+    private static final long SALT_POOL = 3;
+    private static final long SALT_POOL_W = 4;
+    private static final long SALT_TREE = 5;
+    private static final long SALT_CLUSTER = 6;
+    private static final long SALT_STONE = 7;
+
+    private static final int MAX_POOL_W = 11;
+    private static final int CLUSTER_CELL = 32;
+    private static final int CLUSTERS_PER_CELL = 4;
+    private static final int MAX_CLUSTER_R = 2;
+
+    final long seed;
+    private final int width;
+    private final int height;
+    private final int baseGround;
+
+    WorldGenerator(long seed, int width, int height) {
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.baseGround = (int) (height * 0.62f);
+    }
+
+    /**
+     * Fills a chunk; tiles outside the world are left as AIR. Writes a plain ordinal array and hands it
+     * to the chunk in one go, so the caller should compact() the chunk afterwards.
+     */
+    void generate(Chunk c) {
+        int x0 = c.cx << Chunk.SHIFT;
+        int y0 = c.cy << Chunk.SHIFT;
+        int[] water = new int[MAX_POOL_W + 1];
+        byte[] tiles = new byte[TileStorage.TILES];
+        byte air = (byte) TileType.AIR.ordinal();
+        byte stone = (byte) TileType.STONE.ordinal();
+
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            int x = x0 + lx;
+            if (x >= width) {
+                for (int ly = 0; ly < Chunk.SIZE; ly++) tiles[(ly << Chunk.SHIFT) | lx] = air;
+                continue;
+            }
+            int gy = groundY(x);
+            int waterCount = poolWater(x, gy, water);
+            boolean treePool = contains(water, waterCount, gy - 1);
+            for (int ly = 0; ly < Chunk.SIZE; ly++) {
+                int y = y0 + ly;
+                tiles[(ly << Chunk.SHIFT) | lx] = (byte) columnTile(x, y, gy, contains(water, waterCount, y), treePool).ordinal();
+            }
+        }
+
+        // stone clusters that can reach into this chunk
+        int minCellX = Math.floorDiv(x0 - MAX_CLUSTER_R, CLUSTER_CELL);
+        int maxCellX = Math.floorDiv(x0 + Chunk.SIZE - 1 + MAX_CLUSTER_R, CLUSTER_CELL);
+        int minCellY = Math.floorDiv(y0 - MAX_CLUSTER_R, CLUSTER_CELL);
+        int maxCellY = Math.floorDiv(y0 + Chunk.SIZE - 1 + MAX_CLUSTER_R, CLUSTER_CELL);
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int k = 0; k < CLUSTERS_PER_CELL; k++) {
+                    long h = hash(cellX, cellY, SALT_CLUSTER + 16L * k);
+                    int ccx = cellX * CLUSTER_CELL + bounded(h, CLUSTER_CELL);
+                    int ccy = cellY * CLUSTER_CELL + bounded(h >>> 16, CLUSTER_CELL);
+                    if (!clusterValid(ccx, ccy)) continue;
+                    int r = 1 + bounded(h >>> 32, 2);
+
+                    int fromX = Math.max(ccx - r, x0), toX = Math.min(ccx + r, Math.min(x0 + Chunk.SIZE, width) - 1);
+                    int fromY = Math.max(ccy - r, Math.max(y0, 0)), toY = Math.min(ccy + r, y0 + Chunk.SIZE - 1);
+                    for (int y = fromY; y <= toY; y++) {
+                        for (int x = fromX; x <= toX; x++) {
+                            int i = ((y - y0) << Chunk.SHIFT) | (x - x0);
+                            if (tiles[i] == air && stoneRoll(x, y, cellX, cellY, k)) tiles[i] = stone;
+                        }
+                    }
+                }
+            }
+        }
+        c.tiles.load(tiles);
+    }
+
+    /**
+     * Single tile lookup without generating a chunk (slower per tile than {@link #generate}). Allocation-free
+     * and safe from several threads, like generate.
+     */
+    TileType tileAt(int x, int y) {
+        int gy = groundY(x);
+        TileType t = columnTile(x, y, gy, poolAt(x, gy, y), poolAt(x, gy, gy - 1));
+        if (t != TileType.AIR) return t;
+
+        for (int cellY = Math.floorDiv(y - MAX_CLUSTER_R, CLUSTER_CELL); cellY <= Math.floorDiv(y + MAX_CLUSTER_R, CLUSTER_CELL); cellY++) {
+            for (int cellX = Math.floorDiv(x - MAX_CLUSTER_R, CLUSTER_CELL); cellX <= Math.floorDiv(x + MAX_CLUSTER_R, CLUSTER_CELL); cellX++) {
+                for (int k = 0; k < CLUSTERS_PER_CELL; k++) {
+                    long h = hash(cellX, cellY, SALT_CLUSTER + 16L * k);
+                    int ccx = cellX * CLUSTER_CELL + bounded(h, CLUSTER_CELL);
+                    int ccy = cellY * CLUSTER_CELL + bounded(h >>> 16, CLUSTER_CELL);
+                    if (!clusterValid(ccx, ccy)) continue;
+                    int r = 1 + bounded(h >>> 32, 2);
+                    if (Math.abs(x - ccx) <= r && Math.abs(y - ccy) <= r && stoneRoll(x, y, cellX, cellY, k)) {
+                        return TileType.STONE;
+                    }
+                }
+            }
+        }
+        return TileType.AIR;
+    }
+
+    int groundY(int x) {
+        int bump = bounded(hash(x, 0, SALT_BUMP), 5) - 2; // -2..2
+        return clamp(baseGround + bump, 4, height - 4);
+    }
+
+    /** {@code pool}: a pool surface covers (x, y); {@code treePool}: one covers the tree spot (x, gy - 1). */
+    private TileType columnTile(int x, int y, int gy, boolean pool, boolean treePool) {
+        if (y >= gy) {
+            if (y == gy) return TileType.GRASS;
+            if (y < gy + 3) return TileType.DIRT;
+            return bounded(hash(x, y, SALT_GOLD), 50) != 1 ? TileType.STONE : TileType.GOLD;
+        }
+        if (pool) return TileType.WATER;
+
+        // trees: one or two logs on open grass
+        if (unit(hash(x, 0, SALT_TREE)) < 0.07f) {
+            int ty = gy - 1;
+            if (ty >= 2 && !treePool) {
+                if (y == ty || y == ty - 1) return TileType.LOG;
+            }
+        }
+        return TileType.AIR;
+    }
+
+    /** Collects the y of every pool surface covering column x that is still open air there. */
+    private int poolWater(int x, int gy, int[] out) {
+        int n = 0;
+        for (int x0 = Math.max(0, x - MAX_POOL_W + 1); x0 <= x; x0++) {
+            if (unit(hash(x0, 0, SALT_POOL)) >= 0.05f) continue;
+            int poolW = 4 + bounded(hash(x0, 0, SALT_POOL_W), 8);
+            if (x >= x0 + poolW) continue;
+            int poolY = groundY(x0) - 1;
+            if (poolY >= 0 && poolY < gy) out[n++] = poolY;
+        }
+        return n;
+    }
+
+    /** Whether {@link #poolWater} would list y for column x, without collecting the list. */
+    private boolean poolAt(int x, int gy, int y) {
+        for (int x0 = Math.max(0, x - MAX_POOL_W + 1); x0 <= x; x0++) {
+            if (unit(hash(x0, 0, SALT_POOL)) >= 0.05f) continue;
+            int poolW = 4 + bounded(hash(x0, 0, SALT_POOL_W), 8);
+            if (x >= x0 + poolW) continue;
+            int poolY = groundY(x0) - 1;
+            if (poolY == y && poolY >= 0 && poolY < gy) return true;
+        }
+        return false;
+    }
+
+    private boolean clusterValid(int ccx, int ccy) {
+        return ccx >= 0 && ccx < width && ccy >= 0 && ccy < baseGround - 2;
+    }
+
+    private boolean stoneRoll(int x, int y, int cellX, int cellY, int k) {
+        return unit(hash(x, y, hash(cellX, cellY, SALT_STONE + 16L * k))) < 0.65f;
+    }
+
+    private static boolean contains(int[] a, int n, int v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    private long hash(long x, long y, long salt) {
+        return mix64(seed ^ mix64(x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL + salt * 0x165667B19E3779F9L));
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int bounded(long h, int n) {
+        return (int) ((h & 0x7FFFFFFFL) % n);
+    }
+
+    private static float unit(long h) {
+        return (h >>> 40) * 0x1.0p-24f;
+    }
+
+    private static int clamp(int v, int lo, int hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
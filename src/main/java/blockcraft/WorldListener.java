@@ -0,0 +1,10 @@
+package blockcraft;
+
+/**
+ * Told about every tile change made through World.set, right after it happens.
+ * Bulk changes (fill, generate, loading a save) are not reported; listeners tied to a
+ * World's contents are rebuilt along with it.
+ */
+public interface WorldListener {
+    void tileChanged(int x, int y, TileType before, TileType after);
+}
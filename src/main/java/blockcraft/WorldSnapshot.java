@@ -0,0 +1,138 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+/**
+ * The tiles of a World as they were at {@link World#snapshot}, frozen while the world goes on.
+ * - only edited chunks are held: their tiles are handed over copy-on-write (Chunk.share), so a chunk is
+ *   only copied when the world next writes it, once per snapshot
+ * - every other chunk was unedited, and reads as the generator makes it
+ * - taking one costs two arrays the length of the edited-chunk count, whatever the world's size
+ * - never changed once World.snapshot returns it, so any thread may read it once handed over (an
+ *   executor, a volatile); EditHistory recaptures its own retired ones in place, which nobody else sees
+ * - the world's edit count at capture is its {@link #version}
+ *
+ * What a snapshot costs is what it keeps alive that the world has since replaced: see {@link #retainedBytes}.
+ */
+public final class WorldSnapshot {
+
+    public final int width;
+    public final int height;
+
+    private final int chunksX;
+    private long version;
+    private int count;           // edited chunks held
+    private int[] index;         // chunk index (cy * chunksX + cx) of each edited chunk, ascending; count used
+    private TileStorage[] tiles; // their tiles, same order
+    private WorldGenerator generator;
+    private TileType fill;
+
+    private TileStorage[] generated; // unedited chunks, filled in on demand; guarded by this
+
+    WorldSnapshot(World world) {
+        this.width = world.width;
+        this.height = world.height;
+        this.chunksX = world.chunksX();
+        this.index = new int[world.pinnedChunks()];
+        this.tiles = new TileStorage[index.length];
+        capture(world);
+    }
+
+    /** World.edits() when this was taken */
+    public long version() { return version; }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /** Same answers World.get gave when the snapshot was taken (STONE outside). */
+    public TileType get(int x, int y) {
+        if (!inBounds(x, y)) return TileType.STONE;
+        int i = (y >> Chunk.SHIFT) * chunksX + (x >> Chunk.SHIFT);
+        int k = Arrays.binarySearch(index, 0, count, i);
+        TileStorage t = k >= 0 ? tiles[k] : generated(i);
+        return TileType.BY_ORDINAL[t.get(((y & Chunk.MASK) << Chunk.SHIFT) | (x & Chunk.MASK))];
+    }
+
+    /**
+     * Approximate heap this snapshot keeps alive beyond {@code newer} (another snapshot of the same
+     * world, or null for none): its own arrays plus every edited chunk's tiles that {@code newer} does not share.
+     */
+    public long retainedBytes(WorldSnapshot newer) {
+        long b = ownBytes();
+        for (int k = 0, n = 0; k < count; k++) { // both index lists ascend: one merged walk
+            if (newer != null) while (n < newer.count && newer.index[n] < index[k]) n++;
+            boolean same = newer != null && n < newer.count && newer.index[n] == index[k] && newer.tiles[n] == tiles[k];
+            if (!same) b += tiles[k].memoryBytes();
+        }
+        return b;
+    }
+
+    /** Like {@link #retainedBytes(WorldSnapshot)} against the live world. Game thread only. */
+    public long retainedBytes(World world) {
+        Chunk[] chunks = world.chunks();
+        long b = ownBytes();
+        for (int k = 0; k < count; k++) {
+            Chunk c = chunks[index[k]];
+            if (c == null || c.tiles != tiles[k]) b += tiles[k].memoryBytes();
+        }
+        return b;
+    }
+
+    /**
+     * Takes the world's tiles again, reusing this snapshot's arrays (they only grow). Only for a snapshot nobody
+     * else can see, after {@link #release}: EditHistory's retired steps.
+     */
+    void capture(World world) {
+        if (world.width != width || world.height != height) {
+            throw new IllegalArgumentException("snapshot of a " + width + "x" + height + " world, this is " + world.width + "x" + world.height);
+        }
+        if (generator != world.generator() || fill != world.fillTile()) generated = null;
+        version = world.edits();
+        generator = world.generator();
+        fill = world.fillTile();
+        count = world.pinnedChunks();
+        if (index.length < count) {
+            index = new int[Math.max(count, 2 * index.length)];
+            tiles = new TileStorage[index.length];
+        }
+        System.arraycopy(world.pinnedIndices(), 0, index, 0, count);
+        Chunk[] chunks = world.chunks();
+        for (int k = 0; k < count; k++) tiles[k] = chunks[index[k]].share();
+    }
+
+    /** Lets go of the tiles (and generated chunks) this holds, keeping the arrays for the next {@link #capture}. */
+    void release() {
+        Arrays.fill(tiles, 0, count, null);
+        count = 0;
+        generated = null;
+    }
+
+    int editedCount() { return count; }
+
+    /** Chunk index of the k-th edited chunk; ascending in k. */
+    int editedIndex(int k) { return index[k]; }
+
+    TileStorage editedTiles(int k) { return tiles[k]; }
+
+    boolean edited(int i) {
+        return Arrays.binarySearch(index, 0, count, i) >= 0;
+    }
+
+    private long ownBytes() {
+        return 48 + 2 * 16 + 8L * index.length;
+    }
+
+    private synchronized TileStorage generated(int i) {
+        if (generated == null) generated = new TileStorage[((height + Chunk.MASK) >> Chunk.SHIFT) * chunksX];
+        if (generated[i] == null) {
+            Chunk c = new Chunk(i % chunksX, i / chunksX, fill);
+            if (generator != null) {
+                generator.generate(c);
+                c.tiles.compact();
+            }
+            generated[i] = c.tiles;
+        }
+        return generated[i];
+    }
+}
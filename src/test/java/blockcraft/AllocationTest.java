@@ -0,0 +1,153 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The frame loop allocates nothing once warmed up.
+ *
+ * Replays what BlockCraftGame does per frame, minus GL: join the background light job, run one simulation
+ * tick, flush the edit journal, stream and relight the view on the "light" thread, bring the tile-ID window
+ * up to date, rebuild the meshes of changed chunks (the fallback renderer) and record FrameStats. The player
+ * paces back and forth, placing and mining the same block every two seconds, with mobs chasing it, and the undo
+ * history is on and full, as in a long session. After the warm-up, allocated bytes on the game and light threads
+ * (ThreadMXBean) may grow by {@link #EDIT_BYTES} per edit, the copy-on-write copy of the edited chunk's tiles
+ * the history's snapshot leaves behind, and by nothing else.
+ */
+class AllocationTest {
+
+    private static final int TILE_PX = 24;
+    private static final int VIEW_W = 40; // half view in tiles, about a 1920x1200 window at 24 px
+    private static final int VIEW_H = 25;
+    private static final int FRAMES = 2_000;
+    private static final int WARMUP = 3_000;
+    private static final int MOBS = 200;
+
+    /** one chunk's tiles copied in the widest encoding, a byte per tile, plus object and array headers */
+    private static final long EDIT_BYTES = TileStorage.TILES + 128;
+
+    @Test
+    void warmFramesAllocateNothing(@TempDir Path dir) {
+        GameState state = new GameState(400, 200, Fixtures.SEED);
+        for (int i = 0; i < EditHistory.MAX_STEPS; i++) state.history.record(state); // full: each edit drops the oldest step
+        HeadlessRunner.spawnMobs(state, MOBS, Fixtures.SEED);
+        Frame frame = new Frame(state, new EditJournal(dir.resolve("save").toString()));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long game = Thread.currentThread().threadId(), light = frame.lightJob.threadId();
+        try {
+            for (int i = 0; i < WARMUP; i++) frame.run();
+            frame.lightJob.join();
+            long before = threads.getThreadAllocatedBytes(game) + threads.getThreadAllocatedBytes(light);
+            int editsBefore = frame.edits;
+            for (int i = 0; i < FRAMES; i++) frame.run();
+            frame.lightJob.join();
+            long bytes = threads.getThreadAllocatedBytes(game) + threads.getThreadAllocatedBytes(light) - before;
+            int edits = frame.edits - editsBefore;
+            assertTrue(edits > 0, "no edits were measured");
+            assertTrue(bytes <= edits * EDIT_BYTES, () -> FRAMES + " frames after " + WARMUP + " warm-up (" + state.mobs.size()
+                    + " mobs, " + edits + " edits) allocated " + bytes + " bytes, budget " + edits * EDIT_BYTES);
+        } finally {
+            frame.lightJob.close();
+            frame.journal.close();
+        }
+    }
+
+    /** One game frame without GL, reusing everything between calls like the game does. */
+    private static final class Frame {
+        final GameState state;
+        final World world;
+        final LightEngine light;
+        final BackgroundJob lightJob;
+        final EditJournal journal;
+        final ChunkMeshBuilder mesh = new ChunkMeshBuilder(TILE_PX);
+        final TileIdWindow window = new TileIdWindow(2 * VIEW_W + 1, 2 * VIEW_H + 1);
+        final FrameStats stats = new FrameStats();
+        final TickInput input = new TickInput();
+        final int[] builtVersion;
+        final int[] builtLight;
+
+        int lightMinX, lightMinY, lightMaxX, lightMaxY;
+        int frame;
+        int editX = -1;
+        int editY;
+        int edits;
+
+        Frame(GameState state, EditJournal journal) {
+            this.state = state;
+            this.journal = journal;
+            journal.attach(state);
+            this.world = state.world;
+            this.light = new LightEngine(world);
+            world.addListener(light);
+            this.lightJob = new BackgroundJob("light", () -> light.update(lightMinX, lightMinY, lightMaxX, lightMaxY));
+            this.builtVersion = new int[world.chunksX() * world.chunksY()];
+            this.builtLight = new int[builtVersion.length];
+            Arrays.fill(builtVersion, -1);
+        }
+
+        void run() {
+            long start = System.nanoTime();
+            lightJob.join();
+
+            // pace five tiles right and back; place a block above the player on the way out, mine it on the way back
+            int phase = frame++ % 120;
+            input.moveX = phase < 60 ? 1 : -1;
+            input.moveY = 0;
+            int px = (int) Math.floor(state.player.x()), py = (int) Math.floor(state.player.y());
+            if (phase == 30 && world.get(px, py - 1) == TileType.AIR) {
+                editX = px;
+                editY = py - 1;
+                input.place(editX, editY);
+                edits++;
+            } else if (phase == 90 && editX >= 0) {
+                input.mine(editX, editY);
+                editX = -1;
+                edits++;
+            }
+            state.tick(input, Fixtures.TICK);
+            journal.flush();
+            long ticked = System.nanoTime();
+
+            px = (int) state.player.x();
+            py = (int) state.player.y();
+            int minX = px - VIEW_W, minY = py - VIEW_H, maxX = px + VIEW_W, maxY = py + VIEW_H;
+            lightMinX = minX - World.CHUNK_SIZE;
+            lightMinY = minY - World.CHUNK_SIZE;
+            lightMaxX = maxX + World.CHUNK_SIZE;
+            lightMaxY = maxY + World.CHUNK_SIZE;
+            world.stream(lightMinX, lightMinY, lightMaxX, lightMaxY);
+            lightJob.start();
+
+            window.update(world, minX, minY, maxX, maxY);
+            window.clearDirty();
+
+            int builds = 0;
+            for (int cy = Math.max(0, minY >> Chunk.SHIFT); cy <= Math.min(world.chunksY() - 1, maxY >> Chunk.SHIFT); cy++) {
+                for (int cx = Math.max(0, minX >> Chunk.SHIFT); cx <= Math.min(world.chunksX() - 1, maxX >> Chunk.SHIFT); cx++) {
+                    Chunk c = world.chunkAt(cx, cy);
+                    int k = cy * world.chunksX() + cx;
+                    if (c == null || (builtVersion[k] == c.version && builtLight[k] == c.lightVersion)) continue;
+                    mesh.build(world, cx, cy, c);
+                    builtVersion[k] = c.version;
+                    builtLight[k] = c.lightVersion;
+                    builds++;
+                }
+            }
+
+            long end = System.nanoTime();
+            stats.set(FrameStats.FRAME_NS, end - start);
+            stats.set(FrameStats.UPDATE_NS, ticked - start);
+            stats.set(FrameStats.RENDER_NS, end - ticked);
+            stats.set(FrameStats.TICKS, 1);
+            stats.set(FrameStats.MESH_BUILDS, builds);
+            stats.endFrame();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * World's solid bits, raycasts and sweeps against plain per-tile answers, and the player moving and
+ * mining on top of them.
+ */
+class CollisionTest {
+
+    private static final int W = 300;
+    private static final int H = 170;
+    private static final int TYPES = TileType.BY_ORDINAL.length;
+    private static final int RAYS = 20_000;
+
+    private final SplittableRandom rng = new SplittableRandom(7L);
+
+    /**
+     * Random set/fillRect/stamp/paste/restore/restoreChunk/compact on a world with a small chunk cache (so chunks
+     * also load and evict); after each one every resident chunk's bits must equal get(x, y).solid, and anySolid
+     * over random rectangles (often sticking out of the world) must equal a per-tile loop.
+     */
+    @Test
+    void solidBitsFollowEveryWrite() {
+        World world = Fixtures.world(W, H, 24);
+        for (int op = 0; op < 3_000; op++) {
+            String what = edit(world) + " in op " + op;
+            for (Chunk c : world.chunks()) {
+                if (c == null) continue;
+                for (int ly = 0; ly < Chunk.SIZE; ly++) {
+                    for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                        if (c.solid(lx, ly) != c.get(lx, ly).solid) {
+                            fail("solid bit of " + ((c.cx << Chunk.SHIFT) + lx) + "," + ((c.cy << Chunk.SHIFT) + ly)
+                                    + " (" + c.get(lx, ly) + ") wrong after " + what);
+                        }
+                    }
+                }
+            }
+            for (int k = 0; k < 8; k++) {
+                int x0 = rng.nextInt(-5, W + 2), y0 = rng.nextInt(-5, H + 2);
+                int x1 = x0 + rng.nextInt(-2, 40), y1 = y0 + rng.nextInt(-2, 40);
+                assertEquals(overlaps(world, x0, y0, x1, y1), world.anySolid(x0, y0, x1, y1),
+                        "anySolid(" + x0 + "," + y0 + " .. " + x1 + "," + y1 + ") after " + what);
+            }
+        }
+    }
+
+    /**
+     * The tile hit and the distance must match the nearest solid tile along the ray, found by intersecting the
+     * ray with every tile box around it; corner ties may pick either tile at the same distance.
+     */
+    @Test
+    void raycastFindsTheNearestSolidTile() {
+        World terrain = Fixtures.resident(W, H);
+        RayHit hit = new RayHit();
+        for (int r = 0; r < RAYS; r++) {
+            float ox = (float) rng.nextDouble(-2, W + 2), oy = (float) rng.nextDouble(-2, H + 2);
+            double angle = rng.nextDouble(0, 2 * Math.PI);
+            float dx = (float) Math.cos(angle), dy = (float) Math.sin(angle);
+            int axis = rng.nextInt(10);
+            if (axis == 0) dx = 0; // straight along a column
+            else if (axis == 1) dy = 0; // or a row
+            float maxDist = (float) rng.nextDouble(0, 40);
+            String ray = "ray from " + ox + "," + oy + " dir " + dx + "," + dy;
+            boolean want = nearest(terrain, ox, oy, dx, dy, maxDist);
+            assertEquals(want, terrain.raycast(ox, oy, dx, dy, maxDist, hit), ray + " hit");
+            if (!want) continue;
+            assertEquals(nearestDistance, hit.distance, 1e-3, ray + " distance");
+            if (!nearestTie) {
+                assertEquals(nearestX + "," + nearestY, hit.x + "," + hit.y, ray + " tile");
+            }
+            assertTrue(terrain.solid(hit.x, hit.y), ray + " stopped at open tile " + hit.x + "," + hit.y);
+        }
+    }
+
+    /** A box moved by sweepX/sweepY must not overlap a solid tile; one stopped short must touch the wall. */
+    @Test
+    void sweepsStopAtTheWall() {
+        World terrain = Fixtures.resident(W, H);
+        for (int s = 0; s < RAYS; s++) {
+            float hw = (float) rng.nextDouble(0.1, 1.4), hh = (float) rng.nextDouble(0.1, 1.4);
+            float cx = (float) rng.nextDouble(2, W - 2), cy = (float) rng.nextDouble(2, H - 2);
+            if (overlaps(terrain, cx - hw, cy - hh, cx + hw, cy + hh)) continue;
+            float d = (float) rng.nextDouble(-3, 3);
+            if (rng.nextBoolean()) {
+                float m = terrain.sweepX(cx - hw, cy - hh, cx + hw, cy + hh, d);
+                checkSweep(terrain, cx + m - hw, cy - hh, cx + m + hw, cy + hh, m, d, true);
+            } else {
+                float m = terrain.sweepY(cx - hw, cy - hh, cx + hw, cy + hh, d);
+                checkSweep(terrain, cx - hw, cy + m - hh, cx + hw, cy + m + hh, m, d, false);
+            }
+        }
+    }
+
+    /** A player wandering, mining and placing at random never ends a move inside a solid tile. */
+    @Test
+    void playerNeverEndsInsideATile() {
+        GameState state = new GameState(W, H, 99L);
+        state.history = null;
+        Player p = state.player;
+        assertFalse(p.collides(state.world), "player spawns inside a solid tile");
+        float mx = 1, my = 0;
+        for (int t = 0; t < 20_000; t++) {
+            if (rng.nextInt(30) == 0) {
+                double a = rng.nextDouble(0, 2 * Math.PI);
+                mx = (float) Math.cos(a);
+                my = (float) Math.sin(a);
+            }
+            p.beginTick();
+            p.move(state.world, mx, my, Fixtures.TICK);
+            if (p.collides(state.world)) fail("player moved into a solid tile at " + p.x() + "," + p.y() + " (tick " + t + ")");
+            int tx = (int) Math.floor(p.x()) + rng.nextInt(-4, 5), ty = (int) Math.floor(p.y()) + rng.nextInt(-4, 5);
+            if (rng.nextInt(4) == 0) state.mine(tx, ty);
+            else if (rng.nextInt(8) == 0 && !nearPlayer(p, tx, ty)) state.place(tx, ty);
+        }
+    }
+
+    /** Mining through a wall fails; mining the wall first opens the way. Placing behind a wall fails too. */
+    @Test
+    void miningAndPlacingNeedLineOfSight() {
+        GameState state = new GameState(W, H, 99L);
+        state.history = null;
+        World world = state.world;
+        int px = (int) Math.floor(state.player.x()), py = (int) Math.floor(state.player.y());
+        world.fillRect(px - 5, py - 5, px + 5, py + 5, TileType.AIR);
+        world.set(px + 2, py, TileType.STONE);
+        world.set(px + 3, py, TileType.DIRT);
+        assertFalse(state.mine(px + 3, py), "mined a tile behind a wall");
+        assertTrue(state.mine(px + 2, py), "could not mine the wall in front");
+        assertTrue(state.mine(px + 3, py), "could not mine the tile once the wall was gone");
+        world.set(px - 2, py, TileType.STONE);
+        state.setSelectedIndex(2);
+        assertFalse(state.place(px - 3, py), "placed a tile behind a wall");
+        assertTrue(state.place(px - 1, py + 1), "could not place in the open");
+    }
+
+    /** One random write; returns its name for messages. */
+    private String edit(World world) {
+        int x0 = rng.nextInt(-20, W + 5), y0 = rng.nextInt(-20, H + 5);
+        int x1 = x0 + rng.nextInt(rng.nextInt(6) == 0 ? 100 : 30), y1 = y0 + rng.nextInt(rng.nextInt(6) == 0 ? 100 : 30);
+        TileType t = TileType.BY_ORDINAL[rng.nextInt(TYPES)];
+        switch (rng.nextInt(7)) {
+            case 0, 1 -> {
+                for (int k = 0; k < 20; k++) world.set(rng.nextInt(W), rng.nextInt(H), TileType.BY_ORDINAL[rng.nextInt(TYPES)]);
+                return "set";
+            }
+            case 2 -> {
+                world.fillRect(x0, y0, x1, y1, t);
+                return "fillRect";
+            }
+            case 3 -> {
+                TileRegion r = new TileRegion(x1 - x0 + 1, y1 - y0 + 1);
+                for (int y = 0; y < r.height; y++) {
+                    for (int x = 0; x < r.width; x++) {
+                        if (rng.nextInt(3) != 0) r.set(x, y, TileType.BY_ORDINAL[rng.nextInt(TYPES)]);
+                    }
+                }
+                if (rng.nextBoolean()) world.paste(r, x0, y0);
+                else world.stamp(r, x0, y0, rng.nextLong());
+                return "stamp";
+            }
+            case 4 -> {
+                WorldSnapshot s = world.snapshot();
+                world.fillRect(x0, y0, x1, y1, t);
+                world.restore(s);
+                return "restore";
+            }
+            case 5 -> {
+                TileStorage tiles = new TileStorage(t.ordinal());
+                for (int k = rng.nextInt(3) == 0 ? 0 : rng.nextInt(1, 2000); k > 0; k--) {
+                    tiles.set(rng.nextInt(TileStorage.TILES), rng.nextInt(rng.nextBoolean() ? 3 : TYPES));
+                }
+                world.restoreChunk(rng.nextInt(world.chunksX()), rng.nextInt(world.chunksY()), tiles);
+                return "restoreChunk";
+            }
+            default -> {
+                world.compact();
+                world.stream(x0, y0, x1, y1);
+                return "compact";
+            }
+        }
+    }
+
+    private int nearestX, nearestY;
+    private double nearestDistance;
+    private boolean nearestTie;
+
+    /**
+     * The solid tile the ray enters first within maxDist, by slab intersection with every tile box near the
+     * ray, in doubles: true with nearestX/Y/Distance set, false when there is none. Ties within 1e-4 are flagged.
+     */
+    private boolean nearest(World world, float ox, float oy, float dx, float dy, float maxDist) {
+        double len = Math.sqrt((double) dx * dx + (double) dy * dy);
+        double ux = dx / len, uy = dy / len;
+        double ex = ox + ux * maxDist, ey = oy + uy * maxDist;
+        double best = Double.POSITIVE_INFINITY, second = Double.POSITIVE_INFINITY;
+        for (int y = (int) Math.floor(Math.min(oy, ey)) - 1; y <= (int) Math.floor(Math.max(oy, ey)) + 1; y++) {
+            for (int x = (int) Math.floor(Math.min(ox, ex)) - 1; x <= (int) Math.floor(Math.max(ox, ex)) + 1; x++) {
+                if (!world.solid(x, y)) continue;
+                double enter = entry(ox, oy, ux, uy, x, y);
+                if (enter > maxDist) continue;
+                if (enter < best) {
+                    second = best;
+                    best = enter;
+                    nearestX = x;
+                    nearestY = y;
+                } else {
+                    second = Math.min(second, enter);
+                }
+            }
+        }
+        if (best == Double.POSITIVE_INFINITY) return false;
+        nearestDistance = best;
+        nearestTie = second - best < 1e-4;
+        return true;
+    }
+
+    /**
+     * Distance along the ray to where it enters the tile box, or infinity if it misses. Like World.raycast, the
+     * tile holding the origin (boxes are half-open: x <= ox < x + 1) counts as entered at 0, even where the ray
+     * starts on its low edge heading out.
+     */
+    private static double entry(double ox, double oy, double ux, double uy, int x, int y) {
+        if (Math.floor(ox) == x && Math.floor(oy) == y) return 0;
+        double tMin = 0, tMax = Double.POSITIVE_INFINITY;
+        double[] o = { ox, oy }, u = { ux, uy };
+        int[] lo = { x, y };
+        for (int a = 0; a < 2; a++) {
+            if (u[a] == 0) {
+                if (o[a] < lo[a] || o[a] >= lo[a] + 1) return Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double t1 = (lo[a] - o[a]) / u[a], t2 = (lo[a] + 1 - o[a]) / u[a];
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        return tMin < tMax ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    /** Whether any tile the box (or tile rectangle) covers is solid, one get() at a time. */
+    private static boolean overlaps(World world, float x0, float y0, float x1, float y1) {
+        for (int y = (int) Math.floor(y0); y <= (int) Math.floor(y1); y++) {
+            for (int x = (int) Math.floor(x0); x <= (int) Math.floor(x1); x++) {
+                if (world.get(x, y).solid) return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkSweep(World world, float x0, float y0, float x1, float y1, float moved, float wanted, boolean alongX) {
+        String what = (alongX ? "sweepX" : "sweepY") + " of " + wanted + " moved " + moved + " to " + x0 + "," + y0 + " .. " + x1 + "," + y1;
+        assertFalse(Math.abs(moved) > Math.abs(wanted) || moved * wanted < 0, what + ": moved the wrong way or too far");
+        assertFalse(overlaps(world, x0, y0, x1, y1), what + ": ends inside a solid tile");
+        if (moved == wanted) return;
+        float push = Math.signum(wanted) * 2 * World.SKIN;
+        boolean touches = alongX ? overlaps(world, x0 + push, y0, x1 + push, y1) : overlaps(world, x0, y0 + push, x1, y1 + push);
+        assertTrue(touches, what + ": stopped short of the wall");
+    }
+
+    /** Whether a placed tile would land under the player's collider (which GameState does not prevent). */
+    private static boolean nearPlayer(Player p, int tx, int ty) {
+        return Math.abs(tx + 0.5f - p.x()) < 1f && Math.abs(ty + 0.5f - p.y()) < 1f;
+    }
+}
@@ -0,0 +1,102 @@
+package blockcraft;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Worlds, states and comparisons the tests share.
+ * - worlds are generated from {@link #SEED} unless a test says otherwise
+ * - tile grids are one ordinal byte per tile, row-major, so two of them compare with Arrays.equals
+ */
+final class Fixtures {
+
+    static final float TICK = 1f / 60f;
+    static final long SEED = 1337L;
+
+    private Fixtures() {
+    }
+
+    /** A generated world with a chunk cache of {@code maxChunks} (small ones make tests load and evict). */
+    static World world(int w, int h, int maxChunks) {
+        World world = new World(w, h, maxChunks);
+        world.generate(SEED);
+        return world;
+    }
+
+    /** A generated world with every chunk resident. */
+    static World resident(int w, int h) {
+        World world = world(w, h, Integer.MAX_VALUE);
+        world.stream(0, 0, w - 1, h - 1);
+        return world;
+    }
+
+    /**
+     * Pool sizes for checks that compare worker pools with one thread: 1, 2, 4, ... up to the core count,
+     * but at least 4. More threads than cores still interleave, so a 1-core runner tests real splits too.
+     */
+    static int[] poolSizes(int maxThreads) {
+        int max = Math.max(4, maxThreads);
+        int[] sizes = new int[Integer.SIZE];
+        int n = 0;
+        for (int t = 1; ; t = Math.min(t * 2, max)) {
+            sizes[n++] = t;
+            if (t == max) return Arrays.copyOf(sizes, n);
+        }
+    }
+
+    static int[] poolSizes() {
+        return poolSizes(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** One hash per chunk over its tile ordinals, indexed cy * chunksX + cx. */
+    static long[] chunkHashes(World world) {
+        Chunk[] chunks = world.chunks();
+        long[] out = new long[chunks.length];
+        for (int i = 0; i < chunks.length; i++) out[i] = GameState.mixTiles(GameState.FNV_BASIS, chunks[i].tiles);
+        return out;
+    }
+
+    static byte[] tiles(World world) {
+        byte[] b = new byte[world.width * world.height];
+        for (int y = 0; y < world.height; y++) {
+            for (int x = 0; x < world.width; x++) b[y * world.width + x] = (byte) world.get(x, y).ordinal();
+        }
+        return b;
+    }
+
+    /** Like {@link #tiles(World)}, read through a snapshot so the world's chunk cache is left alone. */
+    static byte[] tiles(WorldSnapshot s) {
+        byte[] b = new byte[s.width * s.height];
+        for (int y = 0; y < s.height; y++) {
+            for (int x = 0; x < s.width; x++) b[y * s.width + x] = (byte) s.get(x, y).ordinal();
+        }
+        return b;
+    }
+
+    /** The player's inventory, indexed by ordinal. */
+    static int[] counts(GameState s) {
+        int[] c = new int[TileType.BY_ORDINAL.length];
+        for (TileType t : TileType.BY_ORDINAL) c[t.ordinal()] = s.player.inventory().get(t);
+        return c;
+    }
+
+    /** Same tiles, inventory, position and selection; {@code when} prefixes the failure message. */
+    static void assertSameState(GameState want, GameState got, String when) {
+        assertNotNull(got, when + ": nothing recovered");
+        World a = want.world, b = got.world;
+        for (int y = 0; y < a.height; y++) {
+            for (int x = 0; x < a.width; x++) {
+                int tx = x, ty = y;
+                if (a.get(x, y) != b.get(x, y)) assertEquals(a.get(x, y), b.get(x, y), () -> when + ": tile " + tx + "," + ty);
+            }
+        }
+        for (TileType t : TileType.BY_ORDINAL) {
+            assertEquals(want.player.inventory().get(t), got.player.inventory().get(t), () -> when + ": " + t + " count");
+        }
+        assertEquals(want.player.x(), got.player.x(), () -> when + ": player x");
+        assertEquals(want.player.y(), got.player.y(), () -> when + ": player y");
+        assertEquals(want.selectedIndex, got.selectedIndex, () -> when + ": selection");
+    }
+}
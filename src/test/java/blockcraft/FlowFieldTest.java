@@ -0,0 +1,59 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * FlowField's incremental repairs give exactly what a full rebuild gives. A root walks around open tiles
+ * (mostly single steps, some short jumps, rare teleports) while tiles around it are dug and filled through
+ * World.set; after every step the repaired field is compared with a fresh rebuild over the whole window.
+ */
+class FlowFieldTest {
+
+    private static final int RADIUS = 24;
+    private static final int STEPS = 20_000;
+
+    @Test
+    void repairsMatchARebuild() {
+        World world = Fixtures.world(400, 200, Integer.MAX_VALUE);
+        FlowField field = new FlowField(world, RADIUS);
+        FlowField reference = new FlowField(world, RADIUS);
+        world.addListener(field);
+
+        SplittableRandom rng = new SplittableRandom(7L);
+        int x = 200, y = (int) (world.height * 0.62f) - 1;
+        while (world.get(x, y).solid) y--;
+
+        for (int step = 0; step < STEPS; step++) {
+            int roll = rng.nextInt(100);
+            if (roll < 30) {
+                // dig or fill a tile near the root (never the root itself)
+                int ex = x + rng.nextInt(-RADIUS, RADIUS + 1), ey = y + rng.nextInt(-RADIUS, RADIUS + 1);
+                if ((ex != x || ey != y) && world.inBounds(ex, ey)) {
+                    world.set(ex, ey, world.get(ex, ey).solid ? TileType.AIR : TileType.STONE);
+                }
+            } else {
+                int reach = roll < 95 ? 1 : roll < 99 ? 4 : 40;
+                int nx = x + rng.nextInt(-reach, reach + 1), ny = y + rng.nextInt(-reach, reach + 1);
+                if (world.inBounds(nx, ny) && !world.get(nx, ny).solid) {
+                    x = nx;
+                    y = ny;
+                }
+                field.update(x, y);
+            }
+
+            reference.rebuild(x, y);
+            for (int wy = y - RADIUS; wy <= y + RADIUS; wy++) {
+                for (int wx = x - RADIUS; wx <= x + RADIUS; wx++) {
+                    int got = field.distance(wx, wy), want = reference.distance(wx, wy);
+                    if (got != want) {
+                        assertEquals(want, got, "step " + step + ", root " + x + "," + y + ": tile " + wx + "," + wy);
+                    }
+                }
+            }
+        }
+    }
+}
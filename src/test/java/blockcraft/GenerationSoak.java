@@ -0,0 +1,31 @@
+package blockcraft;
+
+/**
+ * GenerationTest's parallel-vs-sequential comparison on a world of any size, with timings.
+ *
+ * Run: gradle soakGeneration [-Pargs="--size 20000x2000 --seed 1337 --max-threads 8"]  (not part of gradle check)
+ *
+ * Pools go 1, 2, 4, ... threads up to the core count (at least 4, or --max-threads N). Fails with an
+ * AssertionError on the first chunk that differs.
+ */
+public final class GenerationSoak {
+
+    public static void main(String[] args) {
+        int w = 2000, h = 1000;
+        long seed = Fixtures.SEED;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size" -> {
+                    String[] wh = args[++i].split("x");
+                    w = Integer.parseInt(wh[0]);
+                    h = Integer.parseInt(wh[1]);
+                }
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--max-threads" -> cores = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        GenerationTest.compare(w, h, seed, Fixtures.poolSizes(cores), true);
+    }
+}
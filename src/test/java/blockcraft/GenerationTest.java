@@ -0,0 +1,74 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * World generation is a fixed function of the seed: pinned per WorldGenerator.VERSION, and parallel
+ * prefetch gives bit for bit what chunk-by-chunk generation on the calling thread gives.
+ */
+class GenerationTest {
+
+    /** Tile hash of the 256x256 world for seed 1337 under WorldGenerator.VERSION 1. */
+    private static final long GOLDEN = 0x5c72fa76f5769d7cL;
+
+    @Test
+    void outputMatchesTheHashRecordedForItsVersion() {
+        long h = GameState.FNV_BASIS;
+        for (long c : Fixtures.chunkHashes(Fixtures.resident(256, 256))) h = GameState.mix(h, c);
+        long got = h;
+        assertEquals(GOLDEN, got, () -> String.format(
+                "generator v%d output changed (hash %016x): bump WorldGenerator.VERSION and GOLDEN", WorldGenerator.VERSION, got));
+    }
+
+    @Test
+    void parallelMatchesSequential() {
+        compare(2000, 1000, Fixtures.SEED, Fixtures.poolSizes(), false);
+    }
+
+    /**
+     * Generates the world on the calling thread, then with World.prefetch on each pool size, and compares every
+     * chunk. With {@code report}, also times a second sequential run and each pool and prints them.
+     */
+    static void compare(int w, int h, long seed, int[] pools, boolean report) {
+        World reference = new World(w, h, Integer.MAX_VALUE);
+        reference.generate(seed);
+        reference.stream(0, 0, w - 1, h - 1); // also warms up the JIT before anything is timed
+        long[] expected = Fixtures.chunkHashes(reference);
+        reference = null;
+
+        double sequentialMs = 0;
+        if (report) {
+            long t0 = System.nanoTime();
+            World sequential = new World(w, h, Integer.MAX_VALUE);
+            sequential.generate(seed);
+            sequential.stream(0, 0, w - 1, h - 1);
+            sequentialMs = (System.nanoTime() - t0) / 1e6;
+            System.out.printf("world %dx%d seed %d, %d chunks: sequential %.0f ms%n", w, h, seed, expected.length, sequentialMs);
+        }
+
+        for (int threads : pools) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long t1 = System.nanoTime();
+                World world = new World(w, h, Integer.MAX_VALUE);
+                world.generate(seed);
+                world.prefetch(0, 0, w - 1, h - 1, pool);
+                double ms = (System.nanoTime() - t1) / 1e6;
+
+                long[] actual = Fixtures.chunkHashes(world);
+                for (int i = 0; i < expected.length; i++) {
+                    int k = i;
+                    assertEquals(expected[i], actual[i], () -> "with " + threads + " threads at chunk "
+                            + k % world.chunksX() + "," + k / world.chunksX());
+                }
+                if (report) System.out.printf("%2d threads: %.0f ms (%.1fx), identical%n", threads, ms, sequentialMs / ms);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
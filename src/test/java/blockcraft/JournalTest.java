@@ -0,0 +1,167 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * A crash at any point of the save cycle recovers exactly the live state from disk.
+ *
+ * A scripted player plays with an EditJournal attached, plus random edits and inventory changes of its own;
+ * every few seconds a full save runs (sometimes "failing", so the next one appends to the leftover
+ * .journal.old). The save files are copied away to simulate a crash:
+ * - every 250 frames, with half a record appended to the journal (a torn write)
+ * - right after rotating, before the new base is written
+ * - after the base is written, before .journal.old is deleted
+ * and each copy must recover to the live tiles, inventory, position and selection. The same holds through
+ * SaveManager when a save is requested while a load is still running.
+ */
+class JournalTest {
+
+    private static final int W = 200;
+    private static final int H = 120;
+    private static final String SAVE = "savegame.bc2d";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyCrashPointRecoversTheLiveState() throws IOException {
+        String name = dir.resolve(SAVE).toString();
+        GameState live = new GameState(W, H, Fixtures.SEED);
+        Session session = new Session(live, 5L);
+        try (EditJournal journal = new EditJournal(name)) {
+            journal.attach(live);
+            for (int frame = 1; frame <= 9_000; frame++) {
+                session.frame();
+                journal.flush();
+
+                if (frame % 250 == 0) check(live, true, "torn tail at frame " + frame);
+                if (frame % 1_200 == 0) {
+                    SaveSystem.Snapshot snap = SaveSystem.snapshot(live);
+                    journal.rotate();
+                    check(live, false, "after rotate at frame " + frame);
+                    if (frame % 3_600 == 0) continue; // the save fails: .old stays, the next rotate appends to it
+                    SaveSystem.write(name, snap, SaveSystem.Progress.NONE);
+                    check(live, false, "after writing the base at frame " + frame);
+                    journal.dropOld();
+                }
+            }
+        }
+    }
+
+    /** Attaching to a torn journal cuts the half record; new records follow it and recover too. */
+    @Test
+    void tornJournalResumes() throws IOException {
+        String name = dir.resolve(SAVE).toString();
+        GameState live = new GameState(W, H, Fixtures.SEED);
+        try (EditJournal journal = new EditJournal(name)) {
+            journal.attach(live);
+            play(new Session(live, 5L), journal, 1_500);
+        }
+
+        tear(Path.of(name + ".journal"));
+        GameState resumed = EditJournal.recover(name, SaveSystem.Progress.NONE);
+        Fixtures.assertSameState(live, resumed, "resumed session");
+        try (EditJournal journal = new EditJournal(name)) {
+            journal.attach(resumed);
+            play(new Session(resumed, 6L), journal, 600);
+        }
+        Fixtures.assertSameState(resumed, EditJournal.recover(name, SaveSystem.Progress.NONE), "after resuming");
+    }
+
+    /**
+     * F5 pressed while an F9 load runs: the save waits for the swap and saves the loaded state, so edits made
+     * to the replaced state in between don't end up in the base.
+     */
+    @Test
+    void saveDuringLoadSavesTheLoadedState() throws IOException, InterruptedException {
+        String name = dir.resolve(SAVE).toString();
+        GameState state = new GameState(W, H, Fixtures.SEED);
+        try (SaveManager saves = new SaveManager(name)) {
+            state = settle(saves, state);
+            play(new Session(state, 5L), saves, 600);
+            saves.requestSave(state);
+            state = settle(saves, state);
+            play(new Session(state, 6L), saves, 600);
+
+            saves.requestLoad();
+            Session replaced = new Session(state, 7L);
+            for (int frame = 0; frame < 120; frame++) replaced.frame();
+            saves.requestSave(state);
+            state = settle(saves, state);
+            play(new Session(state, 8L), saves, 300);
+            check(state, true, "after a save requested during a load");
+        }
+    }
+
+    /** Polls until nothing is loading or saving, like idle frames would; returns the state after any swap. */
+    private static GameState settle(SaveManager saves, GameState state) throws InterruptedException {
+        do {
+            GameState s = saves.poll(state);
+            if (s != null) state = s;
+            Thread.sleep(1);
+        } while (saves.busy());
+        return state;
+    }
+
+    private static void play(Session session, SaveManager saves, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            session.frame();
+            assertNull(saves.poll(session.state), "no load was requested");
+        }
+    }
+
+    private static void play(Session session, EditJournal journal, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            session.frame();
+            journal.flush();
+        }
+    }
+
+    /** Scripted play plus a few edits the script doesn't make (far tiles, WATER, counts). */
+    private static final class Session {
+        final GameState state;
+        final ScriptedInput script;
+        final SplittableRandom rng;
+        final TickInput in = new TickInput();
+
+        Session(GameState state, long seed) {
+            this.state = state;
+            this.script = new ScriptedInput(seed);
+            this.rng = new SplittableRandom(seed);
+        }
+
+        void frame() {
+            script.fill(state, in);
+            state.tick(in, Fixtures.TICK);
+            if (rng.nextInt(4) == 0) {
+                state.world.set(rng.nextInt(W), rng.nextInt(H), TileType.BY_ORDINAL[rng.nextInt(TileType.BY_ORDINAL.length)]);
+            }
+            if (rng.nextInt(20) == 0) state.player.inventory().add(TileType.GOLD, 1 + rng.nextInt(3));
+        }
+    }
+
+    /** Copies the save files as a crash would leave them and compares what they recover to. */
+    private void check(GameState live, boolean torn, String when) throws IOException {
+        Path crash = Files.createTempDirectory(dir, "crash");
+        for (String suffix : new String[] {"", ".journal", ".journal.old"}) {
+            Path from = dir.resolve(SAVE + suffix);
+            if (Files.exists(from)) Files.copy(from, crash.resolve(SAVE + suffix));
+        }
+        if (torn) tear(crash.resolve(SAVE + ".journal"));
+        Fixtures.assertSameState(live, EditJournal.recover(crash.resolve(SAVE).toString(), SaveSystem.Progress.NONE), when);
+    }
+
+    /** Appends the first half of a TILE record, as if the process died mid-write. */
+    private static void tear(Path journal) throws IOException {
+        Files.write(journal, new byte[] {1, 0, 0, 0, 7}, StandardOpenOption.APPEND);
+    }
+}
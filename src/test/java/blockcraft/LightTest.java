@@ -0,0 +1,54 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * LightEngine's incremental relighting gives exactly what lighting from scratch gives. Random digs, fills
+ * and gold placements go to one world lit incrementally and to a twin without a listener; every few steps
+ * the twin is lit from scratch and every level is compared.
+ */
+class LightTest {
+
+    private static final int W = 320;
+    private static final int H = 160;
+    private static final int STEPS = 3_000;
+
+    @Test
+    void incrementalMatchesFromScratch() {
+        World world = Fixtures.resident(W, H);
+        World twin = Fixtures.resident(W, H);
+        LightEngine light = new LightEngine(world);
+        world.addListener(light);
+        light.update(0, 0, W - 1, H - 1);
+
+        SplittableRandom rng = new SplittableRandom(7L);
+        int ground = (int) (H * 0.62f);
+        for (int step = 1; step <= STEPS; step++) {
+            int x = rng.nextInt(W), y = ground - 20 + rng.nextInt(40);
+            TileType t = switch (rng.nextInt(10)) {
+                case 0 -> TileType.GOLD;
+                case 1, 2, 3, 4 -> TileType.STONE;
+                default -> TileType.AIR;
+            };
+            world.set(x, y, t);
+            twin.set(x, y, t);
+            if (rng.nextInt(3) == 0) continue; // sometimes several edits per update
+
+            light.update(0, 0, W - 1, H - 1);
+            if (step % 10 != 0) continue;
+
+            for (Chunk c : twin.chunks()) c.light = null;
+            new LightEngine(twin).update(0, 0, W - 1, H - 1);
+            for (int ty = 0; ty < H; ty++) {
+                for (int tx = 0; tx < W; tx++) {
+                    int got = LightEngine.level(world, tx, ty), want = LightEngine.level(twin, tx, ty);
+                    if (got != want) assertEquals(want, got, "after step " + step + " at " + tx + "," + ty);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mob ticking gives the same game on the simulation thread (GameState.mobPool = null) and on worker
+ * pools: the same scripted game runs once per pool size, folding GameState.hash into one value after every tick.
+ */
+class MobTickTest {
+
+    private static final int MOBS = 20_000;
+    private static final int TICKS = 2_000;
+
+    @Test
+    void workerPoolsMatchTheSimulationThread() {
+        long expected = run(null);
+        for (int threads : Fixtures.poolSizes()) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                assertEquals(expected, run(pool), () -> "with " + threads + " threads");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long run(ForkJoinPool pool) {
+        GameState state = new GameState(2000, 1000, Fixtures.SEED);
+        HeadlessRunner.spawnMobs(state, MOBS, Fixtures.SEED);
+        state.mobPool = pool;
+
+        ScriptedInput script = new ScriptedInput(1L);
+        TickInput input = new TickInput();
+        long h = GameState.FNV_BASIS;
+        for (int t = 0; t < TICKS; t++) {
+            script.fill(state, input);
+            state.tick(input, Fixtures.TICK);
+            h = GameState.mix(h, state.hash());
+        }
+        return h;
+    }
+}
@@ -0,0 +1,27 @@
+package blockcraft;
+
+import java.io.IOException;
+
+/**
+ * NetTest's loopback session with any number of clients and ticks, printing the server's tick time
+ * percentiles and bytes per client per tick.
+ *
+ * Run: gradle soakNet [-Pargs="--clients 200 --ticks 20000"]  (not part of gradle check)
+ *
+ * Fails with an AssertionError on the first client that is dropped or whose copy differs from the server.
+ */
+public final class NetSoak {
+
+    public static void main(String[] args) throws IOException {
+        int clients = 48;
+        int ticks = 1_500;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        System.out.println(NetTest.session(clients, ticks));
+    }
+}
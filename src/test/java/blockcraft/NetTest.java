@@ -0,0 +1,210 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * GameServer with many simulated clients over loopback.
+ * - every client is a GameClient driven by a ScriptedInput of its own, which wanders, mines and places,
+ *   so clients edit in and out of each other's views and walk back into chunks they missed edits in
+ * - one thread plays server and clients in turn, ticking as fast as it goes: sockets, frames, the
+ *   server and the clients' copies are real, only the 60 Hz pacing is left out
+ * - a client that sends garbage is connected halfway; it must be dropped without disturbing the rest
+ * - a third of the way in, one tick rewrites a BURST x BURST block around the first client twice, more
+ *   edits than one EDITS frame holds, so the tick's edits must be split over frames the clients accept
+ * - at the end inputs stop and the sockets drain; then every client's copy must match the server in the
+ *   chunks it views, and its position, selection and inventory must match its player on the server
+ */
+class NetTest {
+
+    private static final int W = 400;
+    private static final int H = 200;
+    /** view half-size in tiles, about what a 1280x720 window at 24 px per tile streams */
+    private static final int VIEW = 48;
+    /** side of the bulk rewrite: BURST * BURST tiles, well over NetProtocol.MAX_EDITS */
+    private static final int BURST = 64;
+    private static final int CROWD = 300;
+
+    @Test
+    void everyClientCopyMatchesTheServer() throws IOException {
+        session(48, 1_500);
+    }
+
+    /**
+     * CROWD idle clients on a small world, all in each other's view: more than one STATE frame could list
+     * without its limit. All must stay connected and each see NetProtocol.MAX_OTHERS others at most.
+     */
+    @Test
+    void crowdStaysWithinOneStateFrame() {
+        GameServer server = new GameServer(new GameState(96, 64, 7L), "127.0.0.1", 0, Fixtures.TICK);
+        GameClient[] c = join(server, CROWD);
+        TickInput input = new TickInput();
+        for (int t = 0; t < 5; t++) {
+            for (GameClient client : c) {
+                client.send(input);
+                client.view(0, 0, 95, 63);
+            }
+            server.pump(1);
+            server.tick();
+            for (int i = 0; i < CROWD; i++) assertTrue(c[i].poll(), "crowd client " + i + " was disconnected at tick " + t);
+        }
+        assertEquals(Math.min(CROWD - 1, NetProtocol.MAX_OTHERS), c[0].others(), "others a crowd client sees");
+        assertEquals(CROWD, server.clients(), "crowd clients connected");
+        for (GameClient client : c) client.close();
+        server.shutdown();
+    }
+
+    /** Peers that connect and reset before the server gets to them are skipped; the next client still joins. */
+    @Test
+    void resetPeersDontStopTheServer() throws IOException {
+        GameServer server = new GameServer(new GameState(96, 64, 7L), "127.0.0.1", 0, Fixtures.TICK);
+        for (int i = 0; i < 20; i++) {
+            SocketChannel peer = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.port()));
+            peer.setOption(StandardSocketOptions.SO_LINGER, 0); // close sends RST
+            peer.close();
+        }
+        server.pump(1);
+        GameClient[] c = join(server, 1);
+        c[0].send(new TickInput());
+        server.pump(1);
+        server.tick();
+        assertTrue(c[0].poll(), "client after the resets was disconnected");
+        assertEquals(1, server.clients(), "clients connected");
+        c[0].close();
+        server.shutdown();
+    }
+
+    /** Plays the loopback session; returns a line of tick time percentiles and traffic for NetSoak to print. */
+    static String session(int clients, int ticks) throws IOException {
+        GameServer server = new GameServer(new GameState(W, H, Fixtures.SEED), "127.0.0.1", 0, Fixtures.TICK);
+        GameClient[] c = join(server, clients);
+        ScriptedInput[] script = new ScriptedInput[clients];
+        for (int i = 0; i < clients; i++) script[i] = new ScriptedInput(100 + i);
+        TickInput input = new TickInput();
+
+        SocketChannel rogue = null;
+        for (int t = 0; t < ticks; t++) {
+            for (int i = 0; i < clients; i++) {
+                GameState s = c[i].state;
+                script[i].fill(s, input);
+                c[i].send(input);
+                int px = (int) s.player.x(), py = (int) s.player.y();
+                c[i].view(px - VIEW, py - VIEW, px + VIEW, py + VIEW);
+            }
+            if (t == ticks / 2) rogue = rogue(server);
+            if (t == ticks / 3) burst(server.state.world, c[0].state.player);
+            server.pump(0);
+            server.tick();
+            for (int i = 0; i < clients; i++) assertTrue(c[i].poll(), "client " + i + " was disconnected at tick " + t);
+        }
+        assertEquals(clients, server.clients(), "clients connected (rogue not dropped?)");
+        long[] latency = { server.tickPercentileNanos(50), server.tickPercentileNanos(99), server.tickPercentileNanos(100) };
+        long bytes = server.bytesSent();
+
+        // inputs stop; a few more ticks let the last actions land (and flowing water settle a little), then drain
+        input.moveX = 0;
+        input.moveY = 0;
+        for (int t = 0; t < 10; t++) {
+            for (GameClient client : c) client.send(input);
+            server.pump(1);
+            server.tick();
+            for (GameClient client : c) client.poll();
+        }
+        for (int quiet = 0; quiet < 20; ) {
+            long before = received(c);
+            server.pump(2);
+            for (GameClient client : c) client.poll();
+            quiet = received(c) == before ? quiet + 1 : 0;
+        }
+
+        int compared = 0;
+        for (int i = 0; i < clients; i++) compared += compare(server, c[i], i);
+        for (GameClient client : c) client.close();
+        if (rogue != null) rogue.close();
+        server.shutdown();
+
+        return String.format("%d clients, %,d ticks over loopback: every copy matched the server (%,d chunks compared); "
+                        + "tick p50 %.3f ms, p99 %.3f ms, max %.3f ms; %,.0f bytes per client per tick (%,d whole chunks, %,d edits sent)",
+                clients, ticks, compared, latency[0] / 1e6, latency[1] / 1e6, latency[2] / 1e6,
+                (double) bytes / clients / ticks, server.chunksSent(), server.editsSent());
+    }
+
+    /** Connects {@code n} clients, pumping the server while each waits for its welcome. */
+    private static GameClient[] join(GameServer server, int n) {
+        GameClient[] c = new GameClient[n];
+        for (int i = 0; i < n; i++) {
+            int k = i;
+            Thread joiner = new Thread(() -> c[k] = new GameClient("127.0.0.1", server.port()));
+            joiner.start();
+            while (joiner.isAlive()) server.pump(1);
+            assertNotNull(c[k], "client " + k + " could not join");
+        }
+        return c;
+    }
+
+    /** Fills a block around {@code p} with planks, then clears it: two bulk rewrites in one tick. */
+    private static void burst(World world, Player p) {
+        int x0 = (int) p.x() - BURST / 2, y0 = (int) p.y() - BURST / 2;
+        int changed = world.fillRect(x0, y0, x0 + BURST - 1, y0 + BURST - 1, TileType.PLANKS);
+        changed += world.fillRect(x0, y0, x0 + BURST - 1, y0 + BURST - 1, TileType.AIR);
+        assertTrue(changed > NetProtocol.MAX_EDITS, "burst changed only " + changed + " tiles, not more than one frame");
+    }
+
+    /** Compares client {@code i}'s copy with the server in the chunks it views; returns how many. */
+    private static int compare(GameServer server, GameClient client, int i) {
+        GameState s = client.state;
+        Player p = server.player(client.id);
+        assertNotNull(p, "client " + i + " has no player on the server");
+        assertEquals(p.x(), s.player.x(), "client " + i + " x");
+        assertEquals(p.y(), s.player.y(), "client " + i + " y");
+        assertEquals(p.selectedIndex(), s.selectedIndex, "client " + i + " selection");
+        for (TileType t : TileType.BY_ORDINAL) {
+            assertEquals(p.inventory().get(t), s.player.inventory().get(t), "client " + i + " " + t + " count");
+        }
+        assertEquals(server.state.tick, s.tick, "client " + i + " tick");
+
+        int px = (int) s.player.x(), py = (int) s.player.y();
+        World mine = s.world, theirs = server.state.world;
+        int minCx = Math.max(0, (px - VIEW) >> Chunk.SHIFT), maxCx = Math.min(mine.chunksX() - 1, (px + VIEW) >> Chunk.SHIFT);
+        int minCy = Math.max(0, (py - VIEW) >> Chunk.SHIFT), maxCy = Math.min(mine.chunksY() - 1, (py + VIEW) >> Chunk.SHIFT);
+        int n = 0;
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++, n++) {
+                for (int y = cy << Chunk.SHIFT; y < Math.min(H, (cy + 1) << Chunk.SHIFT); y++) {
+                    for (int x = cx << Chunk.SHIFT; x < Math.min(W, (cx + 1) << Chunk.SHIFT); x++) {
+                        if (mine.get(x, y) != theirs.get(x, y)) {
+                            fail("client " + i + " has " + mine.get(x, y) + " at " + x + "," + y + ", server " + theirs.get(x, y));
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    /** A connection that says hello properly, then sends a frame of an unknown type. */
+    private static SocketChannel rogue(GameServer server) throws IOException {
+        SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.port()));
+        ByteBuffer b = ByteBuffer.allocate(32);
+        b.putShort((short) 5).put((byte) NetProtocol.HELLO).putInt(NetProtocol.MAGIC);
+        b.putShort((short) 3).put((byte) 99).putShort((short) 7);
+        ch.write(b.flip());
+        return ch;
+    }
+
+    private static long received(GameClient[] c) {
+        long n = 0;
+        for (GameClient client : c) n += client.bytesReceived();
+        return n;
+    }
+}
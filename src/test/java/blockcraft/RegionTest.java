@@ -0,0 +1,148 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * World's rectangle operations against the per-tile loops they replace.
+ *
+ * Two worlds with the same terrain and a small chunk cache (so operations also load and evict chunks) get the
+ * same random operations: one through fillRect/paste/stamp/copy/count/find, the other through get/set loops.
+ * Rectangles often stick out of the world. After every operation the results, the edit counts and the changes
+ * the listeners heard (as a multiset: runs may report in another order) must match, and so must the tiles.
+ */
+class RegionTest {
+
+    private static final int W = 300;
+    private static final int H = 170;
+    private static final int TYPES = TileType.BY_ORDINAL.length;
+
+    @Test
+    void bulkOperationsMatchPerTileLoops() {
+        World bulk = Fixtures.world(W, H, 24);
+        World tiles = Fixtures.world(W, H, 24);
+        Heard heardBulk = new Heard(), heardTiles = new Heard();
+        bulk.addListener(heardBulk);
+        tiles.addListener(heardTiles);
+
+        SplittableRandom rng = new SplittableRandom(5L);
+        for (int op = 0; op < 4_000; op++) {
+            int x0 = rng.nextInt(-40, W + 10), y0 = rng.nextInt(-40, H + 10);
+            int x1 = x0 + rng.nextInt(rng.nextInt(8) == 0 ? 120 : 40), y1 = y0 + rng.nextInt(rng.nextInt(8) == 0 ? 120 : 40);
+            long mask = rng.nextLong() & ((1L << TYPES) - 1);
+            String what;
+            long a, b;
+            switch (rng.nextInt(5)) {
+                case 0 -> {
+                    what = "fillRect";
+                    TileType t = TileType.BY_ORDINAL[rng.nextInt(TYPES)];
+                    a = bulk.fillRect(x0, y0, x1, y1, t);
+                    b = 0;
+                    for (int y = Math.max(0, y0); y <= Math.min(H - 1, y1); y++) {
+                        for (int x = Math.max(0, x0); x <= Math.min(W - 1, x1); x++) {
+                            if (tiles.get(x, y) != t) b++;
+                            tiles.set(x, y, t);
+                        }
+                    }
+                }
+                case 1 -> {
+                    TileRegion r = randomRegion(rng, x1 - x0 + 1, y1 - y0 + 1);
+                    if (rng.nextBoolean()) {
+                        what = "stamp";
+                        a = bulk.stamp(r, x0, y0, mask);
+                    } else {
+                        what = "paste";
+                        mask = TileType.ANY;
+                        a = bulk.paste(r, x0, y0);
+                    }
+                    b = 0;
+                    for (int y = 0; y < r.height; y++) {
+                        for (int x = 0; x < r.width; x++) {
+                            TileType v = r.get(x, y), before = tiles.get(x0 + x, y0 + y);
+                            if (v == null || v == before || !tiles.inBounds(x0 + x, y0 + y) || (mask >>> before.ordinal() & 1) == 0) continue;
+                            tiles.set(x0 + x, y0 + y, v);
+                            b++;
+                        }
+                    }
+                }
+                case 2 -> {
+                    what = "copy";
+                    TileRegion r = bulk.copy(x0, y0, x1, y1);
+                    a = b = 0;
+                    for (int y = 0; y < r.height; y++) {
+                        for (int x = 0; x < r.width; x++) if (r.get(x, y) != tiles.get(x0 + x, y0 + y)) a = 1;
+                    }
+                }
+                case 3 -> {
+                    what = "count";
+                    a = bulk.count(x0, y0, x1, y1, mask);
+                    b = 0;
+                    for (int y = Math.max(0, y0); y <= Math.min(H - 1, y1); y++) {
+                        for (int x = Math.max(0, x0); x <= Math.min(W - 1, x1); x++) b += mask >>> tiles.get(x, y).ordinal() & 1;
+                    }
+                }
+                default -> {
+                    what = "find";
+                    a = bulk.find(x0, y0, x1, y1, mask);
+                    b = -1;
+                    search:
+                    for (int y = Math.max(0, y0); y <= Math.min(H - 1, y1); y++) {
+                        for (int x = Math.max(0, x0); x <= Math.min(W - 1, x1); x++) {
+                            if ((mask >>> tiles.get(x, y).ordinal() & 1) != 0) {
+                                b = (long) y * W + x;
+                                break search;
+                            }
+                        }
+                    }
+                }
+            }
+            String where = what + " (" + x0 + "," + y0 + ")..(" + x1 + "," + y1 + ") in op " + op;
+            assertEquals(b, a, where);
+            assertEquals(tiles.edits(), bulk.edits(), where + ": edits");
+            assertTrue(heardBulk.sameAs(heardTiles), where + ": listeners heard different changes");
+            if (op % 200 == 0) assertArrayEquals(Fixtures.tiles(tiles.snapshot()), Fixtures.tiles(bulk.snapshot()), where + ": tiles");
+        }
+        assertArrayEquals(Fixtures.tiles(tiles.snapshot()), Fixtures.tiles(bulk.snapshot()), "tiles at the end");
+        assertEquals(tiles.pinnedChunks(), bulk.pinnedChunks(), "pinned chunks");
+    }
+
+    /** Random cells, some KEEP, in runs so that both uniform and mixed stretches occur. */
+    private static TileRegion randomRegion(SplittableRandom rng, int w, int h) {
+        TileRegion r = new TileRegion(w, h);
+        TileType t = null;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (rng.nextInt(6) == 0) t = rng.nextInt(4) == 0 ? null : TileType.BY_ORDINAL[rng.nextInt(TYPES)];
+                r.set(x, y, t);
+            }
+        }
+        return r;
+    }
+
+    /** Every change heard since the last comparison, as sorted packed (x, y, before, after). */
+    private static final class Heard implements WorldListener {
+        long[] changes = new long[1024];
+        int n;
+
+        @Override
+        public void tileChanged(int x, int y, TileType before, TileType after) {
+            if (n == changes.length) changes = Arrays.copyOf(changes, n * 2);
+            changes[n++] = ((long) y << 40) | ((long) x << 16) | (before.ordinal() << 8) | after.ordinal();
+        }
+
+        boolean sameAs(Heard o) {
+            Arrays.sort(changes, 0, n);
+            Arrays.sort(o.changes, 0, o.n);
+            boolean same = Arrays.equals(changes, 0, n, o.changes, 0, o.n);
+            n = 0;
+            o.n = 0;
+            return same;
+        }
+    }
+}
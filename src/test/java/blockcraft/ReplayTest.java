@@ -0,0 +1,112 @@
+package blockcraft;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replaying an input recording reproduces the recorded session exactly, and a replay that drifts is caught.
+ * One scripted session (now and then with analog-style fractional movement) is recorded for the replay tests;
+ * a third checks that what the view streamed can't make a replay drift.
+ */
+class ReplayTest {
+
+    private static final int TICKS = 20_000;
+    private static final int TAMPER_TICK = 5_000;
+    private static final int W = 400;
+    private static final int H = 200;
+    private static final int MOBS = 400;
+
+    @TempDir
+    static Path dir;
+    private static String file;
+    private static GameState live;
+
+    @BeforeAll
+    static void record() throws IOException {
+        file = dir.resolve("session.bcr").toString();
+        live = new GameState(W, H, Fixtures.SEED);
+        ScriptedInput script = new ScriptedInput(3L);
+        SplittableRandom rng = new SplittableRandom(3L);
+        TickInput input = new TickInput();
+        try (InputRecorder recorder = new InputRecorder(file, live, Fixtures.TICK)) {
+            for (int t = 0; t < TICKS; t++) {
+                script.fill(live, input);
+                if (rng.nextInt(100) == 0) input.moveX *= 0.5f + rng.nextFloat() / 2;
+                recorder.tick(live, input, Fixtures.TICK);
+            }
+            recorder.finish(live);
+        }
+    }
+
+    @Test
+    void cleanReplayMatchesEveryCheckpoint() throws IOException {
+        InputReplay replay = new InputReplay(file);
+        GameState state = replay.newState();
+        play(replay, state, Integer.MAX_VALUE);
+        assertEquals(TICKS, state.tick);
+        assertTrue(replay.ended(), "replay did not reach the end of the recording");
+        assertEquals(TICKS / InputRecorder.CHECK_TICKS + 1, replay.checks());
+        assertEquals(live.hash(), state.hash(), "end hash differs from the live session");
+    }
+
+    /** One tile changed behind the simulation's back must be reported within one checkpoint interval. */
+    @Test
+    void tamperedReplayIsCaught() throws IOException {
+        InputReplay replay = new InputReplay(file);
+        GameState state = replay.newState();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> play(replay, state, TAMPER_TICK));
+        assertTrue(state.tick <= TAMPER_TICK + InputRecorder.CHECK_TICKS, "caught only at tick " + state.tick + ": " + e.getMessage());
+    }
+
+    /**
+     * What the view streamed must not matter: the desktop game streams its view plus a chunk of margin, wider
+     * than the radius the simulation keeps resident, and a replay streams nothing. Here one state has the
+     * whole world resident and the other only what its own ticks load; with mobs all over the map and the
+     * same inputs, both must stay identical, mobs and water included.
+     */
+    @Test
+    void streamedChunksDontChangeTheSimulation() {
+        GameState viewed = new GameState(W, H, Fixtures.SEED), bare = new GameState(W, H, Fixtures.SEED);
+        World terrain = Fixtures.world(W, H, Integer.MAX_VALUE); // finds open tiles without loading chunks in either state
+        SplittableRandom rng = new SplittableRandom(4L);
+        for (int n = 0; n < MOBS; ) {
+            int x = rng.nextInt(W), y = rng.nextInt(H);
+            if (terrain.get(x, y).solid || viewed.mobs.grid().occupied(x, y, -1)) continue;
+            viewed.mobs.spawn(x, y);
+            bare.mobs.spawn(x, y);
+            n++;
+        }
+        viewed.world.stream(0, 0, W - 1, H - 1);
+
+        ScriptedInput viewedScript = new ScriptedInput(4L), bareScript = new ScriptedInput(4L);
+        TickInput input = new TickInput();
+        for (int t = 1; t <= 3_000; t++) {
+            viewedScript.fill(viewed, input);
+            viewed.tick(input, Fixtures.TICK);
+            bareScript.fill(bare, input);
+            bare.tick(input, Fixtures.TICK);
+            if (t % InputRecorder.CHECK_TICKS == 0) assertEquals(viewed.hash(), bare.hash(), "hash at tick " + t);
+        }
+    }
+
+    /** Replays to the end, flipping the tile under the player after tick {@code tamperAt}. */
+    private static void play(InputReplay replay, GameState state, int tamperAt) {
+        TickInput input = new TickInput();
+        while (replay.next(state, input)) {
+            state.tick(input, replay.step);
+            if (state.tick == tamperAt) {
+                int x = (int) state.player.x(), y = (int) state.player.y() + 1;
+                state.world.set(x, y, state.world.get(x, y) == TileType.AIR ? TileType.STONE : TileType.AIR);
+            }
+        }
+    }
+}
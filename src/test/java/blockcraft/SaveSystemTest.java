@@ -0,0 +1,74 @@
+package blockcraft;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Binary saves round-trip, and the generator version in the header keeps a save from loading onto terrain
+ * that would regenerate differently.
+ */
+class SaveSystemTest {
+
+    /** "BC2D", version byte, width, height, seed, terrain: where v3 puts the generator version */
+    private static final int GENERATOR_AT = 4 + 1 + 4 + 4 + 8 + 1;
+
+    @TempDir
+    Path dir;
+    private Path file;
+    private GameState saved;
+
+    @BeforeEach
+    void save() {
+        file = dir.resolve("savegame.bc2d");
+        saved = new GameState(200, 100, 99L);
+        ScriptedInput script = new ScriptedInput(4L);
+        TickInput in = new TickInput();
+        for (int t = 0; t < 1_200; t++) {
+            script.fill(saved, in);
+            saved.tick(in, Fixtures.TICK);
+        }
+        SaveSystem.save(file.toString(), saved);
+    }
+
+    @Test
+    void roundTrips() {
+        Fixtures.assertSameState(saved, SaveSystem.load(file.toString()), "loaded");
+    }
+
+    /** A v2 file is v3 without the generator field; every v2 save came from generator version 1. */
+    @Test
+    void loadsVersion2() throws IOException {
+        byte[] v3 = Files.readAllBytes(file);
+        byte[] v2 = new byte[v3.length - 4];
+        System.arraycopy(v3, 0, v2, 0, GENERATOR_AT);
+        System.arraycopy(v3, GENERATOR_AT + 4, v2, GENERATOR_AT, v2.length - GENERATOR_AT);
+        v2[4] = 2;
+        Files.write(file, v2);
+        Fixtures.assertSameState(saved, SaveSystem.load(file.toString()), "loaded from v2");
+    }
+
+    @Test
+    void rejectsAnotherGeneratorVersion() throws IOException {
+        byte[] b = Files.readAllBytes(file);
+        b[GENERATOR_AT + 3] = (byte) (WorldGenerator.VERSION + 1);
+        Files.write(file, b);
+        assertThrows(IllegalStateException.class, () -> SaveSystem.load(file.toString()));
+    }
+
+    /** Loading must not hold the file open or mapped: the next save replaces it. */
+    @Test
+    void saveReplacesALoadedFile() {
+        GameState loaded = SaveSystem.load(file.toString());
+        loaded.world.set(3, 3, TileType.GOLD);
+        SaveSystem.save(file.toString(), loaded);
+        assertEquals(TileType.GOLD, SaveSystem.load(file.toString()).world.get(3, 3));
+    }
+}
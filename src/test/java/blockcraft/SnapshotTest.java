@@ -0,0 +1,116 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Copy-on-write world snapshots and the undo history built on them.
+ */
+class SnapshotTest {
+
+    private static final int W = 300;
+    private static final int H = 160;
+    private static final TileType[] TYPES = TileType.BY_ORDINAL;
+
+    /**
+     * Snapshots taken between random edits keep reading exactly the tiles they were taken with while the world
+     * goes on changing; half of them are compared on another thread, concurrently.
+     */
+    @Test
+    void snapshotsStayFrozen() throws Exception {
+        World world = Fixtures.world(W, H, 32); // small cache: snapshots also cover evicted and regenerated chunks
+        SplittableRandom rng = new SplittableRandom(9L);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            for (int e = 1, taken = 0; e <= 3_000; e++) {
+                world.set(rng.nextInt(W), rng.nextInt(H), TYPES[rng.nextInt(TYPES.length)]);
+                if (e % 100 != 0) continue;
+
+                WorldSnapshot snap = world.snapshot();
+                byte[] expected = Fixtures.tiles(world);
+                taken++;
+                Future<byte[]> remote = taken % 2 == 0 ? reader.submit(() -> Fixtures.tiles(snap)) : null;
+                for (int more = 0; more < 200; more++) { // keep editing while the other thread reads
+                    world.set(rng.nextInt(W), rng.nextInt(H), TYPES[rng.nextInt(TYPES.length)]);
+                }
+                String what = "snapshot " + taken + " (version " + snap.version() + ") after the world was edited";
+                assertArrayEquals(expected, Fixtures.tiles(snap), what);
+                if (remote != null) assertArrayEquals(expected, remote.get(), what + ", read on another thread");
+            }
+        } finally {
+            reader.shutdown();
+        }
+    }
+
+    /**
+     * A scripted player mines and places with the history on; undoing every step gives back the tiles and
+     * inventory from before the first edit, and redoing them all the final ones.
+     */
+    @Test
+    void undoAndRedoRestoreExactly() {
+        GameState s = new GameState(W, H, Fixtures.SEED);
+        byte[] startTiles = Fixtures.tiles(s.world);
+        int[] startCounts = Fixtures.counts(s);
+
+        ScriptedInput script = new ScriptedInput(9L);
+        TickInput in = new TickInput();
+        for (int t = 0; t < 6_000; t++) {
+            script.fill(s, in);
+            s.tick(in, Fixtures.TICK);
+        }
+        assertTrue(s.history.undoSteps() > 0, "the scripted player made no edits");
+        byte[] endTiles = Fixtures.tiles(s.world);
+        int[] endCounts = Fixtures.counts(s);
+
+        // water keeps flowing between ticks; undo and redo without ticking compare tiles exactly
+        while (s.history.undo(s)) { }
+        assertArrayEquals(startTiles, Fixtures.tiles(s.world), "tiles after undoing everything");
+        assertArrayEquals(startCounts, Fixtures.counts(s), "inventory after undoing everything");
+        while (s.history.redo(s)) { }
+        assertArrayEquals(endTiles, Fixtures.tiles(s.world), "tiles after redoing everything");
+        assertArrayEquals(endCounts, Fixtures.counts(s), "inventory after redoing everything");
+    }
+
+    @Test
+    void historyStaysWithinItsBudget() {
+        GameState s = new GameState(W, H, Fixtures.SEED);
+        s.history.budget = 64 << 10;
+        SplittableRandom rng = new SplittableRandom(9L);
+        for (int e = 0; e < 2_000; e++) {
+            int x = rng.nextInt(W), y = rng.nextInt(H);
+            s.history.record(s); // trims to the budget; the edit then grows the newest step by one chunk copy
+            if (s.history.undoSteps() > 1) {
+                long held = s.history.retainedBytes(s.world);
+                assertTrue(held <= s.history.budget, "history held " + held + " bytes, budget " + s.history.budget);
+            }
+            s.world.set(x, y, s.world.get(x, y) == TileType.AIR ? TileType.STONE : TileType.AIR);
+        }
+    }
+
+    /**
+     * A step costs what its edit changed, not what the world spans: on a 20000x2000 world, edits around the player
+     * keep all {@link EditHistory#MAX_STEPS} steps within the default budget.
+     */
+    @Test
+    void stepCostFollowsTheEditsNotTheWorldSize() {
+        GameState s = new GameState(20_000, 2_000, Fixtures.SEED);
+        int x0 = (int) s.player.x(), y0 = (int) s.player.y();
+        SplittableRandom rng = new SplittableRandom(9L);
+        for (int e = 0; e < EditHistory.MAX_STEPS + 50; e++) {
+            int x = x0 + rng.nextInt(-40, 40), y = y0 + rng.nextInt(-20, 20);
+            s.history.record(s);
+            s.world.set(x, y, s.world.get(x, y) == TileType.AIR ? TileType.STONE : TileType.AIR);
+        }
+        long held = s.history.retainedBytes(s.world);
+        assertEquals(EditHistory.MAX_STEPS, s.history.undoSteps(), "steps kept (" + held + " bytes held)");
+        assertTrue(held <= EditHistory.DEFAULT_BUDGET, "history held " + held + " bytes");
+    }
+}
@@ -0,0 +1,71 @@
+package blockcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * TileIdWindow's incremental updates and dirty rows give exactly the texture a full rewrite gives. A view
+ * wanders over a lit world (small steps, sometimes a jump, sometimes past the world's edge) while tiles are
+ * edited and relit; after each update only the dirty rows are copied into a stand-in for the GPU texture,
+ * which must then hold what a fresh window writes for the same view.
+ */
+class TileWindowTest {
+
+    private static final int W = 400;
+    private static final int H = 200;
+    private static final int VIEW_W = 60;
+    private static final int VIEW_H = 36;
+    private static final int STEPS = 3_000;
+
+    @Test
+    void dirtyRowsMatchAFullRewrite() {
+        World world = Fixtures.world(W, H, Integer.MAX_VALUE);
+        LightEngine light = new LightEngine(world);
+        world.addListener(light);
+
+        TileIdWindow window = new TileIdWindow(VIEW_W, VIEW_H);
+        byte[] gpu = new byte[window.width * window.height * TileIdWindow.BYTES_PER_TEXEL];
+        int rowBytes = window.width * TileIdWindow.BYTES_PER_TEXEL;
+
+        SplittableRandom rng = new SplittableRandom(11L);
+        TileType[] placed = {TileType.AIR, TileType.AIR, TileType.STONE, TileType.DIRT, TileType.GOLD, TileType.WATER};
+        int minX = W / 2, minY = (int) (H * 0.62f) - VIEW_H / 2;
+        for (int step = 1; step <= STEPS; step++) {
+            if (rng.nextInt(50) == 0) {
+                minX = rng.nextInt(-20, W - VIEW_W + 20);
+                minY = rng.nextInt(-20, H - VIEW_H + 20);
+            } else {
+                minX = Math.max(-20, Math.min(W - VIEW_W + 20, minX + rng.nextInt(-2, 3)));
+                minY = Math.max(-20, Math.min(H - VIEW_H + 20, minY + rng.nextInt(-2, 3)));
+            }
+            int maxX = minX + VIEW_W - 1, maxY = minY + VIEW_H - 1;
+            for (int e = rng.nextInt(4); e > 0; e--) {
+                world.set(minX + rng.nextInt(VIEW_W), minY + rng.nextInt(VIEW_H), placed[rng.nextInt(placed.length)]);
+            }
+            light.update(minX - World.CHUNK_SIZE, minY - World.CHUNK_SIZE, maxX + World.CHUNK_SIZE, maxY + World.CHUNK_SIZE);
+
+            window.update(world, minX, minY, maxX, maxY);
+            for (int r = 0; r < window.height; r++) {
+                if (window.dirty(r)) window.texels.get(r * rowBytes, gpu, r * rowBytes, rowBytes);
+            }
+            window.clearDirty();
+
+            TileIdWindow fresh = new TileIdWindow(VIEW_W, VIEW_H);
+            fresh.update(world, minX, minY, maxX, maxY);
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int i = ((y & (window.height - 1)) * window.width + (x & (window.width - 1))) * TileIdWindow.BYTES_PER_TEXEL;
+                    for (int b = 0; b < TileIdWindow.BYTES_PER_TEXEL; b++) {
+                        if (gpu[i + b] != fresh.texels.get(i + b)) {
+                            assertEquals(fresh.texels.get(i + b) & 0xff, gpu[i + b] & 0xff,
+                                    "step " + step + ": tile " + x + "," + y + " byte " + b);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}